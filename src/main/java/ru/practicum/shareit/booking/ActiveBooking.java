@@ -0,0 +1,53 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Незакончившееся бронирование или серия вместе с данными вещи и бронирующего,
+ * из которых индекс текущих бронирований собирает строки выдачи.
+ * У серии заполнены seriesId, recurrence и until, а start и end относятся к первому вхождению.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActiveBooking {
+    private Long id;
+    private Long seriesId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private Recurrence recurrence;
+    private LocalDateTime until;
+    private Status status;
+    private Long ownerId;
+    private Long itemId;
+    private String itemName;
+    private String itemDescription;
+    private Boolean itemAvailable;
+    private Long itemRequestId;
+    private Long bookerId;
+    private String bookerName;
+    private String bookerEmail;
+
+    public ActiveBooking(Long id, LocalDateTime start, LocalDateTime end, Status status, Long ownerId, Long itemId,
+                         String itemName, String itemDescription, Boolean itemAvailable, Long itemRequestId,
+                         Long bookerId, String bookerName, String bookerEmail) {
+        this(id, null, start, end, null, null, status, ownerId, itemId, itemName, itemDescription, itemAvailable,
+                itemRequestId, bookerId, bookerName, bookerEmail);
+    }
+
+    public ActiveBooking(Long seriesId, LocalDateTime start, LocalDateTime end, Recurrence recurrence,
+                         LocalDateTime until, Status status, Long ownerId, Long itemId, String itemName,
+                         String itemDescription, Boolean itemAvailable, Long itemRequestId, Long bookerId,
+                         String bookerName, String bookerEmail) {
+        this(null, seriesId, start, end, recurrence, until, status, ownerId, itemId, itemName, itemDescription,
+                itemAvailable, itemRequestId, bookerId, bookerName, bookerEmail);
+    }
+
+    public boolean isSeries() {
+        return seriesId != null;
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingRowDto;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+    @Query("select new ru.practicum.shareit.booking.dto.BookingDto(a.id, a.start, a.end, a.status, a.booker.id, " +
+            "i.id, i.name) " +
+            "from ArchivedBooking as a " +
+            "join a.item as i " +
+            "where i.id in :itemIds " +
+            "and a.status = :status " +
+            "and a.start = (select max(l.start) from ArchivedBooking as l " +
+            "where l.item = i and l.status = :status)")
+    List<BookingDto> findLastByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                       @Param("status") Status status);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = BookingExporter.FETCH_SIZE))
+    @Query("select new ru.practicum.shareit.booking.dto.BookingRowDto(a.id, a.start, a.end, a.status, " +
+            "i.id, i.name, i.description, i.available, i.requestId, u.id, u.name, u.email) " +
+            "from ArchivedBooking as a " +
+            "join a.item as i " +
+            "join a.booker as u " +
+            "where i.owner.id = :ownerId " +
+            "and a.start >= :from " +
+            "and a.start < :to " +
+            "order by a.start, a.id")
+    Stream<BookingRowDto> streamByOwnerId(@Param("ownerId") Long ownerId,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to);
+
+    @Query("select new ru.practicum.shareit.booking.ItemBooker(a.item.id, a.booker.id, min(a.end)) " +
+            "from ArchivedBooking as a " +
+            "where a.status = :status " +
+            "group by a.item.id, a.booker.id")
+    List<ItemBooker> findFirstEndsByStatus(@Param("status") Status status);
+}
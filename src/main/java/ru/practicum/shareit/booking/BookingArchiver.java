@@ -0,0 +1,74 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Переносит в bookings_archive бронирования, закончившиеся раньше заданного горизонта,
+ * чтобы в рабочей таблице оставались только текущие, будущие и недавние бронирования.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.booking.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class BookingArchiver {
+    private final BookingRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration horizon;
+    private final int batchSize;
+    private final int maxBatches;
+    private final AtomicLong archived = new AtomicLong();
+
+    public BookingArchiver(BookingRepository repository,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${shareit.booking.archive.horizon:P30D}") Duration horizon,
+                           @Value("${shareit.booking.archive.batch-size:1000}") int batchSize,
+                           @Value("${shareit.booking.archive.max-batches:50}") int maxBatches) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.horizon = horizon;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.archive.delay:PT1H}",
+            initialDelayString = "${shareit.booking.archive.delay:PT1H}")
+    public void archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(horizon);
+        long started = System.nanoTime();
+        int total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            Integer count = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            total += count == null ? 0 : count;
+            if (count == null || count < batchSize) {
+                break;
+            }
+        }
+        archived.addAndGet(total);
+        if (total > 0) {
+            log.info("В архив перенесено {} бронирований за {} мс", total, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    public long getArchived() {
+        return archived.get();
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = repository.findIdsByEndBefore(cutoff, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        repository.copyToArchive(ids);
+        repository.deleteByIdIn(ids);
+        return ids.size();
+    }
+}
@@ -0,0 +1,244 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.FreeIntervalDto;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Занятые интервалы вещей (бронирования в статусах WAITING и APPROVED), упорядоченные по началу.
+ * Интервалы одной вещи не пересекаются, поэтому для проверки пересечения достаточно
+ * найти ближайший интервал, начинающийся раньше конца запрошенного.
+ * Серии хранятся отдельно одной записью и не разворачиваются: их вхождения вычисляются по окну запроса.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingAvailabilityIndex {
+    static final List<Status> OCCUPYING_STATUSES = List.of(Status.WAITING, Status.APPROVED);
+
+    private final BookingRepository repository;
+    private final BookingSeriesRepository seriesRepository;
+    private final Map<Long, NavigableMap<LocalDateTime, BookingSlot>> schedules = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Long, SeriesSlot>> series = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        schedules.clear();
+        series.clear();
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingSlot> slots = repository.findSlotsByStatusInAndEndAfter(OCCUPYING_STATUSES, now);
+        slots.forEach(this::put);
+        List<SeriesSlot> active = seriesRepository.findSlotsByStatusIn(OCCUPYING_STATUSES).stream()
+                .filter(slot -> slot.lastEnd().isAfter(now))
+                .collect(toList());
+        active.forEach(this::putSeries);
+        log.info("Индекс занятости загружен: {} бронирований, {} серий", slots.size(), active.size());
+    }
+
+    public boolean hasOverlap(Long itemId, LocalDateTime start, LocalDateTime end) {
+        NavigableMap<LocalDateTime, BookingSlot> schedule = schedules.get(itemId);
+        if (schedule != null) {
+            synchronized (schedule) {
+                Map.Entry<LocalDateTime, BookingSlot> previous = schedule.lowerEntry(end);
+                if (previous != null && previous.getValue().getEnd().isAfter(start)) {
+                    return true;
+                }
+            }
+        }
+        return getSeries(itemId).stream().anyMatch(slot -> slot.overlaps(start, end));
+    }
+
+    /**
+     * Проверяет новую серию: одиночные бронирования — по одному O(1)-сравнению на каждое в пределах серии,
+     * другие серии — по вхождениям новой серии в общем с ними диапазоне.
+     */
+    public boolean hasOverlap(SeriesSlot candidate) {
+        LocalDateTime lastEnd = candidate.lastEnd();
+        NavigableMap<LocalDateTime, BookingSlot> schedule = schedules.get(candidate.getItemId());
+        if (schedule != null) {
+            synchronized (schedule) {
+                Map.Entry<LocalDateTime, BookingSlot> previous = schedule.lowerEntry(candidate.getStart());
+                if (previous != null && candidate.overlaps(previous.getValue().getStart(),
+                        previous.getValue().getEnd())) {
+                    return true;
+                }
+                for (BookingSlot slot : schedule.subMap(candidate.getStart(), true, lastEnd, false).values()) {
+                    if (candidate.overlaps(slot.getStart(), slot.getEnd())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        for (SeriesSlot other : getSeries(candidate.getItemId())) {
+            if (other.getId().equals(candidate.getId())) {
+                continue;
+            }
+            for (BookingSlot occurrence : candidate.occurrences(other.getStart(), other.lastEnd())) {
+                if (other.overlaps(occurrence.getStart(), occurrence.getEnd())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public List<FreeIntervalDto> getFreeIntervals(Long itemId, LocalDateTime from, LocalDateTime to) {
+        List<BookingSlot> busy = new ArrayList<>();
+        NavigableMap<LocalDateTime, BookingSlot> schedule = schedules.get(itemId);
+        if (schedule != null) {
+            synchronized (schedule) {
+                Map.Entry<LocalDateTime, BookingSlot> previous = schedule.lowerEntry(from);
+                if (previous != null) {
+                    busy.add(previous.getValue());
+                }
+                busy.addAll(schedule.subMap(from, true, to, false).values());
+            }
+        }
+        for (SeriesSlot slot : getSeries(itemId)) {
+            busy.addAll(slot.occurrences(from, to));
+        }
+        busy.sort(Comparator.comparing(BookingSlot::getStart));
+        List<FreeIntervalDto> free = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (BookingSlot slot : busy) {
+            if (slot.getStart().isAfter(cursor)) {
+                free.add(new FreeIntervalDto(cursor, slot.getStart()));
+            }
+            if (slot.getEnd().isAfter(cursor)) {
+                cursor = slot.getEnd();
+            }
+        }
+        if (cursor.isBefore(to)) {
+            free.add(new FreeIntervalDto(cursor, to));
+        }
+        return free;
+    }
+
+    public List<SeriesSlot> getSeries(Long itemId) {
+        Map<Long, SeriesSlot> itemSeries = series.get(itemId);
+        if (itemSeries == null) {
+            return List.of();
+        }
+        synchronized (itemSeries) {
+            return new ArrayList<>(itemSeries.values());
+        }
+    }
+
+    public void reserveSeries(SeriesSlot slot) {
+        SeriesSlot previous = putSeries(slot);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        removeSeries(slot);
+                        if (previous != null) {
+                            putSeries(previous);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    public void releaseSeries(SeriesSlot slot) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeSeries(slot);
+                }
+            });
+        } else {
+            removeSeries(slot);
+        }
+    }
+
+    public void reserve(BookingSlot slot) {
+        put(slot);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        remove(slot);
+                    }
+                }
+            });
+        }
+    }
+
+    public void release(BookingSlot slot) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(slot);
+                }
+            });
+        } else {
+            remove(slot);
+        }
+    }
+
+    private void put(BookingSlot slot) {
+        NavigableMap<LocalDateTime, BookingSlot> schedule = schedules.computeIfAbsent(slot.getItemId(),
+                id -> new TreeMap<>());
+        synchronized (schedule) {
+            LocalDateTime now = LocalDateTime.now();
+            while (!schedule.isEmpty() && schedule.firstEntry().getValue().getEnd().isBefore(now)) {
+                schedule.pollFirstEntry();
+            }
+            schedule.merge(slot.getStart(), slot, (current, added) ->
+                    current.getEnd().isAfter(added.getEnd()) ? current : added);
+        }
+    }
+
+    private SeriesSlot putSeries(SeriesSlot slot) {
+        Map<Long, SeriesSlot> itemSeries = series.computeIfAbsent(slot.getItemId(), id -> new HashMap<>());
+        synchronized (itemSeries) {
+            LocalDateTime now = LocalDateTime.now();
+            itemSeries.values().removeIf(current -> !current.lastEnd().isAfter(now));
+            return itemSeries.put(slot.getId(), slot);
+        }
+    }
+
+    private void removeSeries(SeriesSlot slot) {
+        Map<Long, SeriesSlot> itemSeries = series.get(slot.getItemId());
+        if (itemSeries == null) {
+            return;
+        }
+        synchronized (itemSeries) {
+            itemSeries.remove(slot.getId());
+        }
+    }
+
+    private void remove(BookingSlot slot) {
+        NavigableMap<LocalDateTime, BookingSlot> schedule = schedules.get(slot.getItemId());
+        if (schedule == null) {
+            return;
+        }
+        synchronized (schedule) {
+            BookingSlot current = schedule.get(slot.getStart());
+            if (current != null && current.getId().equals(slot.getId())) {
+                schedule.remove(slot.getStart());
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class BookingChangedEvent {
+    private final Long bookingId;
+    private final Long itemId;
+    private final String itemName;
+    private final Long ownerId;
+    private final Long bookerId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final Status oldStatus;
+    private final Status newStatus;
+}
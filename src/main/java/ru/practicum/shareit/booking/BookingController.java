@@ -2,13 +2,24 @@ package ru.practicum.shareit.booking;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingFullDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingSeriesDto;
 
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Slf4j
@@ -17,6 +28,7 @@ import java.util.List;
 @RequestMapping(path = "/bookings")
 public class BookingController {
     private final BookingService bookingService;
+    private final BookingExporter bookingExporter;
     private static final String OWNER = "X-Sharer-User-Id";
 
     @PostMapping
@@ -27,6 +39,32 @@ public class BookingController {
         return bookingService.postRequest(userId, bookingDto);
     }
 
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<BookingFullDto> postRequests(@RequestHeader(OWNER) Long userId,
+                                             @RequestBody List<BookingDto> bookingDtos) {
+        log.info("Получен POST-запрос /bookings/batch на создание {} бронирований пользователем с ID={}",
+                bookingDtos.size(), userId);
+        return bookingService.postRequests(userId, bookingDtos);
+    }
+
+    @PostMapping("/series")
+    @ResponseStatus(HttpStatus.CREATED)
+    public BookingSeriesDto postSeries(@RequestHeader(OWNER) Long userId,
+                                       @RequestBody BookingSeriesDto seriesDto) {
+        log.info("Получен POST-запрос /bookings/series на создание серии бронирований пользователем с ID={}", userId);
+        return bookingService.postSeries(userId, seriesDto);
+    }
+
+    @PatchMapping("/series/{seriesId}")
+    @ResponseStatus(HttpStatus.OK)
+    public BookingSeriesDto postApproveSeries(@PathVariable Long seriesId, @RequestHeader(OWNER) Long userId,
+                                              @RequestParam Boolean approved) {
+        log.info("Получен PATCH-запрос /bookings/series/{} на одобрение серии бронирований пользователем с ID={}",
+                seriesId, userId);
+        return bookingService.postApproveSeries(seriesId, userId, approved);
+    }
+
     @PatchMapping("/{bookingId}")
     @ResponseStatus(HttpStatus.OK)
     public BookingFullDto postApproveBooking(@PathVariable Long bookingId, @RequestHeader(OWNER) Long userId,
@@ -35,6 +73,30 @@ public class BookingController {
         return bookingService.postApproveBooking(bookingId, userId, approved);
     }
 
+    @PatchMapping("/approve")
+    @ResponseStatus(HttpStatus.OK)
+    public List<BookingApprovalResultDto> approveBookings(@RequestHeader(OWNER) Long userId,
+                                                         @RequestBody BookingApprovalDto approvalDto) {
+        log.info("Получен PATCH-запрос /bookings/approve на изменение статуса {} бронирований пользователем с ID={}",
+                approvalDto.getBookingIds() == null ? 0 : approvalDto.getBookingIds().size(), userId);
+        return bookingService.approveBookings(userId, approvalDto);
+    }
+
+    @GetMapping("/counts")
+    @ResponseStatus(HttpStatus.OK)
+    public BookingCountsDto getBookingCountsForUser(@RequestHeader(OWNER) @Positive Long userId) {
+        log.info("Получен GET-запрос /bookings/counts на получение счётчиков бронирований пользователя с ID={}", userId);
+        return bookingService.getBookingCountsForUser(userId);
+    }
+
+    @GetMapping("/owner/counts")
+    @ResponseStatus(HttpStatus.OK)
+    public BookingCountsDto getBookingCountsForOwner(@RequestHeader(OWNER) @Positive Long userId) {
+        log.info("Получен GET-запрос /bookings/owner/counts на получение счётчиков бронирований " +
+                "вещей пользователя с ID={}", userId);
+        return bookingService.getBookingCountsForOwner(userId);
+    }
+
     @GetMapping("/{bookingId}")
     @ResponseStatus(HttpStatus.OK)
     public BookingFullDto getBookingReqeust(@PathVariable Long bookingId,
@@ -65,4 +127,45 @@ public class BookingController {
                 "созданных пользователем с ID={}", userId);
         return bookingService.getAllBookingRequestForOwner(userId, state, from, size);
     }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportForOwner(
+            @RequestHeader(OWNER) @Positive Long userId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Получен GET-запрос /bookings/owner/export на выгрузку бронирований вещей пользователя с ID={} " +
+                "в формате {}", userId, format);
+        BookingExportFormat exportFormat = BookingExportFormat.from(format);
+        StreamingResponseBody body = bookingExporter.exportForOwner(userId, exportFormat, from, to);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=bookings." + exportFormat.getExtension())
+                .body(body);
+    }
+
+    @GetMapping(params = "cursor")
+    @ResponseStatus(HttpStatus.OK)
+    public BookingPageDto getBookingPageForUser(
+            @RequestHeader(OWNER) @Positive Long userId,
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam String cursor,
+            @RequestParam(value = "size", defaultValue = "10") @Positive int size) {
+        log.info("Получен GET-запрос /bookings с курсором для получения заявок на бронирование пользователем с ID={}",
+                userId);
+        return bookingService.getBookingPageForUser(userId, state, cursor, size);
+    }
+
+    @GetMapping(value = "/owner", params = "cursor")
+    @ResponseStatus(HttpStatus.OK)
+    public BookingPageDto getBookingPageForOwner(
+            @RequestHeader(OWNER) @Positive Long userId,
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam String cursor,
+            @RequestParam(value = "size", defaultValue = "10") @Positive int size) {
+        log.info("Получен GET-запрос /bookings/owner с курсором для получения заявок на бронирование " +
+                "вещей пользователя с ID={}", userId);
+        return bookingService.getBookingPageForOwner(userId, state, cursor, size);
+    }
 }
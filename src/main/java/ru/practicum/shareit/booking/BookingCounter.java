@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "booking_counters")
+public class BookingCounter {
+    @EmbeddedId
+    private BookingCounterId id;
+    @Column(name = "booking_count")
+    private Long count;
+}
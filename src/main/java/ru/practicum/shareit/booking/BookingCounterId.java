@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Embeddable
+public class BookingCounterId implements Serializable {
+    @Column(name = "user_id")
+    private Long userId;
+    @Enumerated(EnumType.STRING)
+    private BookingRole role;
+    @Enumerated(EnumType.STRING)
+    private Status status;
+}
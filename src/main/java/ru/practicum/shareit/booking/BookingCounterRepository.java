@@ -0,0 +1,33 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface BookingCounterRepository extends JpaRepository<BookingCounter, BookingCounterId>,
+        BookingCounterRepositoryCustom {
+    List<BookingCounter> findAllByIdUserIdAndIdRole(Long userId, BookingRole role);
+
+    @Query("select coalesce(sum(c.count), 0) from BookingCounter as c " +
+            "where c.id.userId = :userId and c.id.role = :role and c.id.status in :statuses")
+    long sumByUserAndRole(@Param("userId") Long userId,
+                          @Param("role") BookingRole role,
+                          @Param("statuses") Collection<Status> statuses);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update BookingCounter as c set c.count = c.count + :delta " +
+            "where c.id.userId = :userId and c.id.role = :role and c.id.status = :status")
+    int add(@Param("userId") Long userId,
+            @Param("role") BookingRole role,
+            @Param("status") Status status,
+            @Param("delta") long delta);
+
+    @Modifying
+    @Query(value = "insert into booking_counters (user_id, role, status, booking_count) " +
+            "values (:userId, :role, :status, 0)", nativeQuery = true)
+    void insertZero(@Param("userId") Long userId, @Param("role") String role, @Param("status") String status);
+}
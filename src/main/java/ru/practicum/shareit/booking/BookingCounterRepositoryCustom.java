@@ -0,0 +1,7 @@
+package ru.practicum.shareit.booking;
+
+import java.util.Map;
+
+public interface BookingCounterRepositoryCustom {
+    int[] addAll(Map<BookingCounterId, Long> deltas);
+}
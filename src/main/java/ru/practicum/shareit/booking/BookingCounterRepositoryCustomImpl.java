@@ -0,0 +1,36 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.util.Map;
+
+/**
+ * Изменения нескольких счётчиков одним JDBC-пакетом. Возвращает число обновлённых строк для каждого счётчика
+ * в порядке обхода deltas.
+ */
+public class BookingCounterRepositoryCustomImpl implements BookingCounterRepositoryCustom {
+    private static final String ADD = "update booking_counters set booking_count = booking_count + ? " +
+            "where user_id = ? and role = ? and status = ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int[] addAll(Map<BookingCounterId, Long> deltas) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(ADD)) {
+                for (Map.Entry<BookingCounterId, Long> delta : deltas.entrySet()) {
+                    statement.setLong(1, delta.getValue());
+                    statement.setLong(2, delta.getKey().getUserId());
+                    statement.setString(3, delta.getKey().getRole().name());
+                    statement.setString(4, delta.getKey().getStatus().name());
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
+            }
+        });
+    }
+}
@@ -0,0 +1,144 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Счётчики бронирований пользователя по роли и статусу. Обновляются в той же транзакции, что и само бронирование.
+ * Каждая смена статуса сначала блокирует строку бронирования или серии в ожидаемом старом статусе,
+ * поэтому событие несёт статус, который действительно был заменён, и счётчики совпадают с числом строк
+ * в bookings и bookings_archive вместе (архивирование счётчики не меняет, серия считается одной строкой).
+ * Строки с нулями создаются вместе с пользователем: тогда изменение статуса — это только UPDATE,
+ * и параллельные первые бронирования пользователя не конкурируют за вставку одной строки.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingCounters {
+    private static final Comparator<BookingCounterId> COUNTER_ORDER = Comparator
+            .comparing(BookingCounterId::getUserId)
+            .thenComparing(BookingCounterId::getRole)
+            .thenComparing(BookingCounterId::getStatus);
+
+    private final BookingCounterRepository repository;
+
+    public void createFor(Long userId) {
+        for (BookingRole role : BookingRole.values()) {
+            for (Status status : Status.values()) {
+                repository.insertZero(userId, role.name(), status.name());
+            }
+        }
+    }
+
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        countChange(event.getOwnerId(), event.getBookerId(), event.getOldStatus(), event.getNewStatus());
+    }
+
+    @EventListener
+    public void onBookingsChanged(BookingsChangedEvent event) {
+        countChanges(event.getChanges());
+    }
+
+    @EventListener
+    public void onSeriesChanged(BookingSeriesChangedEvent event) {
+        countChange(event.getOwnerId(), event.getBookerId(), event.getOldStatus(), event.getNewStatus());
+    }
+
+    /**
+     * Изменения суммируются по счётчикам и применяются одним пакетом, по одному UPDATE на счётчик.
+     * Счётчики обновляются в одном порядке, поэтому параллельные пакеты не блокируют друг друга крест-накрест.
+     */
+    public void countChanges(List<BookingChangedEvent> changes) {
+        Map<BookingCounterId, Long> deltas = new TreeMap<>(COUNTER_ORDER);
+        for (BookingChangedEvent change : changes) {
+            if (change.getOldStatus() != null) {
+                deltas.merge(new BookingCounterId(change.getBookerId(), BookingRole.BOOKER, change.getOldStatus()),
+                        -1L, Long::sum);
+                deltas.merge(new BookingCounterId(change.getOwnerId(), BookingRole.OWNER, change.getOldStatus()),
+                        -1L, Long::sum);
+            }
+            deltas.merge(new BookingCounterId(change.getBookerId(), BookingRole.BOOKER, change.getNewStatus()),
+                    1L, Long::sum);
+            deltas.merge(new BookingCounterId(change.getOwnerId(), BookingRole.OWNER, change.getNewStatus()),
+                    1L, Long::sum);
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        int[] updated = repository.addAll(deltas);
+        int i = 0;
+        for (Map.Entry<BookingCounterId, Long> delta : deltas.entrySet()) {
+            if (updated[i++] == 0) {
+                BookingCounterId id = delta.getKey();
+                create(id.getUserId(), id.getRole(), id.getStatus());
+                repository.add(id.getUserId(), id.getRole(), id.getStatus(), delta.getValue());
+            }
+        }
+    }
+
+    /**
+     * Серия бронирований учитывается как одно бронирование: счётчики нужны, чтобы понять,
+     * есть ли у пользователя что показать, а не сколько вхождений у серии.
+     */
+    public void countChange(Long ownerId, Long bookerId, Status oldStatus, Status newStatus) {
+        if (oldStatus != null) {
+            add(bookerId, BookingRole.BOOKER, oldStatus, -1);
+            add(ownerId, BookingRole.OWNER, oldStatus, -1);
+        }
+        add(bookerId, BookingRole.BOOKER, newStatus, 1);
+        add(ownerId, BookingRole.OWNER, newStatus, 1);
+    }
+
+    public BookingCountsDto getCounts(Long userId, BookingRole role) {
+        Map<Status, Long> statuses = new EnumMap<>(Status.class);
+        for (Status status : Status.values()) {
+            statuses.put(status, 0L);
+        }
+        long total = 0;
+        for (BookingCounter counter : repository.findAllByIdUserIdAndIdRole(userId, role)) {
+            statuses.put(counter.getId().getStatus(), counter.getCount());
+            total += counter.getCount();
+        }
+        return new BookingCountsDto(total, statuses);
+    }
+
+    public boolean hasNone(Long userId, BookingRole role, BookingState state) {
+        return repository.sumByUserAndRole(userId, role, statusesOf(role, state)) == 0;
+    }
+
+    private List<Status> statusesOf(BookingRole role, BookingState state) {
+        switch (state) {
+            case PAST:
+                return role == BookingRole.OWNER ? List.of(Status.APPROVED) : List.of(Status.values());
+            case WAITING:
+                return List.of(Status.WAITING);
+            case REJECTED:
+                return List.of(Status.REJECTED);
+            default:
+                return List.of(Status.values());
+        }
+    }
+
+    private void add(Long userId, BookingRole role, Status status, long delta) {
+        if (repository.add(userId, role, status, delta) == 0) {
+            create(userId, role, status);
+            repository.add(userId, role, status, delta);
+        }
+    }
+
+    private void create(Long userId, BookingRole role, Status status) {
+        log.warn("Счётчик бронирований {} {} {} не был создан вместе с пользователем", userId, role, status);
+        repository.insertZero(userId, role.name(), status.name());
+    }
+}
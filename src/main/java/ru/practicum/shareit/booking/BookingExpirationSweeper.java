@@ -0,0 +1,110 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Переводит в статус EXPIRED бронирования, которые так и остались в WAITING после наступления даты начала.
+ * Каждая пачка обрабатывается в отдельной транзакции, чтобы не держать долгих блокировок.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.booking.expiration.enabled", havingValue = "true", matchIfMissing = true)
+public class BookingExpirationSweeper {
+    private final BookingRepository repository;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatches;
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    public BookingExpirationSweeper(BookingRepository repository,
+                                    BookingAvailabilityIndex availabilityIndex,
+                                    ApplicationEventPublisher eventPublisher,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${shareit.booking.expiration.batch-size:500}") int batchSize,
+                                    @Value("${shareit.booking.expiration.max-batches:20}") int maxBatches) {
+        this.repository = repository;
+        this.availabilityIndex = availabilityIndex;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.expiration.delay:PT1M}",
+            initialDelayString = "${shareit.booking.expiration.delay:PT1M}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        long started = System.nanoTime();
+        long before = expired.get();
+        for (int batch = 0; batch < maxBatches; batch++) {
+            Integer selected = transactionTemplate.execute(status -> expireBatch(now));
+            if (selected == null || selected < batchSize) {
+                break;
+            }
+        }
+        runs.incrementAndGet();
+        long total = expired.get() - before;
+        if (total > 0) {
+            log.info("Просрочено {} бронирований за {} мс", total, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    public long getRuns() {
+        return runs.get();
+    }
+
+    public long getExpired() {
+        return expired.get();
+    }
+
+    /**
+     * Возвращает размер выбранной пачки. Просрочиваются только строки, которые удалось заблокировать
+     * всё ещё в статусе WAITING: если владелец успел их подтвердить или отклонить, они пропускаются.
+     */
+    private int expireBatch(LocalDateTime now) {
+        List<Booking> candidates = repository.findByStatusAndStartBefore(Status.WAITING, now,
+                PageRequest.of(0, batchSize));
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        Set<Long> locked = new HashSet<>(repository.lockIdsByIdInAndStatus(candidates.stream()
+                .map(Booking::getId)
+                .collect(toList()), Status.WAITING.name()));
+        List<Booking> bookings = candidates.stream()
+                .filter(book -> locked.contains(book.getId()))
+                .collect(toList());
+        if (bookings.isEmpty()) {
+            return candidates.size();
+        }
+        int updated = repository.updateStatusByIdInAndStatus(locked, Status.WAITING, Status.EXPIRED);
+        if (updated != bookings.size()) {
+            throw new IllegalStateException(String.format(
+                    "Просрочено %d бронирований вместо %d заблокированных", updated, bookings.size()));
+        }
+        for (Booking book : bookings) {
+            availabilityIndex.release(BookingMapper.toBookingSlot(book));
+            book.setStatus(Status.EXPIRED);
+            eventPublisher.publishEvent(BookingMapper.toBookingChangedEvent(book, Status.WAITING));
+        }
+        expired.addAndGet(bookings.size());
+        return candidates.size();
+    }
+}
@@ -0,0 +1,224 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingRowDto;
+import ru.practicum.shareit.booking.dto.BookingSeriesRowDto;
+import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Выгрузка истории бронирований владельца. Строки читаются курсором с ограниченным fetch size
+ * из живой таблицы, архива и серий, сливаются по времени начала и сразу пишутся в ответ,
+ * поэтому память не зависит от объёма истории. Серия выгружается вхождениями с началом в периоде,
+ * у вхождения нет своего ID, вместо него заполнен seriesId.
+ */
+@Slf4j
+@Component
+public class BookingExporter {
+    static final String FETCH_SIZE = "500";
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(3000, 1, 1, 0, 0);
+    private static final String CSV_HEADER = "id,start,end,status,itemId,itemName,bookerId,bookerName,bookerEmail," +
+            "seriesId";
+    private static final Comparator<BookingRowDto> OLDEST_FIRST = Comparator
+            .comparing(BookingRowDto::getStart)
+            .thenComparing(BookingCursor::keyOf);
+
+    private final BookingRepository repository;
+    private final ArchivedBookingRepository archivedRepository;
+    private final BookingSeriesRepository seriesRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public BookingExporter(BookingRepository repository,
+                           ArchivedBookingRepository archivedRepository,
+                           BookingSeriesRepository seriesRepository,
+                           UserRepository userRepository,
+                           TransactionTemplate transactionTemplate,
+                           ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.archivedRepository = archivedRepository;
+        this.seriesRepository = seriesRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public StreamingResponseBody exportForOwner(Long ownerId, BookingExportFormat format,
+                                                LocalDateTime from, LocalDateTime to) {
+        LocalDateTime lower = from == null ? EARLIEST : from;
+        LocalDateTime upper = to == null ? LATEST : to;
+        if (!lower.isBefore(upper)) {
+            throw new ValidationException("Неправильно указан период выгрузки!");
+        }
+        if (!userRepository.existsById(ownerId)) {
+            log.error("Пользователь с ID: {} не найден", ownerId);
+            throw new UserNotFoundException("Такого пользователя нет");
+        }
+        return out -> transactionTemplate.executeWithoutResult(status -> {
+            try {
+                write(ownerId, format, lower, upper, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void write(Long ownerId, BookingExportFormat format, LocalDateTime from, LocalDateTime to,
+                       OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long rows = 0;
+        try (Stream<BookingRowDto> live = repository.streamByOwnerId(ownerId, from, to);
+             Stream<BookingRowDto> archived = archivedRepository.streamByOwnerId(ownerId, from, to);
+             Stream<BookingSeriesRowDto> series = seriesRepository.streamByOwnerId(ownerId, from, to)) {
+            if (format == BookingExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            List<Iterator<BookingRowDto>> sources = List.of(live.iterator(), archived.iterator(),
+                    new SeriesOccurrences(series.iterator(), from, to));
+            BookingRowDto[] heads = new BookingRowDto[sources.size()];
+            for (int i = 0; i < heads.length; i++) {
+                heads[i] = next(sources.get(i));
+            }
+            while (true) {
+                int oldest = -1;
+                for (int i = 0; i < heads.length; i++) {
+                    if (heads[i] != null && (oldest < 0 || OLDEST_FIRST.compare(heads[i], heads[oldest]) < 0)) {
+                        oldest = i;
+                    }
+                }
+                if (oldest < 0) {
+                    break;
+                }
+                BookingRowDto row = heads[oldest];
+                heads[oldest] = next(sources.get(oldest));
+                if (format == BookingExportFormat.CSV) {
+                    writeCsv(writer, row);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(BookingMapper.toBookingFullDto(row)));
+                }
+                writer.write('\n');
+                rows++;
+            }
+        }
+        writer.flush();
+        log.info("Выгружено {} бронирований владельца с ID={}", rows, ownerId);
+    }
+
+    private BookingRowDto next(Iterator<BookingRowDto> rows) {
+        return rows.hasNext() ? rows.next() : null;
+    }
+
+    private void writeCsv(Writer writer, BookingRowDto row) throws IOException {
+        writer.write(String.join(",",
+                row.getId() == null ? "" : String.valueOf(row.getId()),
+                String.valueOf(row.getStart()),
+                String.valueOf(row.getEnd()),
+                String.valueOf(row.getStatus()),
+                String.valueOf(row.getItemId()),
+                csvField(row.getItemName()),
+                String.valueOf(row.getBookerId()),
+                csvField(row.getBookerName()),
+                csvField(row.getBookerEmail()),
+                row.getSeriesId() == null ? "" : String.valueOf(row.getSeriesId())));
+    }
+
+    private String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    /**
+     * Вхождения серий с началом в [from, to) по возрастанию начала. Серии приходят по возрастанию своего начала,
+     * и следующая серия читается, только когда её вхождение может оказаться раньше уже найденных,
+     * поэтому в очереди лежат лишь серии, идущие одновременно.
+     */
+    private static class SeriesOccurrences implements Iterator<BookingRowDto> {
+        private final Iterator<BookingSeriesRowDto> series;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final PriorityQueue<Occurrence> queue = new PriorityQueue<>(Comparator
+                .comparing((Occurrence occurrence) -> occurrence.start)
+                .thenComparing(occurrence -> -occurrence.row.getId()));
+        private BookingSeriesRowDto unread;
+
+        SeriesOccurrences(Iterator<BookingSeriesRowDto> series, LocalDateTime from, LocalDateTime to) {
+            this.series = series;
+            this.from = from;
+            this.to = to;
+            this.unread = series.hasNext() ? series.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            fill();
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public BookingRowDto next() {
+            fill();
+            Occurrence occurrence = queue.poll();
+            if (occurrence == null) {
+                throw new NoSuchElementException();
+            }
+            offer(occurrence.row, occurrence.slot, occurrence.n + 1);
+            return BookingMapper.toBookingRowDto(occurrence.row, new BookingSlot(occurrence.row.getId(),
+                    occurrence.row.getItemId(), occurrence.start, occurrence.slot.occurrenceEnd(occurrence.n)));
+        }
+
+        private void fill() {
+            while (unread != null && (queue.isEmpty() || !earliestStart(unread).isAfter(queue.peek().start))) {
+                SeriesSlot slot = BookingMapper.toSeriesSlot(unread);
+                offer(unread, slot, slot.lastStartBefore(from, false) + 1);
+                unread = series.hasNext() ? series.next() : null;
+            }
+        }
+
+        private LocalDateTime earliestStart(BookingSeriesRowDto row) {
+            return row.getStart().isBefore(from) ? from : row.getStart();
+        }
+
+        private void offer(BookingSeriesRowDto row, SeriesSlot slot, long n) {
+            if (n <= slot.lastIndex() && slot.occurrenceStart(n).isBefore(to)) {
+                queue.add(new Occurrence(row, slot, n, slot.occurrenceStart(n)));
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Occurrence {
+        private final BookingSeriesRowDto row;
+        private final SeriesSlot slot;
+        private final long n;
+        private final LocalDateTime start;
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Фиксированный набор блокировок, между которыми распределяются вещи по ID.
+ * Бронирования одной вещи выполняются последовательно, разных вещей — как правило, параллельно.
+ * Без конкуренции захват блокировки сводится к одному CAS.
+ */
+@Component
+public class BookingItemLocks {
+    private final ReentrantLock[] stripes;
+
+    public BookingItemLocks(@Value("${shareit.booking.lock-stripes:64}") int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withLock(Long itemId, Supplier<T> action) {
+        ReentrantLock lock = stripeFor(itemId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Захватывает блокировки всех перечисленных вещей в порядке номеров, чтобы
+     * два пересекающихся набора не могли ждать друг друга.
+     */
+    public <T> T withLocks(Collection<Long> itemIds, Supplier<T> action) {
+        SortedSet<Integer> indexes = new TreeSet<>();
+        itemIds.forEach(itemId -> indexes.add(stripeIndex(itemId)));
+        List<ReentrantLock> locked = new ArrayList<>(indexes.size());
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                locked.add(stripes[index]);
+            }
+            return action.get();
+        } finally {
+            for (int i = locked.size() - 1; i >= 0; i--) {
+                locked.get(i).unlock();
+            }
+        }
+    }
+
+    private ReentrantLock stripeFor(Long itemId) {
+        return stripes[stripeIndex(itemId)];
+    }
+
+    private int stripeIndex(Long itemId) {
+        int hash = itemId == null ? 0 : itemId.hashCode();
+        hash ^= hash >>> 16;
+        return hash & (stripes.length - 1);
+    }
+}
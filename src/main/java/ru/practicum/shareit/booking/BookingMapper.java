@@ -3,8 +3,13 @@ package ru.practicum.shareit.booking;
 import lombok.experimental.UtilityClass;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingFullDto;
+import ru.practicum.shareit.booking.dto.BookingRowDto;
+import ru.practicum.shareit.booking.dto.BookingSeriesDto;
+import ru.practicum.shareit.booking.dto.BookingSeriesRowDto;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.user.UserMapper;
+import ru.practicum.shareit.user.dto.UserDto;
 
 @UtilityClass
 public class BookingMapper {
@@ -27,4 +32,197 @@ public class BookingMapper {
                 UserMapper.toUserDto(book.getBooker()),
                 book.getStatus());
     }
-}
\ No newline at end of file
+
+    public Booking toBooking(ArchivedBooking book) {
+        return new Booking(book.getId(),
+                book.getStart(),
+                book.getEnd(),
+                book.getItem(),
+                book.getBooker(),
+                book.getStatus());
+    }
+
+    public BookingFullDto toBookingFullDto(BookingRowDto row) {
+        return new BookingFullDto(row.getId(),
+                row.getStart(),
+                row.getEnd(),
+                new ItemDto(row.getItemId(), row.getItemName(), row.getItemDescription(), row.getItemAvailable(),
+                        null, row.getItemRequestId(), null, null, null),
+                new UserDto(row.getBookerId(), row.getBookerName(), row.getBookerEmail()),
+                row.getStatus(),
+                row.getSeriesId());
+    }
+
+    public BookingRowDto toBookingRowDto(BookingSeriesRowDto row, BookingSlot occurrence) {
+        return new BookingRowDto(null,
+                occurrence.getStart(),
+                occurrence.getEnd(),
+                row.getStatus(),
+                row.getItemId(),
+                row.getItemName(),
+                row.getItemDescription(),
+                row.getItemAvailable(),
+                row.getItemRequestId(),
+                row.getBookerId(),
+                row.getBookerName(),
+                row.getBookerEmail(),
+                row.getId());
+    }
+
+    public BookingDto toBookingDto(SeriesSlot series, long n) {
+        return new BookingDto(null,
+                series.occurrenceStart(n),
+                series.occurrenceEnd(n),
+                series.getStatus(),
+                series.getBookerId(),
+                series.getItemId(),
+                null);
+    }
+
+    public SeriesSlot toSeriesSlot(BookingSeriesRowDto row) {
+        return new SeriesSlot(row.getId(),
+                row.getItemId(),
+                row.getBookerId(),
+                row.getStart(),
+                row.getEnd(),
+                row.getRecurrence(),
+                row.getUntil(),
+                row.getStatus());
+    }
+
+    public SeriesSlot toSeriesSlot(BookingSeries series) {
+        return new SeriesSlot(series.getId(),
+                series.getItem().getId(),
+                series.getBooker().getId(),
+                series.getStart(),
+                series.getEnd(),
+                series.getRecurrence(),
+                series.getUntil(),
+                series.getStatus());
+    }
+
+    public BookingSeriesDto toBookingSeriesDto(BookingSeries series) {
+        return new BookingSeriesDto(series.getId(),
+                series.getItem().getId(),
+                series.getBooker().getId(),
+                series.getStart(),
+                series.getEnd(),
+                series.getRecurrence(),
+                series.getUntil(),
+                series.getStatus());
+    }
+
+    public BookingDto toBookingDto(BookingChangedEvent event) {
+        return new BookingDto(event.getBookingId(),
+                event.getStart(),
+                event.getEnd(),
+                event.getNewStatus(),
+                event.getBookerId(),
+                event.getItemId(),
+                event.getItemName());
+    }
+
+    public BookingChangedEvent toBookingChangedEvent(Booking book, Status oldStatus) {
+        return new BookingChangedEvent(book.getId(),
+                book.getItem().getId(),
+                book.getItem().getName(),
+                book.getItem().getOwner().getId(),
+                book.getBooker().getId(),
+                book.getStart(),
+                book.getEnd(),
+                oldStatus,
+                book.getStatus());
+    }
+
+    public BookingSeriesChangedEvent toBookingSeriesChangedEvent(BookingSeries series, Status oldStatus) {
+        return new BookingSeriesChangedEvent(series.getId(),
+                series.getItem().getId(),
+                series.getItem().getOwner().getId(),
+                series.getBooker().getId(),
+                series.getStart(),
+                series.getEnd(),
+                series.getRecurrence(),
+                series.getUntil(),
+                oldStatus,
+                series.getStatus());
+    }
+
+    public SeriesSlot toSeriesSlot(BookingSeriesChangedEvent event) {
+        return new SeriesSlot(event.getSeriesId(),
+                event.getItemId(),
+                event.getBookerId(),
+                event.getStart(),
+                event.getEnd(),
+                event.getRecurrence(),
+                event.getUntil(),
+                event.getNewStatus());
+    }
+
+    public BookingSlot toBookingSlot(Booking book) {
+        return new BookingSlot(book.getId(),
+                book.getItem().getId(),
+                book.getStart(),
+                book.getEnd());
+    }
+
+    public ActiveBooking toActiveBooking(Booking book) {
+        return new ActiveBooking(book.getId(),
+                book.getStart(),
+                book.getEnd(),
+                book.getStatus(),
+                book.getItem().getOwner().getId(),
+                book.getItem().getId(),
+                book.getItem().getName(),
+                book.getItem().getDescription(),
+                book.getItem().getAvailable(),
+                book.getItem().getRequestId(),
+                book.getBooker().getId(),
+                book.getBooker().getName(),
+                book.getBooker().getEmail());
+    }
+
+    public ActiveBooking toActiveBooking(BookingSeries series) {
+        return new ActiveBooking(series.getId(),
+                series.getStart(),
+                series.getEnd(),
+                series.getRecurrence(),
+                series.getUntil(),
+                series.getStatus(),
+                series.getItem().getOwner().getId(),
+                series.getItem().getId(),
+                series.getItem().getName(),
+                series.getItem().getDescription(),
+                series.getItem().getAvailable(),
+                series.getItem().getRequestId(),
+                series.getBooker().getId(),
+                series.getBooker().getName(),
+                series.getBooker().getEmail());
+    }
+
+    public SeriesSlot toSeriesSlot(ActiveBooking series) {
+        return new SeriesSlot(series.getSeriesId(),
+                series.getItemId(),
+                series.getBookerId(),
+                series.getStart(),
+                series.getEnd(),
+                series.getRecurrence(),
+                series.getUntil(),
+                series.getStatus());
+    }
+
+    public BookingRowDto toBookingRowDto(ActiveBooking booking, BookingSlot occurrence) {
+        return new BookingRowDto(booking.getId(),
+                occurrence.getStart(),
+                occurrence.getEnd(),
+                booking.getStatus(),
+                booking.getItemId(),
+                booking.getItemName(),
+                booking.getItemDescription(),
+                booking.getItemAvailable(),
+                booking.getItemRequestId(),
+                booking.getBookerId(),
+                booking.getBookerName(),
+                booking.getBookerEmail(),
+                booking.getSeriesId());
+    }
+}
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запрос страницы бронирований. withSeries = false, когда вызывающий знает, что у пользователя нет серий,
+ * и запрос к серийным бронированиям можно не выполнять.
+ */
+@Data
+@AllArgsConstructor
+public class BookingQuery {
+    private final BookingRole role;
+    private final Long userId;
+    private final BookingState state;
+    private final LocalDateTime now;
+    private final int offset;
+    private final int limit;
+    private final BookingCursor after;
+    private final boolean withSeries;
+
+    public BookingQuery(BookingRole role, Long userId, BookingState state, LocalDateTime now, int offset, int limit) {
+        this(role, userId, state, now, offset, limit, null);
+    }
+
+    public BookingQuery(BookingRole role, Long userId, BookingState state, LocalDateTime now, int offset, int limit,
+                        BookingCursor after) {
+        this(role, userId, state, now, offset, limit, after, true);
+    }
+}
@@ -1,51 +1,105 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
-import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingRowDto;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-    Page<Booking> findByBooker(User booker, Pageable pageable);
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
-    Page<Booking> findByBookerAndStatus(User booker, Status status, Pageable pageable);
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingRepositoryCustom {
+    @Query("select new ru.practicum.shareit.booking.dto.BookingDto(b.id, b.start, b.end, b.status, b.booker.id, " +
+            "i.id, i.name) " +
+            "from Booking as b " +
+            "join b.item as i " +
+            "where i.id in :itemIds " +
+            "and b.status = :status " +
+            "and (b.start > :now " +
+            "or b.start = (select max(l.start) from Booking as l " +
+            "where l.item = i and l.status = :status and l.start < :now))")
+    List<BookingDto> findTimelinesByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                            @Param("status") Status status,
+                                            @Param("now") LocalDateTime now);
+
+    @Query("select new ru.practicum.shareit.booking.BookingSlot(b.id, b.item.id, b.start, b.end) " +
+            "from Booking as b " +
+            "where b.status in :statuses " +
+            "and b.end > :now")
+    List<BookingSlot> findSlotsByStatusInAndEndAfter(@Param("statuses") Collection<Status> statuses,
+                                                     @Param("now") LocalDateTime now);
 
-    Page<Booking> findByItemIn(List<Item> item, Pageable pageable);
+    @Query("select b from Booking as b join fetch b.item as i join fetch i.owner join fetch b.booker " +
+            "where b.id in :ids")
+    List<Booking> findAllWithItemByIdIn(@Param("ids") Collection<Long> ids);
 
-    Page<Booking> findByItemInAndStatus(List<Item> item, Status status, Pageable pageable);
+    @Modifying(clearAutomatically = true)
+    @Query("update Booking as b set b.status = :status where b.id in :ids and b.status = :expected")
+    int updateStatusByIdInAndStatus(@Param("ids") Collection<Long> ids,
+                                    @Param("expected") Status expected,
+                                    @Param("status") Status status);
 
-    Booking findFirstByItemAndStatusAndStartAfterOrderByStart(Item item, Status status, LocalDateTime now);
+    /**
+     * Блокирует до конца транзакции строки, которые всё ещё в статусе status, и возвращает их ID.
+     * Строки, статус которых успели изменить, не возвращаются.
+     */
+    @Query(value = "select id from bookings where id in :ids and status = :status order by id for update",
+            nativeQuery = true)
+    List<Long> lockIdsByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") String status);
 
-    Booking findFirstByItemAndStatusAndStartBeforeOrderByStartDesc(Item item, Status status, LocalDateTime now);
+    @Query("select b from Booking as b join fetch b.item as i join fetch i.owner join fetch b.booker " +
+            "where b.status = :status and b.start < :now order by b.start, b.id")
+    List<Booking> findByStatusAndStartBefore(@Param("status") Status status, @Param("now") LocalDateTime now,
+                                             Pageable pageable);
 
-    Page<Booking> findAllByItemInAndStartBeforeAndEndAfterOrderByStartDesc(
-            List<Item> items, LocalDateTime start, LocalDateTime end, Pageable pageable);
+    @Query(value = "select id from bookings where end_date < :cutoff order by end_date limit :limit",
+            nativeQuery = true)
+    List<Long> findIdsByEndBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
 
-    Page<Booking> findAllByItemInAndStatusAndEndBeforeOrderByStartDesc(
-            List<Item> items, Status approved, LocalDateTime now, Pageable pageable);
+    @Modifying
+    @Query(value = "insert into bookings_archive (id, start_date, end_date, item_id, booker_id, status) " +
+            "select id, start_date, end_date, item_id, booker_id, status from bookings where id in :ids",
+            nativeQuery = true)
+    int copyToArchive(@Param("ids") Collection<Long> ids);
 
-    Booking findFirstByItemIdAndBookerIdAndEndIsBeforeAndStatus(Long itemId, Long userId,
-                                                                LocalDateTime end, Status status);
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Booking as b where b.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 
-    @Query("select b " +
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = BookingExporter.FETCH_SIZE))
+    @Query("select new ru.practicum.shareit.booking.dto.BookingRowDto(b.id, b.start, b.end, b.status, " +
+            "i.id, i.name, i.description, i.available, i.requestId, u.id, u.name, u.email) " +
             "from Booking as b " +
+            "join b.item as i " +
             "join b.booker as u " +
-            "where u.id = :userId " +
-            "and b.start < current_timestamp and b.end > current_timestamp  " +
-            "order by b.start desc")
-    Page<Booking> getCurrentByUserId(@Param("userId") Long id, Pageable pageable);
+            "where i.owner.id = :ownerId " +
+            "and b.start >= :from " +
+            "and b.start < :to " +
+            "order by b.start, b.id")
+    Stream<BookingRowDto> streamByOwnerId(@Param("ownerId") Long ownerId,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to);
+
+    @Query("select new ru.practicum.shareit.booking.ItemBooker(b.item.id, b.booker.id, min(b.end)) " +
+            "from Booking as b " +
+            "where b.status = :status " +
+            "group by b.item.id, b.booker.id")
+    List<ItemBooker> findFirstEndsByStatus(@Param("status") Status status);
 
-    @Query("select b " +
+    @Query("select new ru.practicum.shareit.booking.ActiveBooking(b.id, b.start, b.end, b.status, i.owner.id, " +
+            "i.id, i.name, i.description, i.available, i.requestId, u.id, u.name, u.email) " +
             "from Booking as b " +
+            "join b.item as i " +
             "join b.booker as u " +
-            "where u.id = :userId " +
-            "and b.end < current_timestamp " +
-            "order by b.start desc")
-    Page<Booking> getBookingByUserIdAndFinishAfterNow(@Param("userId") Long userId, Pageable pageable);
+            "where b.end > :now")
+    List<ActiveBooking> findActiveByEndAfter(@Param("now") LocalDateTime now);
 }
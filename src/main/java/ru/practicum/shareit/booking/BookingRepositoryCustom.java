@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.dto.BookingRowDto;
+
+import java.util.List;
+
+public interface BookingRepositoryCustom {
+    List<BookingRowDto> findByQuery(BookingQuery query);
+
+    void insertAll(List<Booking> bookings);
+}
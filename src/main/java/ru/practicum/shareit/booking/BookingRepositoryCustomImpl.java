@@ -0,0 +1,338 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.LocalDateTimeType;
+import org.hibernate.type.StandardBasicTypes;
+import ru.practicum.shareit.booking.dto.BookingRowDto;
+import ru.practicum.shareit.booking.dto.BookingSeriesRowDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Списки бронирований. Владельцу в PAST попадают только подтверждённые бронирования, бронирующему — все.
+ * В архив попадают закончившиеся бронирования в любом статусе, поэтому все состояния, кроме CURRENT и FUTURE,
+ * охватывают и архив: обе таблицы читаются одним запросом UNION ALL, каждая ветка отдаёт не больше offset + limit
+ * строк по своему индексу, а сортировка и страница вырезаются в базе.
+ * Вхождения серий подмешиваются, только если серии есть у пользователя: тогда из базы берутся первые
+ * offset + limit строк, серии читаются пачками по offset + limit, каждая разворачивается только в пределах окна
+ * состояния и не больше чем на offset + limit последних вхождений, и страница вырезается после слияния.
+ * Вставка нескольких бронирований идёт одним JDBC-пакетом: с IDENTITY-ключами Hibernate
+ * выполняет каждый insert отдельно.
+ */
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+    static final Comparator<BookingRowDto> NEWEST_FIRST = Comparator
+            .comparing(BookingRowDto::getStart, Comparator.reverseOrder())
+            .thenComparing(BookingCursor::keyOf, Comparator.reverseOrder());
+    private static final Map<String, BasicType> ROW_COLUMNS = rowColumns();
+    private static final String INSERT = "insert into bookings (start_date, end_date, item_id, booker_id, status) " +
+            "values (?, ?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BookingRowDto> findByQuery(BookingQuery query) {
+        int window = query.getOffset() + query.getLimit();
+        List<BookingRowDto> occurrences = query.isWithSeries() ? expandSeries(query, window) : List.of();
+        if (occurrences.isEmpty()) {
+            return select(query, query.getOffset(), query.getLimit());
+        }
+        List<BookingRowDto> merged = new ArrayList<>(select(query, 0, window));
+        merged.addAll(occurrences);
+        merged.sort(NEWEST_FIRST);
+        return page(merged, query);
+    }
+
+    @Override
+    public void insertAll(List<Booking> bookings) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (Booking booking : bookings) {
+                    statement.setTimestamp(1, Timestamp.valueOf(booking.getStart()));
+                    statement.setTimestamp(2, Timestamp.valueOf(booking.getEnd()));
+                    statement.setLong(3, booking.getItem().getId());
+                    statement.setLong(4, booking.getBooker().getId());
+                    statement.setString(5, booking.getStatus().name());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                // H2 и драйвер PostgreSQL возвращают ключи пакета в порядке выполнения insert'ов,
+                // поэтому i-й ключ принадлежит i-му бронированию. Другое число ключей — ошибка, а не повод угадывать.
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    int assigned = 0;
+                    for (Booking booking : bookings) {
+                        if (!keys.next()) {
+                            break;
+                        }
+                        booking.setId(keys.getLong("id"));
+                        assigned++;
+                    }
+                    if (assigned != bookings.size() || keys.next()) {
+                        throw new IllegalStateException(String.format(
+                                "Драйвер вернул не столько ключей, сколько бронирований вставлено: %d из %d",
+                                assigned, bookings.size()));
+                    }
+                }
+            }
+        });
+    }
+
+    private List<BookingRowDto> page(List<BookingRowDto> rows, BookingQuery query) {
+        if (rows.size() <= query.getOffset()) {
+            return new ArrayList<>();
+        }
+        return rows.subList(query.getOffset(), Math.min(rows.size(), query.getOffset() + query.getLimit()));
+    }
+
+    /**
+     * Строки живой таблицы, а для состояний, которые охватывают архив, — и архива, одним запросом.
+     * Условия одинаковы для обеих таблиц, ветки объединяются UNION ALL, порядок и страница задаются снаружи.
+     */
+    private List<BookingRowDto> select(BookingQuery query, int offset, int limit) {
+        List<Object> parameters = new ArrayList<>();
+        String where = where(query, parameters);
+        boolean spansArchive = query.getState() != BookingState.CURRENT && query.getState() != BookingState.FUTURE;
+        String sql;
+        List<Object> bound = new ArrayList<>(parameters);
+        if (spansArchive) {
+            bound.add(offset + limit);
+            bound.addAll(parameters);
+            bound.add(offset + limit);
+            sql = "(" + branch("bookings", where) + " limit ?) union all (" + branch("bookings_archive", where) +
+                    " limit ?) order by start_date desc, id desc";
+        } else {
+            sql = branch("bookings", where);
+        }
+        NativeQuery<?> nativeQuery = entityManager.createNativeQuery(sql).unwrap(NativeQuery.class);
+        for (int i = 0; i < bound.size(); i++) {
+            nativeQuery.setParameter(i + 1, bound.get(i));
+        }
+        for (Map.Entry<String, BasicType> column : ROW_COLUMNS.entrySet()) {
+            nativeQuery.addScalar(column.getKey(), column.getValue());
+        }
+        List<?> rows = nativeQuery
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+        List<BookingRowDto> bookings = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            bookings.add(new BookingRowDto((Long) columns[0], (LocalDateTime) columns[1], (LocalDateTime) columns[2],
+                    Status.valueOf((String) columns[3]), (Long) columns[4], (String) columns[5],
+                    (String) columns[6], (Boolean) columns[7], (Long) columns[8], (Long) columns[9],
+                    (String) columns[10], (String) columns[11]));
+        }
+        return bookings;
+    }
+
+    private String branch(String table, String where) {
+        return "select b.id as id, b.start_date as start_date, b.end_date as end_date, b.status as status, " +
+                "i.id as item_id, i.name as item_name, i.description as item_description, " +
+                "i.available as item_available, i.request_id as item_request_id, " +
+                "u.id as booker_id, u.name as booker_name, u.email as booker_email " +
+                "from " + table + " b join items i on i.id = b.item_id join users u on u.id = b.booker_id " +
+                "where " + where + " order by b.start_date desc, b.id desc";
+    }
+
+    private String where(BookingQuery query, List<Object> parameters) {
+        List<String> predicates = new ArrayList<>();
+        predicates.add(query.getRole() == BookingRole.OWNER ? "i.owner_id = ?" : "b.booker_id = ?");
+        parameters.add(query.getUserId());
+        LocalDateTime now = query.getNow();
+        switch (query.getState()) {
+            case CURRENT:
+                predicates.add("b.start_date < ? and b.end_date > ?");
+                parameters.add(now);
+                parameters.add(now);
+                break;
+            case PAST:
+                predicates.add("b.end_date < ?");
+                parameters.add(now);
+                if (query.getRole() == BookingRole.OWNER) {
+                    predicates.add("b.status = ?");
+                    parameters.add(Status.APPROVED.name());
+                }
+                break;
+            case FUTURE:
+                predicates.add("b.start_date > ?");
+                parameters.add(now);
+                break;
+            case WAITING:
+            case REJECTED:
+                predicates.add("b.status = ?");
+                parameters.add(query.getState().name());
+                break;
+            default:
+                break;
+        }
+        BookingCursor after = query.getAfter();
+        if (after != null) {
+            predicates.add("(b.start_date < ? or b.start_date = ? and b.id < ?)");
+            parameters.add(after.getStart());
+            parameters.add(after.getStart());
+            parameters.add(after.getId());
+        }
+        return String.join(" and ", predicates);
+    }
+
+    /**
+     * Вхождения серий, которые могут попасть в первые window строк. Серии читаются пачками по window
+     * в порядке убывания конца: ни одно вхождение непрочитанной серии не начинается позже её конца,
+     * поэтому чтение останавливается, как только window найденных вхождений начинаются позже этой границы.
+     */
+    private List<BookingRowDto> expandSeries(BookingQuery query, int window) {
+        LocalDateTime cap = query.getAfter() == null ? null : query.getAfter().getStart();
+        if (query.getState() == BookingState.CURRENT || query.getState() == BookingState.PAST) {
+            cap = cap == null || query.getNow().isBefore(cap) ? query.getNow() : cap;
+        }
+        List<BookingRowDto> occurrences = new ArrayList<>();
+        for (int first = 0; ; first += window) {
+            List<BookingSeriesRowDto> rows = selectSeries(query, first, window);
+            rows.forEach(row -> occurrences.addAll(expand(row, query, window)));
+            occurrences.sort(NEWEST_FIRST);
+            if (occurrences.size() > window) {
+                occurrences.subList(window, occurrences.size()).clear();
+            }
+            if (rows.size() < window) {
+                return occurrences;
+            }
+            LocalDateTime bound = rows.get(rows.size() - 1).getUntil();
+            if (cap != null && cap.isBefore(bound)) {
+                bound = cap;
+            }
+            if (occurrences.size() == window && occurrences.get(window - 1).getStart().isAfter(bound)) {
+                return occurrences;
+            }
+        }
+    }
+
+    private List<BookingRowDto> expand(BookingSeriesRowDto row, BookingQuery query, int window) {
+        SeriesSlot series = BookingMapper.toSeriesSlot(row);
+        LocalDateTime now = query.getNow();
+        long first = 0;
+        long last = series.lastIndex();
+        switch (query.getState()) {
+            case CURRENT:
+                first = series.firstEndAfter(now);
+                last = series.lastStartBefore(now, false);
+                break;
+            case PAST:
+                last = series.lastEndBefore(now);
+                break;
+            case FUTURE:
+                first = series.firstStartAfter(now);
+                break;
+            default:
+                break;
+        }
+        if (query.getAfter() != null) {
+            BookingCursor after = query.getAfter();
+            last = Math.min(last, series.lastStartBefore(after.getStart(), after.getId() > -series.getId()));
+        }
+        List<BookingRowDto> occurrences = new ArrayList<>();
+        for (long n = last; n >= first && n > last - window; n--) {
+            occurrences.add(BookingMapper.toBookingRowDto(row, new BookingSlot(series.getId(),
+                    series.getItemId(), series.occurrenceStart(n), series.occurrenceEnd(n))));
+        }
+        return occurrences;
+    }
+
+    private List<BookingSeriesRowDto> selectSeries(BookingQuery query, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingSeriesRowDto> cq = cb.createQuery(BookingSeriesRowDto.class);
+        Root<BookingSeries> series = cq.from(BookingSeries.class);
+        Join<BookingSeries, Item> item = series.join("item");
+        Join<BookingSeries, User> booker = series.join("booker");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (query.getRole() == BookingRole.OWNER) {
+            predicates.add(cb.equal(item.get("owner").get("id"), query.getUserId()));
+        } else {
+            predicates.add(cb.equal(booker.get("id"), query.getUserId()));
+        }
+        switch (query.getState()) {
+            case CURRENT:
+                predicates.add(cb.lessThan(series.get("start"), query.getNow()));
+                break;
+            case PAST:
+                predicates.add(cb.lessThan(series.get("start"), query.getNow()));
+                if (query.getRole() == BookingRole.OWNER) {
+                    predicates.add(cb.equal(series.get("status"), Status.APPROVED));
+                }
+                break;
+            case FUTURE:
+                predicates.add(cb.greaterThan(series.get("until"), query.getNow()));
+                break;
+            case WAITING:
+                predicates.add(cb.equal(series.get("status"), Status.WAITING));
+                break;
+            case REJECTED:
+                predicates.add(cb.equal(series.get("status"), Status.REJECTED));
+                break;
+            default:
+                break;
+        }
+        if (query.getAfter() != null) {
+            predicates.add(cb.lessThanOrEqualTo(series.get("start"), query.getAfter().getStart()));
+        }
+
+        cq.select(cb.construct(BookingSeriesRowDto.class,
+                        series.get("id"),
+                        series.get("start"),
+                        series.get("end"),
+                        series.get("recurrence"),
+                        series.get("until"),
+                        series.get("status"),
+                        item.get("id"),
+                        item.get("name"),
+                        item.get("description"),
+                        item.get("available"),
+                        item.get("requestId"),
+                        booker.get("id"),
+                        booker.get("name"),
+                        booker.get("email")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(series.get("until")), cb.desc(series.get("id")));
+        return entityManager.createQuery(cq)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private static Map<String, BasicType> rowColumns() {
+        Map<String, BasicType> columns = new LinkedHashMap<>();
+        columns.put("id", StandardBasicTypes.LONG);
+        columns.put("start_date", LocalDateTimeType.INSTANCE);
+        columns.put("end_date", LocalDateTimeType.INSTANCE);
+        columns.put("status", StandardBasicTypes.STRING);
+        columns.put("item_id", StandardBasicTypes.LONG);
+        columns.put("item_name", StandardBasicTypes.STRING);
+        columns.put("item_description", StandardBasicTypes.STRING);
+        columns.put("item_available", StandardBasicTypes.BOOLEAN);
+        columns.put("item_request_id", StandardBasicTypes.LONG);
+        columns.put("booker_id", StandardBasicTypes.LONG);
+        columns.put("booker_name", StandardBasicTypes.STRING);
+        columns.put("booker_email", StandardBasicTypes.STRING);
+        return columns;
+    }
+}
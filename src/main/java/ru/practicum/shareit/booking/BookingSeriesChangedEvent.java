@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Создание или смена статуса серии бронирований. Событие несёт расписание серии,
+ * чтобы слушатели могли развернуть вхождения сами.
+ */
+@Data
+@AllArgsConstructor
+public class BookingSeriesChangedEvent {
+    private final Long seriesId;
+    private final Long itemId;
+    private final Long ownerId;
+    private final Long bookerId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final Recurrence recurrence;
+    private final LocalDateTime until;
+    private final Status oldStatus;
+    private final Status newStatus;
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.BookingSeriesRowDto;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public interface BookingSeriesRepository extends JpaRepository<BookingSeries, Long> {
+    @Query("select new ru.practicum.shareit.booking.SeriesSlot(s.id, s.item.id, s.booker.id, s.start, s.end, " +
+            "s.recurrence, s.until, s.status) " +
+            "from BookingSeries as s " +
+            "where s.status in :statuses")
+    List<SeriesSlot> findSlotsByStatusIn(@Param("statuses") Collection<Status> statuses);
+
+    @Query("select new ru.practicum.shareit.booking.ActiveBooking(s.id, s.start, s.end, s.recurrence, s.until, " +
+            "s.status, i.owner.id, i.id, i.name, i.description, i.available, i.requestId, u.id, u.name, u.email) " +
+            "from BookingSeries as s " +
+            "join s.item as i " +
+            "join s.booker as u " +
+            "where s.until > :since")
+    List<ActiveBooking> findActiveByUntilAfter(@Param("since") LocalDateTime since);
+
+    @Query("select new ru.practicum.shareit.booking.ItemBooker(s.item.id, s.booker.id, min(s.end)) " +
+            "from BookingSeries as s " +
+            "where s.status = :status " +
+            "group by s.item.id, s.booker.id")
+    List<ItemBooker> findFirstEndsByStatus(@Param("status") Status status);
+
+    @Query("select distinct s.booker.id from BookingSeries as s")
+    List<Long> findBookerIds();
+
+    @Query("select distinct i.owner.id from BookingSeries as s join s.item as i")
+    List<Long> findOwnerIds();
+
+    /**
+     * Серии владельца, у которых могут быть вхождения с началом в [from, to), по возрастанию начала серии.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = BookingExporter.FETCH_SIZE))
+    @Query("select new ru.practicum.shareit.booking.dto.BookingSeriesRowDto(s.id, s.start, s.end, s.recurrence, " +
+            "s.until, s.status, i.id, i.name, i.description, i.available, i.requestId, u.id, u.name, u.email) " +
+            "from BookingSeries as s " +
+            "join s.item as i " +
+            "join s.booker as u " +
+            "where i.owner.id = :ownerId " +
+            "and s.start < :to " +
+            "and s.until >= :from " +
+            "order by s.start, s.id")
+    Stream<BookingSeriesRowDto> streamByOwnerId(@Param("ownerId") Long ownerId,
+                                                @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from BookingSeries as s where s.id = :id")
+    Optional<BookingSeries> findWithLockById(@Param("id") Long id);
+}
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Пользователи, у которых есть серии бронирований как у бронирующего или как у владельца вещи.
+ * Остальным списки бронирований выдаются без запроса к таблице серий.
+ * Серии не удаляются, поэтому пользователь добавляется сразу при создании серии и больше не убирается:
+ * лишний пользователь после отката стоит одного запроса, а пропущенного не бывает.
+ */
+@Slf4j
+@Component
+public class BookingSeriesUsers {
+    private final BookingSeriesRepository seriesRepository;
+    private final Set<Long> bookers = ConcurrentHashMap.newKeySet();
+    private final Set<Long> owners = ConcurrentHashMap.newKeySet();
+
+    public BookingSeriesUsers(BookingSeriesRepository seriesRepository) {
+        this.seriesRepository = seriesRepository;
+    }
+
+    @PostConstruct
+    public void load() {
+        bookers.addAll(seriesRepository.findBookerIds());
+        owners.addAll(seriesRepository.findOwnerIds());
+        log.info("Серии бронирований есть у {} бронирующих и {} владельцев", bookers.size(), owners.size());
+    }
+
+    public void add(Long bookerId, Long ownerId) {
+        bookers.add(bookerId);
+        owners.add(ownerId);
+    }
+
+    public boolean has(BookingRole role, Long userId) {
+        return (role == BookingRole.OWNER ? owners : bookers).contains(userId);
+    }
+}
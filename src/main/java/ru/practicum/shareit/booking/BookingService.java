@@ -1,20 +1,39 @@
 package ru.practicum.shareit.booking;
 
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingFullDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingSeriesDto;
 
 import java.util.List;
 
 public interface BookingService {
     BookingFullDto postRequest(Long userId, BookingDto booking);
 
+    List<BookingFullDto> postRequests(Long userId, List<BookingDto> cart);
+
+    BookingSeriesDto postSeries(Long userId, BookingSeriesDto series);
+
+    BookingSeriesDto postApproveSeries(Long seriesId, Long userId, boolean approve);
+
     BookingFullDto postApproveBooking(Long bookingId, Long userId, boolean approve);
 
+    List<BookingApprovalResultDto> approveBookings(Long userId, BookingApprovalDto approval);
+
     BookingFullDto getBookingRequest(Long bookingId, Long userId);
 
     List<BookingFullDto> getAllBookingRequestForUser(Long userId, String state, Integer from, Integer size);
 
     List<BookingFullDto> getAllBookingRequestForOwner(Long userId, String state, Integer from, Integer size);
 
-    Booking getBookingWithUserBookedItem(Long itemId, Long userId);
+    BookingPageDto getBookingPageForUser(Long userId, String state, String cursor, Integer size);
+
+    BookingPageDto getBookingPageForOwner(Long userId, String state, String cursor, Integer size);
+
+    BookingCountsDto getBookingCountsForUser(Long userId);
+
+    BookingCountsDto getBookingCountsForOwner(Long userId);
 }
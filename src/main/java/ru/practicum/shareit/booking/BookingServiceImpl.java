@@ -2,11 +2,16 @@ package ru.practicum.shareit.booking;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingFullDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingRowDto;
+import ru.practicum.shareit.booking.dto.BookingSeriesDto;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.ItemService;
@@ -16,20 +21,42 @@ import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.UserService;
 
 import javax.transaction.Transactional;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 
 @Slf4j
 @AllArgsConstructor
 @Service
 public class BookingServiceImpl implements BookingService {
+    private static final int MAX_SERIES_YEARS = 10;
+
     private final BookingRepository repository;
+    private final ArchivedBookingRepository archivedRepository;
+    private final BookingSeriesRepository seriesRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
     private final ItemService itemService;
     private final UserService userService;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final CurrentBookingIndex currentBookings;
+    private final BookingItemLocks itemLocks;
+    private final BookingCounters counters;
+    private final BookingSeriesUsers seriesUsers;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     @Override
@@ -42,53 +69,247 @@ public class BookingServiceImpl implements BookingService {
         if (item.getOwner().equals(booker)) {
             throw new BookingByOwnerNotAvailableException("Владелец не может забронировать свою вещь!");
         }
-        if (booking.getEnd() == null || booking.getStart() == null
-                || booking.getEnd().equals(booking.getStart())
-                || booking.getEnd().isBefore(booking.getStart())
-                || booking.getStart().isAfter(booking.getEnd())
-                || booking.getStart().isBefore(LocalDateTime.now())) {
-            throw new ValidationException("Неправильно указано время!");
+        checkTime(booking);
+        Booking saved = itemLocks.withLock(item.getId(), () -> {
+            if (availabilityIndex.hasOverlap(item.getId(), booking.getStart(), booking.getEnd())) {
+                throw new BookingNotAvailableException("Вещь уже забронирована на это время!");
+            }
+            Booking book = new Booking();
+            if (book.getId() == null) {
+                book.setId(booking.getId());
+            }
+            book.setStart(booking.getStart());
+            book.setEnd(booking.getEnd());
+            book.setItem(itemRepository.getById(booking.getItemId()));
+            book.setBooker(userRepository.getById(userId));
+            book.setStatus(Status.WAITING);
+            Booking created = repository.save(book);
+            availabilityIndex.reserve(BookingMapper.toBookingSlot(created));
+            return created;
+        });
+        currentBookings.track(BookingMapper.toActiveBooking(saved));
+        eventPublisher.publishEvent(BookingMapper.toBookingChangedEvent(saved, null));
+        log.info("Бронирование успешно создано.");
+        return BookingMapper.toBookingFullDto(saved);
+    }
+
+    @Transactional
+    @Override
+    public List<BookingFullDto> postRequests(Long userId, List<BookingDto> cart) {
+        if (cart == null || cart.isEmpty()) {
+            throw new ValidationException("Корзина бронирований пуста!");
         }
-        Booking book = new Booking();
-        if (book.getId() == null) {
-            book.setId(booking.getId());
+        User booker = userService.findById(userId);
+        Map<Long, List<BookingDto>> byItem = new HashMap<>();
+        for (BookingDto booking : cart) {
+            if (booking.getItemId() == null) {
+                throw new ValidationException("Не указана вещь для бронирования!");
+            }
+            checkTime(booking);
+            byItem.computeIfAbsent(booking.getItemId(), id -> new ArrayList<>()).add(booking);
         }
-        book.setStart(booking.getStart());
-        book.setEnd(booking.getEnd());
-        book.setItem(itemRepository.getById(booking.getItemId()));
-        book.setBooker(userRepository.getById(userId));
-        book.setStatus(Status.WAITING);
-        log.info("Бронирование успешно создано.");
-        return BookingMapper.toBookingFullDto(repository.save(book));
+        Map<Long, Item> items = itemRepository.findAllWithOwnerByIdIn(byItem.keySet()).stream()
+                .collect(toMap(Item::getId, Function.identity()));
+        for (Map.Entry<Long, List<BookingDto>> entry : byItem.entrySet()) {
+            Item item = items.get(entry.getKey());
+            if (item == null) {
+                throw new ItemNotFoundException(String.format("Предмет с ID=%d не найден", entry.getKey()));
+            }
+            if (!item.getAvailable()) {
+                throw new BookingNotAvailableException(String.format("Вещь с ID=%d занята!", item.getId()));
+            }
+            if (item.getOwner().getId().equals(userId)) {
+                throw new BookingByOwnerNotAvailableException("Владелец не может забронировать свою вещь!");
+            }
+            List<BookingDto> sorted = entry.getValue();
+            sorted.sort(Comparator.comparing(BookingDto::getStart));
+            for (int i = 1; i < sorted.size(); i++) {
+                if (sorted.get(i - 1).getEnd().isAfter(sorted.get(i).getStart())) {
+                    throw new BookingNotAvailableException(
+                            String.format("Бронирования вещи с ID=%d в корзине пересекаются!", item.getId()));
+                }
+            }
+        }
+        List<Booking> saved = itemLocks.withLocks(byItem.keySet(), () -> {
+            List<Booking> bookings = new ArrayList<>(cart.size());
+            for (BookingDto booking : cart) {
+                if (availabilityIndex.hasOverlap(booking.getItemId(), booking.getStart(), booking.getEnd())) {
+                    throw new BookingNotAvailableException(String.format(
+                            "Вещь с ID=%d уже забронирована на это время!", booking.getItemId()));
+                }
+                bookings.add(new Booking(null, booking.getStart(), booking.getEnd(),
+                        items.get(booking.getItemId()), booker, Status.WAITING));
+            }
+            repository.insertAll(bookings);
+            bookings.forEach(book -> availabilityIndex.reserve(BookingMapper.toBookingSlot(book)));
+            return bookings;
+        });
+        List<BookingChangedEvent> changes = new ArrayList<>(saved.size());
+        for (Booking book : saved) {
+            currentBookings.track(BookingMapper.toActiveBooking(book));
+            changes.add(BookingMapper.toBookingChangedEvent(book, null));
+        }
+        eventPublisher.publishEvent(new BookingsChangedEvent(changes));
+        log.info("Создано {} бронирований из корзины пользователя с ID={}.", saved.size(), userId);
+        return saved.stream()
+                .map(BookingMapper::toBookingFullDto)
+                .collect(toList());
     }
 
     @Transactional
     @Override
-    public BookingFullDto postApproveBooking(Long bookingId, Long userId, boolean approve) {
-        if (!repository.getById(bookingId).getItem().getOwner().getId().equals(userId)) {
+    public BookingSeriesDto postSeries(Long userId, BookingSeriesDto seriesDto) {
+        Item item = itemService.findById(seriesDto.getItemId());
+        User booker = userService.findById(userId);
+        if (!item.getAvailable()) {
+            throw new BookingNotAvailableException("Вещь занята!");
+        }
+        if (item.getOwner().equals(booker)) {
+            throw new BookingByOwnerNotAvailableException("Владелец не может забронировать свою вещь!");
+        }
+        checkTime(new BookingDto(null, seriesDto.getStart(), seriesDto.getEnd(), null, null, null, null));
+        if (seriesDto.getRecurrence() == null || seriesDto.getUntil() == null
+                || seriesDto.getUntil().isBefore(seriesDto.getStart())
+                || seriesDto.getUntil().isAfter(seriesDto.getStart().plusYears(MAX_SERIES_YEARS))) {
+            throw new ValidationException("Неправильно указаны повторения!");
+        }
+        if (Duration.between(seriesDto.getStart(), seriesDto.getEnd())
+                .compareTo(seriesDto.getRecurrence().getStep()) > 0) {
+            throw new ValidationException("Бронирование не может быть длиннее периода повторения!");
+        }
+        BookingSeries saved = itemLocks.withLock(item.getId(), () -> {
+            BookingSeries series = new BookingSeries(null, seriesDto.getStart(), seriesDto.getEnd(),
+                    seriesDto.getRecurrence(), seriesDto.getUntil(), item, booker, Status.WAITING);
+            if (availabilityIndex.hasOverlap(BookingMapper.toSeriesSlot(series))) {
+                throw new BookingNotAvailableException("Вещь уже забронирована на время одного из повторений!");
+            }
+            BookingSeries created = seriesRepository.save(series);
+            seriesUsers.add(userId, item.getOwner().getId());
+            availabilityIndex.reserveSeries(BookingMapper.toSeriesSlot(created));
+            return created;
+        });
+        currentBookings.track(BookingMapper.toActiveBooking(saved));
+        eventPublisher.publishEvent(BookingMapper.toBookingSeriesChangedEvent(saved, null));
+        log.info("Серия бронирований успешно создана.");
+        return BookingMapper.toBookingSeriesDto(saved);
+    }
+
+    @Transactional
+    @Override
+    public BookingSeriesDto postApproveSeries(Long seriesId, Long userId, boolean approve) {
+        BookingSeries series = seriesRepository.findWithLockById(seriesId)
+                .orElseThrow(() -> new BookingNotFoundException(
+                        String.format("Серия бронирований с ID=%d не найдена", seriesId)));
+        if (!series.getItem().getOwner().getId().equals(userId)) {
             throw new UpdateNotAvailableException("Менять статус бронирования может только владелец");
         }
-        if (repository.getById(bookingId).getStatus().equals(Status.APPROVED)) {
+        if (Status.APPROVED.equals(series.getStatus())) {
             throw new StatusChangingNotAvailableException("Статус уже подтвержден!");
         }
-        Booking book = repository.getById(bookingId);
+        Status oldStatus = series.getStatus();
+        series.setStatus(approve ? Status.APPROVED : Status.REJECTED);
+        SeriesSlot slot = BookingMapper.toSeriesSlot(series);
         if (approve) {
-            book.setStatus(Status.APPROVED);
-        } else {
-            book.setStatus(Status.REJECTED);
+            itemLocks.withLock(series.getItem().getId(), () -> {
+                if (Status.REJECTED.equals(oldStatus) && availabilityIndex.hasOverlap(slot)) {
+                    throw new BookingNotAvailableException("Вещь уже забронирована на время одного из повторений!");
+                }
+                availabilityIndex.reserveSeries(slot);
+                return slot;
+            });
+        } else if (!Status.REJECTED.equals(oldStatus)) {
+            availabilityIndex.releaseSeries(slot);
         }
+        currentBookings.updateSeriesStatus(series.getId(), series.getStatus());
+        eventPublisher.publishEvent(BookingMapper.toBookingSeriesChangedEvent(series, oldStatus));
+        log.info("Статус серии бронирований успешно изменен.");
+        return BookingMapper.toBookingSeriesDto(series);
+    }
+
+    @Transactional
+    @Override
+    public BookingFullDto postApproveBooking(Long bookingId, Long userId, boolean approve) {
+        Booking book = repository.getById(bookingId);
+        Status oldStatus = book.getStatus();
+        checkStatusChange(book, userId, approve);
+        if (repository.lockIdsByIdInAndStatus(List.of(bookingId), oldStatus.name()).isEmpty()) {
+            throw new StatusChangingNotAvailableException("Статус бронирования уже изменился!");
+        }
+        applyStatusChange(book, approve);
+        book.setStatus(approve ? Status.APPROVED : Status.REJECTED);
+        eventPublisher.publishEvent(BookingMapper.toBookingChangedEvent(book, oldStatus));
         log.info("Статус бронирования успешно изменен.");
         return BookingMapper.toBookingFullDto(book);
     }
 
+    @Transactional
+    @Override
+    public List<BookingApprovalResultDto> approveBookings(Long userId, BookingApprovalDto approval) {
+        if (approval.getBookingIds() == null || approval.getBookingIds().isEmpty() || approval.getApproved() == null) {
+            throw new ValidationException("Неправильно указаны бронирования или решение!");
+        }
+        Set<Long> bookingIds = new LinkedHashSet<>(approval.getBookingIds());
+        Status newStatus = approval.getApproved() ? Status.APPROVED : Status.REJECTED;
+        Map<Long, Booking> bookings = repository.findAllWithItemByIdIn(bookingIds).stream()
+                .collect(toMap(Booking::getId, Function.identity()));
+        Map<Long, BookingApprovalResultDto> results = new LinkedHashMap<>();
+        Map<Status, List<Booking>> candidates = new EnumMap<>(Status.class);
+        for (Long bookingId : bookingIds) {
+            Booking book = bookings.get(bookingId);
+            if (book == null) {
+                results.put(bookingId, new BookingApprovalResultDto(bookingId, false, null,
+                        String.format("Бронирование с ID=%d не найдено", bookingId)));
+                continue;
+            }
+            try {
+                checkStatusChange(book, userId, approval.getApproved());
+                candidates.computeIfAbsent(book.getStatus(), status -> new ArrayList<>()).add(book);
+                results.put(bookingId, new BookingApprovalResultDto(bookingId, true, newStatus, null));
+            } catch (UpdateNotAvailableException | StatusChangingNotAvailableException e) {
+                results.put(bookingId, new BookingApprovalResultDto(bookingId, false, book.getStatus(),
+                        e.getMessage()));
+            }
+        }
+        Map<Status, List<Booking>> accepted = new EnumMap<>(Status.class);
+        for (Map.Entry<Status, List<Booking>> group : candidates.entrySet()) {
+            Set<Long> locked = new HashSet<>(repository.lockIdsByIdInAndStatus(group.getValue().stream()
+                    .map(Booking::getId)
+                    .collect(toList()), group.getKey().name()));
+            for (Booking book : group.getValue()) {
+                if (!locked.contains(book.getId())) {
+                    results.put(book.getId(), new BookingApprovalResultDto(book.getId(), false, null,
+                            "Статус бронирования уже изменился!"));
+                    continue;
+                }
+                try {
+                    applyStatusChange(book, approval.getApproved());
+                    accepted.computeIfAbsent(group.getKey(), status -> new ArrayList<>()).add(book);
+                } catch (BookingNotAvailableException e) {
+                    results.put(book.getId(), new BookingApprovalResultDto(book.getId(), false, book.getStatus(),
+                            e.getMessage()));
+                }
+            }
+        }
+        int updated = 0;
+        for (Map.Entry<Status, List<Booking>> group : accepted.entrySet()) {
+            List<Long> ids = group.getValue().stream().map(Booking::getId).collect(toList());
+            if (repository.updateStatusByIdInAndStatus(ids, group.getKey(), newStatus) != ids.size()) {
+                throw new IllegalStateException("Статус заблокированных бронирований изменился во время обновления");
+            }
+            for (Booking book : group.getValue()) {
+                book.setStatus(newStatus);
+                eventPublisher.publishEvent(BookingMapper.toBookingChangedEvent(book, group.getKey()));
+            }
+            updated += ids.size();
+        }
+        log.info("Статус изменен у {} из {} бронирований.", updated, bookingIds.size());
+        return new ArrayList<>(results.values());
+    }
+
     @Transactional
     @Override
     public BookingFullDto getBookingRequest(Long bookingId, Long userId) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> {
-                    log.error("Пользователь с ID: {} не найден", userId);
-                    return new UserNotFoundException("Такого пользователя нет");
-                });
+        checkUserExists(userId);
         Booking booking = findById(bookingId);
         if (!booking.getBooker().getId().equals(userId)) {
             if (!booking.getItem().getOwner().getId().equals(userId)) {
@@ -102,169 +323,157 @@ public class BookingServiceImpl implements BookingService {
     @Transactional
     @Override
     public List<BookingFullDto> getAllBookingRequestForUser(Long userId, String state, Integer from, Integer size) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> {
-                    log.error("Пользователь с ID: {} не найден", userId);
-                    return new UserNotFoundException("Такого пользователя нет");
-                });
         if (from < 0 || size < 0 || size == 0) {
             throw new ValidationException("Неправильно указаны размеры");
         }
-        List<BookingFullDto> bookingsDto = new ArrayList<>();
-        List<Booking> bookings;
-        switch (state) {
-            case "CURRENT":
-                bookings = repository.getCurrentByUserId(userId,
-                        getPage(from, size, Sort.by(Sort.Direction.ASC, "start"))).getContent();
-                for (Booking book : bookings) {
-                    bookingsDto.add(BookingMapper.toBookingFullDto(book));
-                }
-                return bookingsDto;
-            case "PAST":
-                bookings = repository.getBookingByUserIdAndFinishAfterNow(userId,
-                        getPage(from, size,
-                                Sort.by(Sort.Direction.DESC, "start"))).getContent();
-                for (Booking book : bookings) {
-                    bookingsDto.add(BookingMapper.toBookingFullDto(book));
-                }
-                return bookingsDto;
-            case "FUTURE":
-                List<Booking> bookingsApprove = repository.findByBookerAndStatus(userRepository.getById(userId),
-                        Status.APPROVED, getPage(from, size)).getContent();
-                List<Booking> bookingsWaiting = repository.findByBookerAndStatus(userRepository.getById(userId),
-                        Status.WAITING, getPage(from, size)).getContent();
-                for (Booking book : bookingsApprove) {
-                    bookingsDto.add(BookingMapper.toBookingFullDto(book));
-                }
-                for (Booking book : bookingsWaiting) {
-                    bookingsDto.add(BookingMapper.toBookingFullDto(book));
-                }
-                bookingsDto.sort(Comparator.comparing(BookingFullDto::getStart).reversed());
-                return bookingsDto;
-            case "WAITING":
-                bookings = repository.findByBookerAndStatus(userRepository.getById(userId),
-                        Status.WAITING, getPage(from, size,
-                                Sort.by(Sort.Direction.DESC, "start"))).getContent();
-                for (Booking book : bookings) {
-                    bookingsDto.add(BookingMapper.toBookingFullDto(book));
-                }
-                return bookingsDto;
-            case "REJECTED":
-                bookings = repository.findByBookerAndStatus(userRepository.getById(userId),
-                        Status.REJECTED, getPage(from, size, Sort.by(Sort.Direction.DESC, "start"))).getContent();
-                for (Booking book : bookings) {
-                    bookingsDto.add(BookingMapper.toBookingFullDto(book));
-                }
-                return bookingsDto;
-            case "ALL":
-                bookings = repository.findByBooker(userRepository.getById(userId),
-                        getPage(from, size, Sort.by(Sort.Direction.DESC, "start"))).getContent();
-                for (Booking book : bookings) {
-                    bookingsDto.add(BookingMapper.toBookingFullDto(book));
-                }
-                return bookingsDto;
-            default:
-                throw new UnsupportedStatusException("Unknown state: " + state);
-        }
+        return findBookings(BookingRole.BOOKER, userId, state, from, size);
     }
 
     @Transactional
     @Override
     public List<BookingFullDto> getAllBookingRequestForOwner(Long userId, String state, Integer from, Integer size) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> {
-                    log.error("Пользователь с ID: {} не найден", userId);
-                    return new UserNotFoundException("Такого пользователя нет");
-                });
         if (from < 0 || size < 0 || size == 0) {
             throw new ValidationException("Неправильно указаны размеры!");
         }
-        List<Item> ownerItems = itemRepository.findAllByOwnerOrderById(userRepository.getById(userId),
-                getPage(0, 10)).toList();
-        List<BookingFullDto> bookingsDto = new ArrayList<>();
-        List<Booking> bookings;
-        switch (state) {
-            case "CURRENT":
-                bookings = repository.findAllByItemInAndStartBeforeAndEndAfterOrderByStartDesc(
-                        ownerItems, LocalDateTime.now(), LocalDateTime.now(), getPage(from, size,
-                                Sort.by(Sort.Direction.DESC, "start"))).getContent();
-                for (Booking book : bookings) {
-                    bookingsDto.add(BookingMapper.toBookingFullDto(book));
-                }
-                return bookingsDto;
-            case "PAST":
-                bookings = repository.findAllByItemInAndStatusAndEndBeforeOrderByStartDesc(ownerItems,
-                        Status.APPROVED, LocalDateTime.now(), getPage(from, size,
-                                Sort.by(Sort.Direction.ASC, "start"))).getContent();
-                for (Booking book : bookings) {
-                    bookingsDto.add(BookingMapper.toBookingFullDto(book));
-                }
-                return bookingsDto;
-            case "FUTURE":
-                List<Booking> bookingsApprove = repository.findByItemInAndStatus(ownerItems,
-                        Status.APPROVED, getPage(from, size)).getContent();
-                List<Booking> bookingsWaiting = repository.findByItemInAndStatus(ownerItems,
-                        Status.WAITING, getPage(from, size)).getContent();
-                for (Booking book : bookingsApprove) {
-                    bookingsDto.add(BookingMapper.toBookingFullDto(book));
-                }
-                for (Booking book : bookingsWaiting) {
-                    bookingsDto.add(BookingMapper.toBookingFullDto(book));
-                }
-                bookingsDto.sort(Comparator.comparing(BookingFullDto::getStart).reversed());
-                return bookingsDto;
-            case "WAITING":
-                bookings = repository.findByItemInAndStatus(ownerItems,
-                        Status.WAITING, getPage(from, size,
-                                Sort.by(Sort.Direction.DESC, "start"))).getContent();
-                for (Booking book : bookings) {
-                    bookingsDto.add(BookingMapper.toBookingFullDto(book));
-                }
-                return bookingsDto;
-            case "REJECTED":
-                bookings = repository.findByItemInAndStatus(ownerItems,
-                        Status.REJECTED, getPage(from, size,
-                                Sort.by(Sort.Direction.DESC, "start"))).getContent();
-                for (Booking book : bookings) {
-                    bookingsDto.add(BookingMapper.toBookingFullDto(book));
-                }
-                return bookingsDto;
-            case "ALL":
-                bookings = repository.findByItemIn(ownerItems, PageRequest.of(from / size, size,
-                        Sort.by(Sort.Direction.DESC, "start"))).getContent();
-                for (Booking book : bookings) {
-                    bookingsDto.add(BookingMapper.toBookingFullDto(book));
-                }
-                return bookingsDto;
-            default:
-                throw new UnsupportedStatusException("Unknown state: " + state);
+        return findBookings(BookingRole.OWNER, userId, state, from, size);
+    }
+
+    @Transactional
+    @Override
+    public BookingPageDto getBookingPageForUser(Long userId, String state, String cursor, Integer size) {
+        if (size <= 0) {
+            throw new ValidationException("Неправильно указаны размеры");
         }
+        return findBookingPage(BookingRole.BOOKER, userId, state, cursor, size);
     }
 
     @Transactional
     @Override
-    public Booking getBookingWithUserBookedItem(Long itemId, Long userId) {
-        if (itemRepository.findById(itemId).isEmpty()) {
-            log.error("Вещь с ID: {} не найдена", itemId);
-            throw new ItemNotFoundException("Такой вещи не существует");
+    public BookingPageDto getBookingPageForOwner(Long userId, String state, String cursor, Integer size) {
+        if (size <= 0) {
+            throw new ValidationException("Неправильно указаны размеры!");
         }
-        return repository.findFirstByItemIdAndBookerIdAndEndIsBeforeAndStatus(itemId,
-                userId, LocalDateTime.now(), Status.APPROVED);
+        return findBookingPage(BookingRole.OWNER, userId, state, cursor, size);
+    }
+
+    @Transactional
+    @Override
+    public BookingCountsDto getBookingCountsForUser(Long userId) {
+        checkUserExists(userId);
+        return counters.getCounts(userId, BookingRole.BOOKER);
+    }
+
+    @Transactional
+    @Override
+    public BookingCountsDto getBookingCountsForOwner(Long userId) {
+        checkUserExists(userId);
+        return counters.getCounts(userId, BookingRole.OWNER);
     }
 
     private Booking findById(Long bookingId) {
         return repository.findById(bookingId)
+                .or(() -> archivedRepository.findById(bookingId).map(BookingMapper::toBooking))
                 .orElseThrow(() -> {
                     log.error("Бронирование с ID={} не найдено", bookingId);
                     return new BookingNotFoundException(String.format("Бронирование с ID=%d не найдено", bookingId));
                 });
     }
 
-    private PageRequest getPage(int from, int size, Sort sort) {
-        return PageRequest.of(from / size, size, sort);
+    private List<BookingFullDto> findBookings(BookingRole role, Long userId, String state, int from, int size) {
+        BookingState bookingState = BookingState.from(state);
+        if (counters.hasNone(userId, role, bookingState)) {
+            checkUserExists(userId);
+            return List.of();
+        }
+        BookingQuery query = new BookingQuery(role, userId, bookingState, LocalDateTime.now(),
+                from / size * size, size, null, seriesUsers.has(role, userId));
+        List<BookingRowDto> bookings = findRows(query);
+        if (bookings.isEmpty()) {
+            checkUserExists(userId);
+        }
+        return bookings.stream()
+                .map(BookingMapper::toBookingFullDto)
+                .collect(toList());
+    }
+
+    private BookingPageDto findBookingPage(BookingRole role, Long userId, String state, String cursor, int size) {
+        BookingState bookingState = BookingState.from(state);
+        BookingCursor after = BookingCursor.decode(cursor);
+        if (counters.hasNone(userId, role, bookingState)) {
+            checkUserExists(userId);
+            return new BookingPageDto(List.of(), false, null);
+        }
+        BookingQuery query = new BookingQuery(role, userId, bookingState, LocalDateTime.now(),
+                0, size + 1, after, seriesUsers.has(role, userId));
+        List<BookingRowDto> bookings = findRows(query);
+        if (bookings.isEmpty()) {
+            checkUserExists(userId);
+        }
+        boolean hasNext = bookings.size() > size;
+        List<BookingRowDto> content = hasNext ? bookings.subList(0, size) : bookings;
+        String nextCursor = null;
+        if (hasNext) {
+            nextCursor = BookingCursor.after(content.get(content.size() - 1)).encode();
+        }
+        return new BookingPageDto(content.stream()
+                .map(BookingMapper::toBookingFullDto)
+                .collect(toList()), hasNext, nextCursor);
     }
 
-    private PageRequest getPage(int from, int size) {
-        return PageRequest.of(from / size, size);
+    private List<BookingRowDto> findRows(BookingQuery query) {
+        return query.getState() == BookingState.CURRENT
+                ? currentBookings.findByQuery(query)
+                : repository.findByQuery(query);
+    }
+
+    /**
+     * Менять статус можно только у ожидающего бронирования; отклонённое можно ещё подтвердить.
+     * Просроченные и отменённые бронирования уже освободили интервал и не меняются.
+     */
+    private void checkStatusChange(Booking book, Long userId, boolean approve) {
+        if (!book.getItem().getOwner().getId().equals(userId)) {
+            throw new UpdateNotAvailableException("Менять статус бронирования может только владелец");
+        }
+        if (Status.APPROVED.equals(book.getStatus())) {
+            throw new StatusChangingNotAvailableException("Статус уже подтвержден!");
+        }
+        if (!Status.WAITING.equals(book.getStatus()) && !(approve && Status.REJECTED.equals(book.getStatus()))) {
+            throw new StatusChangingNotAvailableException(
+                    String.format("Статус бронирования %s нельзя изменить!", book.getStatus()));
+        }
+    }
+
+    private void applyStatusChange(Booking book, boolean approve) {
+        if (approve) {
+            if (Status.REJECTED.equals(book.getStatus())) {
+                itemLocks.withLock(book.getItem().getId(), () -> {
+                    if (availabilityIndex.hasOverlap(book.getItem().getId(), book.getStart(), book.getEnd())) {
+                        throw new BookingNotAvailableException("Вещь уже забронирована на это время!");
+                    }
+                    availabilityIndex.reserve(BookingMapper.toBookingSlot(book));
+                    return book;
+                });
+            }
+        } else {
+            availabilityIndex.release(BookingMapper.toBookingSlot(book));
+        }
+    }
+
+    private void checkTime(BookingDto booking) {
+        if (booking.getEnd() == null || booking.getStart() == null
+                || booking.getEnd().equals(booking.getStart())
+                || booking.getEnd().isBefore(booking.getStart())
+                || booking.getStart().isAfter(booking.getEnd())
+                || booking.getStart().isBefore(LocalDateTime.now())) {
+            throw new ValidationException("Неправильно указано время!");
+        }
+    }
+
+    private void checkUserExists(Long userId) {
+        userRepository.findById(userId)
+                .orElseThrow(() -> {
+                    log.error("Пользователь с ID: {} не найден", userId);
+                    return new UserNotFoundException("Такого пользователя нет");
+                });
     }
 }
@@ -0,0 +1,115 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU-кэш подтверждённых бронирований вещей: последнее начавшееся и все будущие.
+ * Прошедшие бронирования отбрасываются при чтении, по мере того как их сменяют следующие.
+ */
+@Slf4j
+@Component
+public class BookingTimelineCache {
+    private final Map<Long, NavigableMap<LocalDateTime, BookingDto>> timelines;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public BookingTimelineCache(@Value("${shareit.booking.timeline-cache.max-items:10000}") int maxItems) {
+        this.timelines = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, NavigableMap<LocalDateTime, BookingDto>> eldest) {
+                if (size() > maxItems) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized NearestBookings getNearest(Long itemId, LocalDateTime now) {
+        NavigableMap<LocalDateTime, BookingDto> timeline = timelines.get(itemId);
+        if (timeline == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return nearest(timeline, now);
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public synchronized NearestBookings put(Long itemId, List<BookingDto> bookings, long loadedGeneration,
+                                            LocalDateTime now) {
+        NavigableMap<LocalDateTime, BookingDto> timeline = new TreeMap<>();
+        bookings.forEach(booking -> timeline.put(booking.getStart(), booking));
+        if (loadedGeneration == generation.get()) {
+            timelines.put(itemId, timeline);
+        }
+        return nearest(timeline, now);
+    }
+
+    @TransactionalEventListener
+    public synchronized void onBookingChanged(BookingChangedEvent event) {
+        generation.incrementAndGet();
+        NavigableMap<LocalDateTime, BookingDto> timeline = timelines.get(event.getItemId());
+        if (timeline == null) {
+            return;
+        }
+        if (event.getNewStatus() == Status.APPROVED) {
+            timeline.put(event.getStart(), BookingMapper.toBookingDto(event));
+        } else if (event.getOldStatus() == Status.APPROVED) {
+            timeline.remove(event.getStart());
+        }
+    }
+
+    @TransactionalEventListener
+    public synchronized void onBookingsChanged(BookingsChangedEvent event) {
+        event.getChanges().forEach(this::onBookingChanged);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    public synchronized int size() {
+        return timelines.size();
+    }
+
+    private NearestBookings nearest(NavigableMap<LocalDateTime, BookingDto> timeline, LocalDateTime now) {
+        Map.Entry<LocalDateTime, BookingDto> last = timeline.lowerEntry(now);
+        if (last != null) {
+            timeline.headMap(last.getKey(), false).clear();
+        }
+        Map.Entry<LocalDateTime, BookingDto> next = timeline.higherEntry(now);
+        return new NearestBookings(last == null ? null : last.getValue(), next == null ? null : next.getValue());
+    }
+}
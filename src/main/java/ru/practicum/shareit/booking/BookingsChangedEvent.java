@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Изменения нескольких бронирований одной операции, например корзины: слушатели обрабатывают их вместе.
+ */
+@Data
+@AllArgsConstructor
+public class BookingsChangedEvent {
+    private final List<BookingChangedEvent> changes;
+}
@@ -0,0 +1,117 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Пары (вещь, пользователь), у которых есть завершённое подтверждённое бронирование, то есть право оставить отзыв.
+ * Для каждой вещи хранится отсортированный массив ID пользователей, проверка — двоичный поиск.
+ * Подтверждённые бронирования, которые ещё не закончились, ждут в очереди по времени окончания
+ * и переносятся в индекс при первой проверке после их завершения.
+ * Подтверждённая серия даёт право на отзыв после окончания первого вхождения.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CommentEligibilityIndex {
+    private static final long[] NONE = new long[0];
+
+    private final BookingRepository repository;
+    private final ArchivedBookingRepository archivedRepository;
+    private final BookingSeriesRepository seriesRepository;
+    private final Map<Long, long[]> bookersByItem = new ConcurrentHashMap<>();
+    private final PriorityQueue<ItemBooker> pending = new PriorityQueue<>(Comparator.comparing(ItemBooker::getEnd));
+
+    @PostConstruct
+    public void load() {
+        bookersByItem.clear();
+        synchronized (pending) {
+            pending.clear();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<ItemBooker> live = repository.findFirstEndsByStatus(Status.APPROVED);
+        List<ItemBooker> archived = archivedRepository.findFirstEndsByStatus(Status.APPROVED);
+        List<ItemBooker> series = seriesRepository.findFirstEndsByStatus(Status.APPROVED);
+        live.forEach(pair -> add(pair, now));
+        archived.forEach(pair -> add(pair, now));
+        series.forEach(pair -> add(pair, now));
+        log.info("Индекс права на отзыв загружен: {} пар, {} ожидают окончания бронирования",
+                live.size() + archived.size() + series.size(), pendingCount());
+    }
+
+    public boolean canComment(Long itemId, Long userId) {
+        promote(LocalDateTime.now());
+        return Arrays.binarySearch(bookersByItem.getOrDefault(itemId, NONE), userId) >= 0;
+    }
+
+    @TransactionalEventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.getNewStatus() == Status.APPROVED) {
+            add(new ItemBooker(event.getItemId(), event.getBookerId(), event.getEnd()), LocalDateTime.now());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onBookingsChanged(BookingsChangedEvent event) {
+        event.getChanges().forEach(this::onBookingChanged);
+    }
+
+    @TransactionalEventListener
+    public void onSeriesChanged(BookingSeriesChangedEvent event) {
+        if (event.getNewStatus() == Status.APPROVED) {
+            add(new ItemBooker(event.getItemId(), event.getBookerId(), event.getEnd()), LocalDateTime.now());
+        }
+    }
+
+    public int pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    private void add(ItemBooker pair, LocalDateTime now) {
+        if (pair.getEnd().isBefore(now)) {
+            insert(pair.getItemId(), pair.getBookerId());
+        } else {
+            synchronized (pending) {
+                pending.add(pair);
+            }
+        }
+    }
+
+    private void promote(LocalDateTime now) {
+        synchronized (pending) {
+            while (!pending.isEmpty() && pending.peek().getEnd().isBefore(now)) {
+                ItemBooker pair = pending.poll();
+                insert(pair.getItemId(), pair.getBookerId());
+            }
+        }
+    }
+
+    private void insert(Long itemId, Long bookerId) {
+        bookersByItem.compute(itemId, (id, bookers) -> {
+            long[] current = bookers == null ? NONE : bookers;
+            int position = Arrays.binarySearch(current, bookerId);
+            if (position >= 0) {
+                return current;
+            }
+            int insertAt = -position - 1;
+            long[] updated = new long[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, insertAt);
+            updated[insertAt] = bookerId;
+            System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+            return updated;
+        });
+    }
+}
@@ -0,0 +1,369 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingRowDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Текущие бронирования (start < now < end) по бронирующему и по владельцу: выдача CURRENT без запросов к базе.
+ * Все незакончившиеся бронирования и серии стоят в хешированном колесе таймеров с шагом tick.
+ * Активация срабатывает в тике начала, деактивация — в следующем тике после окончания, поэтому
+ * активный набор никогда не теряет текущее бронирование, а точное сравнение с now делается при чтении.
+ * После окончания вхождения серия ставит таймер на следующее. Колесо двигается по расписанию и перед каждым чтением.
+ */
+@Slf4j
+@Component
+public class CurrentBookingIndex {
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final Duration MAX_STEP = Arrays.stream(Recurrence.values())
+            .map(Recurrence::getStep)
+            .max(Comparator.naturalOrder())
+            .orElseThrow();
+
+    private final BookingRepository repository;
+    private final BookingSeriesRepository seriesRepository;
+    private final long tickMillis;
+    private final List<List<Timer>> wheel;
+    private final Map<Long, ActiveBooking> bookings = new HashMap<>();
+    private final Map<Long, ActiveBooking> series = new HashMap<>();
+    private final Map<Long, Set<ActiveBooking>> trackedByItem = new HashMap<>();
+    private final Map<Long, Set<ActiveBooking>> trackedByBooker = new HashMap<>();
+    private final Map<Long, Set<ActiveBooking>> activeByBooker = new HashMap<>();
+    private final Map<Long, Set<ActiveBooking>> activeByOwner = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile long tick;
+
+    public CurrentBookingIndex(BookingRepository repository,
+                               BookingSeriesRepository seriesRepository,
+                               @Value("${shareit.booking.current-index.tick:PT1S}") Duration tick,
+                               @Value("${shareit.booking.current-index.wheel-size:4096}") int wheelSize) {
+        this.repository = repository;
+        this.seriesRepository = seriesRepository;
+        this.tickMillis = tick.toMillis();
+        this.wheel = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            wheel.add(new ArrayList<>());
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        write(this::reload);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.current-index.tick:PT1S}")
+    public void advance() {
+        write(() -> advance(LocalDateTime.now()));
+    }
+
+    /**
+     * Страница текущих бронирований в порядке выдачи репозитория: по убыванию начала, затем ID.
+     * Колесо сдвигается под блокировкой записи, только если тик уже сменился; сама выборка идёт
+     * под блокировкой чтения, и запросы разных пользователей не ждут друг друга.
+     */
+    public List<BookingRowDto> findByQuery(BookingQuery query) {
+        LocalDateTime now = query.getNow();
+        if (tickOf(now) > tick) {
+            write(() -> advance(now));
+        }
+        lock.readLock().lock();
+        try {
+            return find(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void track(ActiveBooking booking) {
+        afterCommit(() -> write(() -> add(booking)));
+    }
+
+    public void updateSeriesStatus(Long seriesId, Status status) {
+        afterCommit(() -> write(() -> {
+            ActiveBooking tracked = series.get(seriesId);
+            if (tracked != null) {
+                tracked.setStatus(status);
+            }
+        }));
+    }
+
+    public void updateItem(Item item) {
+        afterCommit(() -> write(() -> {
+            for (ActiveBooking booking : trackedByItem.getOrDefault(item.getId(), Set.of())) {
+                booking.setItemName(item.getName());
+                booking.setItemDescription(item.getDescription());
+                booking.setItemAvailable(item.getAvailable());
+                booking.setItemRequestId(item.getRequestId());
+            }
+        }));
+    }
+
+    public void updateUser(User user) {
+        afterCommit(() -> write(() -> {
+            for (ActiveBooking booking : trackedByBooker.getOrDefault(user.getId(), Set.of())) {
+                booking.setBookerName(user.getName());
+                booking.setBookerEmail(user.getEmail());
+            }
+        }));
+    }
+
+    @TransactionalEventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        write(() -> updateStatus(event));
+    }
+
+    @TransactionalEventListener
+    public void onBookingsChanged(BookingsChangedEvent event) {
+        write(() -> event.getChanges().forEach(this::updateStatus));
+    }
+
+    public int trackedCount() {
+        lock.readLock().lock();
+        try {
+            return bookings.size() + series.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int activeCount() {
+        lock.readLock().lock();
+        try {
+            return countActive();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void reload() {
+        wheel.forEach(List::clear);
+        bookings.clear();
+        series.clear();
+        trackedByItem.clear();
+        trackedByBooker.clear();
+        activeByBooker.clear();
+        activeByOwner.clear();
+        LocalDateTime now = LocalDateTime.now();
+        tick = tickOf(now);
+        repository.findActiveByEndAfter(now).forEach(this::add);
+        seriesRepository.findActiveByUntilAfter(now.minus(MAX_STEP)).forEach(this::add);
+        log.info("Индекс текущих бронирований загружен: {} бронирований, {} серий, {} активны",
+                bookings.size(), series.size(), countActive());
+    }
+
+    private List<BookingRowDto> find(BookingQuery query) {
+        LocalDateTime now = query.getNow();
+        Map<Long, Set<ActiveBooking>> active = query.getRole() == BookingRole.OWNER ? activeByOwner : activeByBooker;
+        List<BookingRowDto> rows = new ArrayList<>();
+        for (ActiveBooking booking : active.getOrDefault(query.getUserId(), Set.of())) {
+            BookingSlot occurrence = occurrenceAt(booking, now);
+            if (occurrence == null) {
+                continue;
+            }
+            BookingRowDto row = BookingMapper.toBookingRowDto(booking, occurrence);
+            if (query.getAfter() == null || isAfter(row, query.getAfter())) {
+                rows.add(row);
+            }
+        }
+        rows.sort(BookingRepositoryCustomImpl.NEWEST_FIRST);
+        if (rows.size() <= query.getOffset()) {
+            return new ArrayList<>();
+        }
+        return rows.subList(query.getOffset(), Math.min(rows.size(), query.getOffset() + query.getLimit()));
+    }
+
+    private void updateStatus(BookingChangedEvent event) {
+        ActiveBooking tracked = bookings.get(event.getBookingId());
+        if (tracked != null) {
+            tracked.setStatus(event.getNewStatus());
+        }
+    }
+
+    private int countActive() {
+        return activeByBooker.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void advance(LocalDateTime now) {
+        long target = tickOf(now);
+        if (target <= tick) {
+            return;
+        }
+        if (target - tick >= wheel.size()) {
+            tick = target;
+            for (int slot = 0; slot < wheel.size(); slot++) {
+                fire(slot);
+            }
+            return;
+        }
+        while (tick < target) {
+            tick++;
+            fire((int) Math.floorMod(tick, (long) wheel.size()));
+        }
+    }
+
+    private void fire(int slot) {
+        List<Timer> timers = wheel.get(slot);
+        wheel.set(slot, new ArrayList<>());
+        for (Timer timer : timers) {
+            if (timer.deadline > tick) {
+                wheel.get(slot).add(timer);
+            } else {
+                deactivate(timer.booking);
+                arm(timer.booking);
+            }
+        }
+    }
+
+    private void add(ActiveBooking booking) {
+        Map<Long, ActiveBooking> tracked = booking.isSeries() ? series : bookings;
+        Long key = booking.isSeries() ? booking.getSeriesId() : booking.getId();
+        if (tracked.putIfAbsent(key, booking) != null) {
+            return;
+        }
+        put(trackedByItem, booking.getItemId(), booking);
+        put(trackedByBooker, booking.getBookerId(), booking);
+        arm(booking);
+    }
+
+    /**
+     * Ставит таймер на ближайшее незакончившееся вхождение: активацию, если оно ещё не началось,
+     * иначе деактивацию. Закончившиеся бронирования и серии удаляются из индекса.
+     */
+    private void arm(ActiveBooking booking) {
+        long n = 0;
+        long last = 0;
+        SeriesSlot slot = null;
+        if (booking.isSeries()) {
+            slot = BookingMapper.toSeriesSlot(booking);
+            last = slot.lastIndex();
+            n = slot.firstEndAfter(EPOCH.plus(Duration.ofMillis(tick * tickMillis)));
+        }
+        while (n <= last && tickOf(end(booking, slot, n)) + 1 <= tick) {
+            n++;
+        }
+        if (n > last) {
+            remove(booking);
+            return;
+        }
+        long activation = tickOf(start(booking, slot, n));
+        if (activation <= tick) {
+            put(activeByBooker, booking.getBookerId(), booking);
+            put(activeByOwner, booking.getOwnerId(), booking);
+            schedule(booking, tickOf(end(booking, slot, n)) + 1);
+        } else {
+            schedule(booking, activation);
+        }
+    }
+
+    private void schedule(ActiveBooking booking, long deadline) {
+        wheel.get((int) Math.floorMod(deadline, (long) wheel.size())).add(new Timer(booking, deadline));
+    }
+
+    private void deactivate(ActiveBooking booking) {
+        delete(activeByBooker, booking.getBookerId(), booking);
+        delete(activeByOwner, booking.getOwnerId(), booking);
+    }
+
+    private void remove(ActiveBooking booking) {
+        deactivate(booking);
+        delete(trackedByItem, booking.getItemId(), booking);
+        delete(trackedByBooker, booking.getBookerId(), booking);
+        if (booking.isSeries()) {
+            series.remove(booking.getSeriesId());
+        } else {
+            bookings.remove(booking.getId());
+        }
+    }
+
+    private BookingSlot occurrenceAt(ActiveBooking booking, LocalDateTime now) {
+        if (!booking.isSeries()) {
+            return booking.getStart().isBefore(now) && booking.getEnd().isAfter(now)
+                    ? new BookingSlot(booking.getId(), booking.getItemId(), booking.getStart(), booking.getEnd())
+                    : null;
+        }
+        SeriesSlot slot = BookingMapper.toSeriesSlot(booking);
+        long n = slot.lastStartBefore(now, false);
+        return n >= 0 && slot.occurrenceEnd(n).isAfter(now)
+                ? new BookingSlot(null, booking.getItemId(), slot.occurrenceStart(n), slot.occurrenceEnd(n))
+                : null;
+    }
+
+    private boolean isAfter(BookingRowDto row, BookingCursor after) {
+        int byStart = row.getStart().compareTo(after.getStart());
+        return byStart < 0 || byStart == 0 && BookingCursor.keyOf(row) < after.getId();
+    }
+
+    private LocalDateTime start(ActiveBooking booking, SeriesSlot slot, long n) {
+        return slot == null ? booking.getStart() : slot.occurrenceStart(n);
+    }
+
+    private LocalDateTime end(ActiveBooking booking, SeriesSlot slot, long n) {
+        return slot == null ? booking.getEnd() : slot.occurrenceEnd(n);
+    }
+
+    private long tickOf(LocalDateTime time) {
+        return Math.floorDiv(Duration.between(EPOCH, time).toMillis(), tickMillis);
+    }
+
+    private void put(Map<Long, Set<ActiveBooking>> index, Long key, ActiveBooking booking) {
+        index.computeIfAbsent(key, id -> Collections.newSetFromMap(new IdentityHashMap<>())).add(booking);
+    }
+
+    private void delete(Map<Long, Set<ActiveBooking>> index, Long key, ActiveBooking booking) {
+        Set<ActiveBooking> values = index.get(key);
+        if (values != null && values.remove(booking) && values.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Timer {
+        private final ActiveBooking booking;
+        private final long deadline;
+    }
+}
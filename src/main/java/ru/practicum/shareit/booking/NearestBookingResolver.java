@@ -0,0 +1,90 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NearestBookingResolver {
+    private final BookingRepository repository;
+    private final ArchivedBookingRepository archivedRepository;
+    private final BookingTimelineCache timelineCache;
+    private final BookingAvailabilityIndex availabilityIndex;
+
+    public Map<Long, NearestBookings> resolve(Collection<Long> itemIds) {
+        Map<Long, NearestBookings> result = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> missing = new ArrayList<>();
+        for (Long itemId : itemIds) {
+            NearestBookings nearest = timelineCache.getNearest(itemId, now);
+            if (nearest == null) {
+                missing.add(itemId);
+            } else {
+                result.put(itemId, nearest);
+            }
+        }
+        if (missing.isEmpty()) {
+            return withSeries(result, now);
+        }
+        long generation = timelineCache.generation();
+        Map<Long, List<BookingDto>> timelines = repository.findTimelinesByItemIds(missing, Status.APPROVED, now)
+                .stream()
+                .collect(groupingBy(BookingDto::getItemId, toCollection(ArrayList::new)));
+        List<Long> withoutLast = missing.stream()
+                .filter(itemId -> timelines.getOrDefault(itemId, List.of()).stream()
+                        .noneMatch(booking -> booking.getStart().isBefore(now)))
+                .collect(toList());
+        if (!withoutLast.isEmpty()) {
+            archivedRepository.findLastByItemIds(withoutLast, Status.APPROVED)
+                    .forEach(last -> timelines.computeIfAbsent(last.getItemId(), id -> new ArrayList<>()).add(last));
+        }
+        for (Long itemId : missing) {
+            result.put(itemId, timelineCache.put(itemId, timelines.getOrDefault(itemId, List.of()), generation, now));
+        }
+        log.debug("Лента бронирований: загружено {} вещей, доля попаданий {}", missing.size(),
+                timelineCache.getHitRate());
+        return withSeries(result, now);
+    }
+
+    private Map<Long, NearestBookings> withSeries(Map<Long, NearestBookings> result, LocalDateTime now) {
+        for (Map.Entry<Long, NearestBookings> entry : result.entrySet()) {
+            BookingDto last = entry.getValue().getLast();
+            BookingDto next = entry.getValue().getNext();
+            boolean changed = false;
+            for (SeriesSlot series : availabilityIndex.getSeries(entry.getKey())) {
+                if (series.getStatus() != Status.APPROVED) {
+                    continue;
+                }
+                long previous = series.lastStartBefore(now, false);
+                if (previous >= 0 && (last == null || series.occurrenceStart(previous).isAfter(last.getStart()))) {
+                    last = BookingMapper.toBookingDto(series, previous);
+                    changed = true;
+                }
+                long following = series.firstStartAfter(now);
+                if (following <= series.lastIndex()
+                        && (next == null || series.occurrenceStart(following).isBefore(next.getStart()))) {
+                    next = BookingMapper.toBookingDto(series, following);
+                    changed = true;
+                }
+            }
+            if (changed) {
+                entry.setValue(new NearestBookings(last, next));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearestBookings {
+    private BookingDto last;
+    private BookingDto next;
+}
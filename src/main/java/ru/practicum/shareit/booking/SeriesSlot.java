@@ -0,0 +1,94 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Расписание серии без развёртывания: номер нужного вхождения вычисляется делением,
+ * поэтому любая проверка стоит O(1), а перечисление — O(числа вхождений в окне).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeriesSlot {
+    private Long id;
+    private Long itemId;
+    private Long bookerId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private Recurrence recurrence;
+    private LocalDateTime until;
+    private Status status;
+
+    public long lastIndex() {
+        return nanosFromStart(until) / step();
+    }
+
+    public LocalDateTime occurrenceStart(long n) {
+        return start.plus(recurrence.getStep().multipliedBy(n));
+    }
+
+    public LocalDateTime occurrenceEnd(long n) {
+        return end.plus(recurrence.getStep().multipliedBy(n));
+    }
+
+    public LocalDateTime lastEnd() {
+        return occurrenceEnd(lastIndex());
+    }
+
+    /**
+     * Номер последнего вхождения, начавшегося раньше time (или не позже, если inclusive), либо -1.
+     */
+    public long lastStartBefore(LocalDateTime time, boolean inclusive) {
+        long nanos = nanosFromStart(time) + (inclusive ? 1 : 0);
+        return nanos <= 0 ? -1 : Math.min(lastIndex(), (nanos - 1) / step());
+    }
+
+    public long firstStartAfter(LocalDateTime time) {
+        long nanos = nanosFromStart(time);
+        return nanos < 0 ? 0 : nanos / step() + 1;
+    }
+
+    public long firstEndAfter(LocalDateTime time) {
+        long nanos = nanosFromStart(time) - duration();
+        return nanos < 0 ? 0 : nanos / step() + 1;
+    }
+
+    public long lastEndBefore(LocalDateTime time) {
+        long nanos = nanosFromStart(time) - duration();
+        return nanos <= 0 ? -1 : Math.min(lastIndex(), (nanos - 1) / step());
+    }
+
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return firstEndAfter(from) <= lastStartBefore(to, false);
+    }
+
+    public List<BookingSlot> occurrences(LocalDateTime from, LocalDateTime to) {
+        List<BookingSlot> slots = new ArrayList<>();
+        for (long n = firstEndAfter(from); n <= lastStartBefore(to, false); n++) {
+            slots.add(new BookingSlot(id, itemId, occurrenceStart(n), occurrenceEnd(n)));
+        }
+        return slots;
+    }
+
+    private long nanosFromStart(LocalDateTime time) {
+        LocalDateTime lower = start.minus(recurrence.getStep());
+        LocalDateTime upper = until.plus(recurrence.getStep()).plus(Duration.between(start, end));
+        LocalDateTime clamped = time.isBefore(lower) ? lower : time.isAfter(upper) ? upper : time;
+        return Duration.between(start, clamped).toNanos();
+    }
+
+    private long step() {
+        return recurrence.getStep().toNanos();
+    }
+
+    private long duration() {
+        return Duration.between(start, end).toNanos();
+    }
+}
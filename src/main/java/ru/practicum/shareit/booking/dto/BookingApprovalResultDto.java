@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.Status;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingApprovalResultDto {
+    private Long bookingId;
+    private boolean updated;
+    private Status status;
+    private String error;
+}
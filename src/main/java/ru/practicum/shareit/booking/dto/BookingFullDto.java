@@ -19,4 +19,10 @@ public class BookingFullDto {
     private ItemDto item;
     private UserDto booker;
     private Status status;
+    private Long seriesId;
+
+    public BookingFullDto(Long id, LocalDateTime start, LocalDateTime end, ItemDto item, UserDto booker,
+                          Status status) {
+        this(id, start, end, item, booker, status, null);
+    }
 }
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.Status;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingRowDto {
+    private Long id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private Status status;
+    private Long itemId;
+    private String itemName;
+    private String itemDescription;
+    private Boolean itemAvailable;
+    private Long itemRequestId;
+    private Long bookerId;
+    private String bookerName;
+    private String bookerEmail;
+    private Long seriesId;
+
+    public BookingRowDto(Long id, LocalDateTime start, LocalDateTime end, Status status, Long itemId,
+                         String itemName, String itemDescription, Boolean itemAvailable, Long itemRequestId,
+                         Long bookerId, String bookerName, String bookerEmail) {
+        this(id, start, end, status, itemId, itemName, itemDescription, itemAvailable, itemRequestId, bookerId,
+                bookerName, bookerEmail, null);
+    }
+}
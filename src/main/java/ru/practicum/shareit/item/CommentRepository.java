@@ -2,13 +2,19 @@ package ru.practicum.shareit.item;
 
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findAllByItemId(Long itemId, Sort sort);
 
     List<Comment> findAllByItem(Item item);
+
+    @Query("select c from Comment as c join fetch c.author where c.item.id in :itemIds order by c.created")
+    List<Comment> findAllWithAuthorByItemIdIn(@Param("itemIds") Collection<Long> itemIds);
 }
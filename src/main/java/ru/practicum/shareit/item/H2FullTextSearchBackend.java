@@ -0,0 +1,63 @@
+package ru.practicum.shareit.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * Встроенный полнотекстовый поиск H2 (org.h2.fulltext.FullText). Индекс обновляется триггерами на таблице items,
+ * ищутся целые слова. Сам H2 не ранжирует результаты, поэтому совпадения в названии ставятся выше
+ * совпадений только в описании. Работает только на H2.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.item.search.backend", havingValue = "h2")
+public class H2FullTextSearchBackend implements SearchBackend {
+    private static final String SEARCH = "select i.id, i.name, i.description, i.available, i.request_id " +
+            "from FT_SEARCH_DATA(?, 0, 0) ft " +
+            "join items i on i.id = cast(ft.KEYS[1] as bigint) " +
+            "where ft.\"TABLE\" = 'ITEMS' and i.available = true " +
+            "order by case when lower(i.name) = lower(?) then 3 " +
+            "when lower(i.name) like lower(?) || '%' then 2 " +
+            "when lower(i.name) like '%' || lower(?) || '%' then 1 " +
+            "else 0 end desc, i.id limit ? offset ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public H2FullTextSearchBackend(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void init() {
+        long started = System.nanoTime();
+        jdbcTemplate.execute("create alias if not exists FT_INIT for 'org.h2.fulltext.FullText.init'");
+        jdbcTemplate.execute("call FT_INIT()");
+        Integer indexes = jdbcTemplate.queryForObject(
+                "select count(*) from FT.INDEXES where \"SCHEMA\" = 'PUBLIC' and \"TABLE\" = 'ITEMS'", Integer.class);
+        if (indexes == null || indexes == 0) {
+            jdbcTemplate.execute("call FT_CREATE_INDEX('PUBLIC', 'ITEMS', 'NAME,DESCRIPTION')");
+        }
+        log.info("Полнотекстовый индекс H2 по вещам готов за {} мс", (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Override
+    public List<ItemDto> search(String text, int from, int size) {
+        return jdbcTemplate.query(SEARCH, (rs, rowNum) -> new ItemDto(
+                        rs.getLong("id"),
+                        rs.getString("name"),
+                        rs.getString("description"),
+                        rs.getBoolean("available"),
+                        null,
+                        rs.getObject("request_id", Long.class),
+                        null,
+                        null,
+                        null),
+                text, text, text, text, size, (long) from * size);
+    }
+}
@@ -2,17 +2,21 @@ package ru.practicum.shareit.item;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.FreeIntervalDto;
 import ru.practicum.shareit.interfaces.Create;
 import ru.practicum.shareit.interfaces.Update;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemStatsDto;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Slf4j
@@ -40,6 +44,22 @@ public class ItemController {
         return itemService.getItemsByOwner(ownerId, from, size);
     }
 
+    @GetMapping("/stats")
+    @ResponseStatus(HttpStatus.OK)
+    public List<ItemStatsDto> getOwnerItemStats(@RequestHeader(OWNER) @Positive Long ownerId) {
+        log.info("Получен GET-запрос /items/stats на получение статистики вещей владельца с ID={}", ownerId);
+        return itemService.getOwnerItemStats(ownerId);
+    }
+
+    @GetMapping("/{itemId}/stats")
+    @ResponseStatus(HttpStatus.OK)
+    public List<ItemStatsDto> getItemStats(@PathVariable Long itemId,
+                                           @RequestHeader(OWNER) @Positive Long ownerId) {
+        log.info("Получен GET-запрос /items/{}/stats на получение статистики вещи владельцем с ID={}",
+                itemId, ownerId);
+        return itemService.getItemStats(itemId, ownerId);
+    }
+
     @GetMapping("/search")
     @ResponseStatus(HttpStatus.OK)
     public List<ItemDto> getItemsBySearchQuery(
@@ -50,6 +70,26 @@ public class ItemController {
         return itemService.getItemsBySearchQuery(text, from, size);
     }
 
+    @GetMapping("/suggest")
+    @ResponseStatus(HttpStatus.OK)
+    public List<String> suggestItemNames(
+            @RequestParam String prefix,
+            @RequestParam(value = "limit", defaultValue = "10") @Positive Integer limit) {
+        log.info("Получен GET-запрос /items/suggest на подсказку названий вещей по префиксу={}", prefix);
+        return itemService.suggestItemNames(prefix, limit);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    @ResponseStatus(HttpStatus.OK)
+    public List<FreeIntervalDto> getItemAvailability(
+            @PathVariable Long itemId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Получен GET-запрос /items/{}/availability на получение свободных интервалов с {} по {}",
+                itemId, from, to);
+        return itemService.getItemAvailability(itemId, from, to);
+    }
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public ItemDto create(@Validated(Create.class) @RequestBody ItemDto itemDto, @RequestHeader(OWNER) Long ownerId) {
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Поля вещи, которые нужны поисковому индексу, чтобы отдавать результаты без обращения к базе.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemDocument {
+    private Long id;
+    private Long ownerId;
+    private String name;
+    private String description;
+    private Boolean available;
+    private Long requestId;
+}
@@ -3,7 +3,11 @@ package ru.practicum.shareit.item;
 import lombok.experimental.UtilityClass;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemStatsDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemStats;
+
+import java.time.YearMonth;
 
 
 @UtilityClass
@@ -25,4 +29,44 @@ public class ItemMapper {
                 null
         );
     }
+
+    public ItemDto toItemDto(ItemDocument document) {
+        return new ItemDto(
+                document.getId(),
+                document.getName(),
+                document.getDescription(),
+                document.getAvailable(),
+                null,
+                document.getRequestId(),
+                null,
+                null,
+                null
+        );
+    }
+
+    public ItemDocument toItemDocument(Item item) {
+        return new ItemDocument(
+                item.getId(),
+                item.getOwner().getId(),
+                item.getName(),
+                item.getDescription(),
+                item.getAvailable(),
+                item.getRequestId()
+        );
+    }
+
+    public ItemStatsDto toItemStatsDto(ItemStats stats) {
+        YearMonth month = YearMonth.from(stats.getId().getMonth());
+        long minutesInMonth = month.lengthOfMonth() * 24L * 60L;
+        return new ItemStatsDto(
+                stats.getId().getItemId(),
+                month.toString(),
+                stats.getRequested(),
+                stats.getApproved(),
+                stats.getRejected(),
+                stats.getExpired(),
+                stats.getRequested() == 0 ? null : (double) stats.getApproved() / stats.getRequested(),
+                (double) stats.getBookedMinutes() / minutesInMonth
+        );
+    }
 }
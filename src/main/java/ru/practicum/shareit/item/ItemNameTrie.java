@@ -0,0 +1,325 @@
+package ru.practicum.shareit.item;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Сжатое префиксное дерево нормализованных названий доступных вещей для подсказок при наборе.
+ * Одинаковые названия хранятся в одном узле со счётчиком вещей, каждый узел помнит наибольший счётчик в поддереве,
+ * поэтому лучшие подсказки находятся обходом по убыванию веса без просмотра всего поддерева префикса.
+ */
+@Slf4j
+@Component
+public class ItemNameTrie {
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Comparator<Candidate> BY_WEIGHT = Comparator.<Candidate>comparingInt(c -> -c.weight)
+            .thenComparing(c -> !c.terminal)
+            .thenComparingLong(c -> c.order);
+
+    private final ItemRepository itemRepository;
+    private final Map<Long, Entry> items = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Node("");
+
+    public ItemNameTrie(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    @PostConstruct
+    public void load() {
+        List<ItemDocument> all = itemRepository.findAllDocuments();
+        lock.writeLock().lock();
+        try {
+            items.clear();
+            root = new Node("");
+            all.forEach(document -> add(document.getId(), document.getOwnerId(), document.getName(),
+                    document.getAvailable()));
+            log.info("Дерево названий вещей загружено: {} доступных вещей", items.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Названия доступных вещей, начинающиеся с префикса, по убыванию числа таких вещей.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = find(key);
+            if (node == null) {
+                return new ArrayList<>();
+            }
+            List<String> names = new ArrayList<>(limit);
+            PriorityQueue<Candidate> queue = new PriorityQueue<>(BY_WEIGHT);
+            long order = 0;
+            queue.add(new Candidate(node, node.best, false, order++));
+            while (!queue.isEmpty() && names.size() < limit) {
+                Candidate candidate = queue.poll();
+                if (candidate.terminal) {
+                    names.add(candidate.node.name);
+                    continue;
+                }
+                if (candidate.node.count > 0) {
+                    queue.add(new Candidate(candidate.node, candidate.node.count, true, order++));
+                }
+                for (Node child : candidate.node.children) {
+                    queue.add(new Candidate(child, child.best, false, order++));
+                }
+            }
+            return names;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void index(Item item) {
+        Long ownerId = item.getOwner() == null ? null : item.getOwner().getId();
+        String name = item.getName();
+        Boolean available = item.getAvailable();
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                delete(item.getId());
+                add(item.getId(), ownerId, name, available);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void remove(Long itemId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                delete(itemId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void removeByOwner(Long ownerId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                items.entrySet().stream()
+                        .filter(entry -> ownerId.equals(entry.getValue().ownerId))
+                        .map(Map.Entry::getKey)
+                        .collect(toList())
+                        .forEach(this::delete);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return items.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return String.join(" ", text.toLowerCase(Locale.ROOT).replace('ё', 'е').trim().split("\\s+"));
+    }
+
+    private void add(Long itemId, Long ownerId, String name, Boolean available) {
+        String key = normalize(name);
+        if (!Boolean.TRUE.equals(available) || key.isEmpty()) {
+            return;
+        }
+        items.put(itemId, new Entry(ownerId, key));
+        insert(root, key, 0, name.trim());
+    }
+
+    private void delete(Long itemId) {
+        Entry entry = items.remove(itemId);
+        if (entry != null) {
+            delete(root, entry.key, 0);
+        }
+    }
+
+    /**
+     * Узел, путь до которого начинается с ключа; ключ может закончиться посреди метки узла.
+     */
+    private Node find(String key) {
+        Node node = root;
+        int depth = 0;
+        while (depth < key.length()) {
+            int index = indexOf(node, key.charAt(depth));
+            if (index < 0) {
+                return null;
+            }
+            Node child = node.children[index];
+            int common = commonLength(child.label, key, depth);
+            if (depth + common == key.length()) {
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            node = child;
+            depth += common;
+        }
+        return node;
+    }
+
+    private void insert(Node node, String key, int depth, String name) {
+        if (depth == key.length()) {
+            if (node.count++ == 0) {
+                node.name = name;
+            }
+        } else {
+            int index = indexOf(node, key.charAt(depth));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(depth));
+                leaf.name = name;
+                leaf.count = 1;
+                leaf.best = 1;
+                int position = -index - 1;
+                Node[] children = Arrays.copyOf(node.children, node.children.length + 1);
+                System.arraycopy(children, position, children, position + 1, node.children.length - position);
+                children[position] = leaf;
+                node.children = children;
+            } else {
+                Node child = node.children[index];
+                int common = commonLength(child.label, key, depth);
+                if (common < child.label.length()) {
+                    Node split = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    split.children = new Node[]{child};
+                    split.best = child.best;
+                    node.children[index] = split;
+                    child = split;
+                }
+                insert(child, key, depth + common, name);
+            }
+        }
+        updateBest(node);
+    }
+
+    private void delete(Node node, String key, int depth) {
+        if (depth == key.length()) {
+            if (--node.count == 0) {
+                node.name = null;
+            }
+        } else {
+            int index = indexOf(node, key.charAt(depth));
+            Node child = node.children[index];
+            delete(child, key, depth + child.label.length());
+            if (child.count == 0 && child.children.length == 0) {
+                Node[] children = new Node[node.children.length - 1];
+                System.arraycopy(node.children, 0, children, 0, index);
+                System.arraycopy(node.children, index + 1, children, index, children.length - index);
+                node.children = children.length == 0 ? NO_CHILDREN : children;
+            } else if (child.count == 0 && child.children.length == 1) {
+                Node only = child.children[0];
+                only.label = child.label + only.label;
+                node.children[index] = only;
+            }
+        }
+        updateBest(node);
+    }
+
+    private void updateBest(Node node) {
+        int best = node.count;
+        for (Node child : node.children) {
+            best = Math.max(best, child.best);
+        }
+        node.best = best;
+    }
+
+    private int indexOf(Node node, char first) {
+        int low = 0;
+        int high = node.children.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char current = node.children[middle].label.charAt(0);
+            if (current < first) {
+                low = middle + 1;
+            } else if (current > first) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private int commonLength(String label, String key, int depth) {
+        int max = Math.min(label.length(), key.length() - depth);
+        int length = 0;
+        while (length < max && label.charAt(length) == key.charAt(depth + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static class Node {
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private String name;
+        private int count;
+        private int best;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final Long ownerId;
+        private final String key;
+    }
+
+    @AllArgsConstructor
+    private static class Candidate {
+        private final Node node;
+        private final int weight;
+        private final boolean terminal;
+        private final long order;
+    }
+}
@@ -8,15 +8,30 @@ import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.User;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    @Query(value = "select id from items where id = :id for update", nativeQuery = true)
+    Long lockIdById(@Param("id") Long id);
+
     Page<Item> findAllByOwnerOrderById(User owner, Pageable pageable);
 
-    @Query(" select i from Item i " +
-            "where lower(i.name) like lower(concat('%', :search, '%')) " +
-            " or lower(i.description) like lower(concat('%', :search, '%')) " +
-            " and i.available = true")
+    /**
+     * Релевантность: название целиком, начало названия, подстрока названия, затем только описание.
+     */
+    @Query(value = " select i from Item i " +
+            "where (lower(i.name) like lower(concat('%', :search, '%')) " +
+            " or lower(i.description) like lower(concat('%', :search, '%'))) " +
+            " and i.available = true " +
+            "order by case when lower(i.name) = lower(:search) then 4 " +
+            " when lower(i.name) like lower(concat(:search, '%')) then 3 " +
+            " when lower(i.name) like lower(concat('%', :search, '%')) then 2 " +
+            " else 1 end desc, i.id",
+            countQuery = " select count(i) from Item i " +
+                    "where (lower(i.name) like lower(concat('%', :search, '%')) " +
+                    " or lower(i.description) like lower(concat('%', :search, '%'))) " +
+                    " and i.available = true")
     Page<Item> getItemsBySearchQuery(@Param("search") String text, Pageable pageable);
 
     List<Item> findByRequestId(Long requestId);
@@ -25,4 +40,11 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
             "FROM Item i " +
             "WHERE i.id = :id")
     User getOwnerById(@Param("id") Long id);
+
+    @Query("select i from Item as i join fetch i.owner where i.id in :ids")
+    List<Item> findAllWithOwnerByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select new ru.practicum.shareit.item.ItemDocument(i.id, i.owner.id, i.name, i.description, " +
+            "i.available, i.requestId) from Item as i")
+    List<ItemDocument> findAllDocuments();
 }
@@ -0,0 +1,135 @@
+package ru.practicum.shareit.item;
+
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * LRU-кэш страниц поиска вещей по нормализованному тексту и странице.
+ * Каждая запись помечена версией каталога; любое изменение вещей после коммита увеличивает версию,
+ * и все записи старых версий перестают отдаваться — инвалидация за O(1).
+ * Одновременные промахи по одному запросу ждут одну загрузку.
+ */
+@Component
+public class ItemSearchCache {
+    private final Map<String, Entry> entries;
+    private final Map<String, CompletableFuture<List<ItemDto>>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+
+    public ItemSearchCache(@Value("${shareit.item.search-cache.max-entries:1000}") int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public List<ItemDto> get(String text, int from, int size, Supplier<List<ItemDto>> loader) {
+        String key = normalize(text) + '\n' + from + '\n' + size;
+        long current = version.get();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.version == current) {
+                hits.incrementAndGet();
+                return entry.items;
+            }
+        }
+        misses.incrementAndGet();
+        String flight = current + "\n" + key;
+        CompletableFuture<List<ItemDto>> load = new CompletableFuture<>();
+        CompletableFuture<List<ItemDto>> running = loading.putIfAbsent(flight, load);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            loads.incrementAndGet();
+            List<ItemDto> items = List.copyOf(loader.get());
+            synchronized (this) {
+                if (current == version.get()) {
+                    entries.put(key, new Entry(current, items));
+                }
+            }
+            load.complete(items);
+            return items;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(flight, load);
+        }
+    }
+
+    /**
+     * Увеличивает версию каталога после коммита текущей транзакции.
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            version.incrementAndGet();
+        }
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getLoads() {
+        return loads.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    static String normalize(String text) {
+        return String.join(" ", text.toLowerCase(Locale.ROOT).trim().split("\\s+"));
+    }
+
+    private List<ItemDto> await(CompletableFuture<List<ItemDto>> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final long version;
+        private final List<ItemDto> items;
+    }
+}
@@ -0,0 +1,221 @@
+package ru.practicum.shareit.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Инвертированный индекс по словам названия и описания вещей.
+ * Каждое слово запроса ищется как префикс по отсортированному словарю, вещь должна подойти под все слова.
+ * Релевантность: совпадение в названии весит вдвое больше, чем в описании, полное слово — вдвое больше префикса.
+ * Время поиска зависит от числа совпавших слов и вещей, а не от размера каталога.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.item.search.backend", havingValue = "memory", matchIfMissing = true)
+public class ItemSearchIndex implements SearchBackend {
+    private static final int NAME = 1;
+    private static final int DESCRIPTION = 2;
+
+    private final ItemRepository itemRepository;
+    private final Map<Long, ItemDocument> documents = new HashMap<>();
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ItemSearchIndex(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    @PostConstruct
+    public void load() {
+        List<ItemDocument> all = itemRepository.findAllDocuments();
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+            all.forEach(this::add);
+            log.info("Поисковый индекс вещей загружен: {} вещей, {} слов", documents.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Доступные вещи по убыванию релевантности, при равенстве — по ID.
+     */
+    @Override
+    public List<ItemDto> search(String text, int from, int size) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(text)));
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String term : terms) {
+                Map<Long, Integer> previous = scores;
+                scores = match(term, previous);
+                if (previous != null) {
+                    scores.replaceAll((id, score) -> score + previous.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .skip((long) from * size)
+                    .limit(size)
+                    .map(entry -> ItemMapper.toItemDto(documents.get(entry.getKey())))
+                    .collect(toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Item item) {
+        ItemDocument document = ItemMapper.toItemDocument(item);
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                delete(document.getId());
+                add(document);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public void remove(Long itemId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                delete(itemId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public void removeByOwner(Long ownerId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                documents.values().stream()
+                        .filter(document -> ownerId.equals(document.getOwnerId()))
+                        .map(ItemDocument::getId)
+                        .collect(toList())
+                        .forEach(this::delete);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).replace('ё', 'е').split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .collect(toList());
+    }
+
+    /**
+     * Лучший вес слова запроса для каждой доступной вещи; если candidates заданы, проверяются только они.
+     */
+    private Map<Long, Integer> match(String term, Map<Long, Integer> candidates) {
+        Map<Long, Integer> best = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Integer>> entry : postings.subMap(term, true, term + Character.MAX_VALUE,
+                false).entrySet()) {
+            int multiplier = entry.getKey().equals(term) ? 2 : 1;
+            for (Map.Entry<Long, Integer> posting : entry.getValue().entrySet()) {
+                Long id = posting.getKey();
+                if (candidates != null && !candidates.containsKey(id)
+                        || !Boolean.TRUE.equals(documents.get(id).getAvailable())) {
+                    continue;
+                }
+                int fields = posting.getValue();
+                int score = multiplier * (((fields & NAME) != 0 ? 2 : 0) + ((fields & DESCRIPTION) != 0 ? 1 : 0));
+                best.merge(id, score, Math::max);
+            }
+        }
+        return best;
+    }
+
+    private void add(ItemDocument document) {
+        documents.put(document.getId(), document);
+        for (Map.Entry<String, Integer> term : terms(document).entrySet()) {
+            postings.computeIfAbsent(term.getKey(), key -> new HashMap<>()).put(document.getId(), term.getValue());
+        }
+    }
+
+    private void delete(Long itemId) {
+        ItemDocument document = documents.remove(itemId);
+        if (document == null) {
+            return;
+        }
+        for (String term : terms(document).keySet()) {
+            Map<Long, Integer> items = postings.get(term);
+            if (items != null) {
+                items.remove(itemId);
+                if (items.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private Map<String, Integer> terms(ItemDocument document) {
+        Map<String, Integer> terms = new HashMap<>();
+        tokenize(document.getName()).forEach(token -> terms.merge(token, NAME, (a, b) -> a | b));
+        tokenize(document.getDescription()).forEach(token -> terms.merge(token, DESCRIPTION, (a, b) -> a | b));
+        return terms;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
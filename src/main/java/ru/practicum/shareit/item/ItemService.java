@@ -1,9 +1,12 @@
 package ru.practicum.shareit.item;
 
+import ru.practicum.shareit.booking.dto.FreeIntervalDto;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemStatsDto;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
@@ -19,6 +22,14 @@ public interface ItemService {
 
     List<ItemDto> getItemsBySearchQuery(String text, Integer from, Integer size);
 
+    List<String> suggestItemNames(String prefix, Integer limit);
+
+    List<FreeIntervalDto> getItemAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
+
+    List<ItemStatsDto> getItemStats(Long itemId, Long userId);
+
+    List<ItemStatsDto> getOwnerItemStats(Long userId);
+
     CommentDto createComment(CommentDto commentDto, Long owner, Long itemId);
 
     Item findById(Long itemId);
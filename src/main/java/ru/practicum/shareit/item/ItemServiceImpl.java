@@ -5,8 +5,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.booking.Booking;
-import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.BookingAvailabilityIndex;
+import ru.practicum.shareit.booking.CurrentBookingIndex;
+import ru.practicum.shareit.booking.NearestBookingResolver;
+import ru.practicum.shareit.booking.NearestBookings;
+import ru.practicum.shareit.booking.dto.FreeIntervalDto;
 import ru.practicum.shareit.checker.Checker;
 import ru.practicum.shareit.exception.EntityNotFoundException;
 import ru.practicum.shareit.exception.ItemNotFoundException;
@@ -14,6 +17,7 @@ import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemStatsDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.UserRepository;
@@ -22,25 +26,51 @@ import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
 import static java.util.stream.Collectors.toList;
 
 @Slf4j
 @Service
 public class ItemServiceImpl implements ItemService {
+    private static final int MAX_SUGGESTIONS = 50;
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final CommentRepository commentRepository;
     private final Checker checker;
+    private final NearestBookingResolver nearestBookingResolver;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final ItemStatsRepository statsRepository;
+    private final CurrentBookingIndex currentBookings;
+    private final SearchBackend searchBackend;
+    private final ItemSearchCache searchCache;
+    private final ItemNameTrie itemNames;
 
     @Autowired
     @Lazy
     public ItemServiceImpl(ItemRepository repository, UserRepository userRepository,
-                           CommentRepository commentRepository, Checker checker) {
+                           CommentRepository commentRepository, Checker checker,
+                           NearestBookingResolver nearestBookingResolver,
+                           BookingAvailabilityIndex availabilityIndex,
+                           ItemStatsRepository statsRepository,
+                           CurrentBookingIndex currentBookings,
+                           SearchBackend searchBackend,
+                           ItemSearchCache searchCache,
+                           ItemNameTrie itemNames) {
         this.itemRepository = repository;
         this.userRepository = userRepository;
         this.commentRepository = commentRepository;
         this.checker = checker;
+        this.nearestBookingResolver = nearestBookingResolver;
+        this.availabilityIndex = availabilityIndex;
+        this.statsRepository = statsRepository;
+        this.currentBookings = currentBookings;
+        this.searchBackend = searchBackend;
+        this.searchCache = searchCache;
+        this.itemNames = itemNames;
     }
 
     @Transactional
@@ -58,7 +88,11 @@ public class ItemServiceImpl implements ItemService {
         if (itemDto.getRequestId() != null) {
             newItem.setRequestId(itemDto.getRequestId());
         }
-        return ItemMapper.toItemDto(itemRepository.save(newItem));
+        Item saved = itemRepository.save(newItem);
+        searchBackend.index(saved);
+        searchCache.invalidate();
+        itemNames.index(saved);
+        return ItemMapper.toItemDto(saved);
     }
 
     @Transactional
@@ -85,6 +119,10 @@ public class ItemServiceImpl implements ItemService {
         if (itemDto.getAvailable() != null) {
             item.setAvailable(itemDto.getAvailable());
         }
+        currentBookings.updateItem(item);
+        searchBackend.index(item);
+        searchCache.invalidate();
+        itemNames.index(item);
         return ItemMapper.toItemDto(item);
     }
 
@@ -100,6 +138,9 @@ public class ItemServiceImpl implements ItemService {
             throw new ItemNotFoundException("У пользователя нет такой вещи!");
         }
         itemRepository.deleteById(itemId);
+        searchBackend.remove(itemId);
+        searchCache.invalidate();
+        itemNames.remove(itemId);
     }
 
     @Transactional
@@ -111,12 +152,9 @@ public class ItemServiceImpl implements ItemService {
         }
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new ItemNotFoundException(String.format("Вещь с ID=%d не найдена", itemId)));
-        ItemDto itemDto = ItemMapper.toItemDto(itemRepository.getById(itemId));
-        if (checker.getNextBookingByItem(item) != null && userId.equals(item.getOwner().getId())) {
-            itemDto.setNextBooking(BookingMapper.toBookingDto(checker.getNextBookingByItem(item)));
-        }
-        if (checker.getLastBookingByItem(item) != null && userId.equals(item.getOwner().getId())) {
-            itemDto.setLastBooking(BookingMapper.toBookingDto(checker.getLastBookingByItem(item)));
+        ItemDto itemDto = ItemMapper.toItemDto(item);
+        if (userId.equals(item.getOwner().getId())) {
+            setNearestBookings(itemDto, nearestBookingResolver.resolve(List.of(itemId)));
         }
         List<CommentDto> commentsByItem = new ArrayList<>();
         if (commentRepository.findAllByItem(item) != null) {
@@ -137,20 +175,22 @@ public class ItemServiceImpl implements ItemService {
             throw new UserNotFoundException("Не найдено такого пользователя");
         }
         ArrayList<ItemDto> items = new ArrayList<>();
-        List<CommentDto> commentsByItem = new ArrayList<>();
-        for (Item item : itemRepository.findAllByOwnerOrderById(userRepository.getById(owner),
-                PageRequest.of(from, size))) {
+        List<Item> ownerItems = itemRepository.findAllByOwnerOrderById(userRepository.getById(owner),
+                PageRequest.of(from, size)).getContent();
+        if (ownerItems.isEmpty()) {
+            return items;
+        }
+        List<Long> itemIds = ownerItems.stream()
+                .map(Item::getId)
+                .collect(toList());
+        Map<Long, NearestBookings> nearestBookings = nearestBookingResolver.resolve(itemIds);
+        Map<Long, List<CommentDto>> commentsByItem = commentRepository.findAllWithAuthorByItemIdIn(itemIds).stream()
+                .collect(groupingBy(comment -> comment.getItem().getId(),
+                        mapping(CommentMapper::toCommentDto, toList())));
+        for (Item item : ownerItems) {
             ItemDto itemDto = ItemMapper.toItemDto(item);
-            if (checker.getLastBookingByItem(item) != null) {
-                itemDto.setLastBooking(BookingMapper.toBookingDto(checker.getLastBookingByItem(item)));
-            }
-            if (checker.getNextBookingByItem(item) != null) {
-                itemDto.setNextBooking(BookingMapper.toBookingDto(checker.getNextBookingByItem(item)));
-            }
-            for (Comment comment : commentRepository.findAllByItem(item)) {
-                commentsByItem.add(CommentMapper.toCommentDto(comment));
-            }
-            itemDto.setComments(commentsByItem);
+            setNearestBookings(itemDto, nearestBookings);
+            itemDto.setComments(commentsByItem.getOrDefault(item.getId(), new ArrayList<>()));
             items.add(itemDto);
         }
         return items;
@@ -160,32 +200,76 @@ public class ItemServiceImpl implements ItemService {
     @Override
     public List<ItemDto> getItemsBySearchQuery(String text, Integer from, Integer size) {
         if (text != null && !text.isBlank()) {
-            text = text.toLowerCase();
-            return itemRepository.getItemsBySearchQuery(text, PageRequest.of(from, size)).stream()
-                    .map(ItemMapper::toItemDto)
-                    .collect(toList());
+            if (size <= 0) {
+                throw new ValidationException("Неправильно указаны размеры");
+            }
+            return searchCache.get(text, from, size, () -> searchBackend.search(text, from, size));
         } else {
             return new ArrayList<>();
         }
     }
 
+    @Override
+    public List<String> suggestItemNames(String prefix, Integer limit) {
+        return itemNames.suggest(prefix, Math.min(limit, MAX_SUGGESTIONS));
+    }
+
+    @Override
+    public List<FreeIntervalDto> getItemAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !to.isAfter(from)) {
+            throw new ValidationException("Неправильно указано время!");
+        }
+        if (!itemRepository.existsById(itemId)) {
+            log.error("Вещь с ID={} не найдена", itemId);
+            throw new ItemNotFoundException(String.format("Вещь с ID=%d не найдена", itemId));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (!to.isAfter(now)) {
+            return List.of();
+        }
+        return availabilityIndex.getFreeIntervals(itemId, from.isBefore(now) ? now : from, to);
+    }
+
     @Transactional
     @Override
-    public CommentDto createComment(CommentDto commentDto, Long owner, Long itemId) {
-        if (!checker.isExistUser(owner)) {
-            log.error("Пользователь с ID={} не найден", owner);
+    public List<ItemStatsDto> getItemStats(Long itemId, Long userId) {
+        Item item = findById(itemId);
+        if (!item.getOwner().getId().equals(userId)) {
+            throw new ItemNotFoundException("У пользователя нет такой вещи");
+        }
+        return statsRepository.findAllByIdItemIdOrderByIdMonth(itemId).stream()
+                .map(ItemMapper::toItemStatsDto)
+                .collect(toList());
+    }
+
+    @Transactional
+    @Override
+    public List<ItemStatsDto> getOwnerItemStats(Long userId) {
+        if (!checker.isExistUser(userId)) {
+            log.error("Пользователь с ID={} не найден", userId);
             throw new UserNotFoundException("Не найдено такого пользователя");
         }
-        Comment comment = new Comment();
-        Booking booking = checker.getUserBookingForItem(itemId, owner);
-        if (booking != null) {
-            comment.setCreated(LocalDateTime.now());
-            comment.setItem(booking.getItem());
-            comment.setAuthor(booking.getBooker());
-            comment.setText(commentDto.getText());
-        } else {
+        return statsRepository.findAllByOwnerIdOrderByIdItemIdAscIdMonthAsc(userId).stream()
+                .map(ItemMapper::toItemStatsDto)
+                .collect(toList());
+    }
+
+    @Transactional
+    @Override
+    public CommentDto createComment(CommentDto commentDto, Long owner, Long itemId) {
+        Item item = findById(itemId);
+        if (!checker.hasFinishedBooking(itemId, owner)) {
+            if (!checker.isExistUser(owner)) {
+                log.error("Пользователь с ID={} не найден", owner);
+                throw new UserNotFoundException("Не найдено такого пользователя");
+            }
             throw new ValidationException("Пользователь вещь не бронировал");
         }
+        Comment comment = new Comment();
+        comment.setCreated(LocalDateTime.now());
+        comment.setItem(item);
+        comment.setAuthor(userRepository.getById(owner));
+        comment.setText(commentDto.getText());
         return CommentMapper.toCommentDto(commentRepository.save(comment));
     }
 
@@ -198,4 +282,12 @@ public class ItemServiceImpl implements ItemService {
                     return new ItemNotFoundException(String.format("Вещь с ID=%d не найдена", itemId));
                 });
     }
+
+    private void setNearestBookings(ItemDto itemDto, Map<Long, NearestBookings> nearestBookings) {
+        NearestBookings nearest = nearestBookings.get(itemDto.getId());
+        if (nearest != null) {
+            itemDto.setLastBooking(nearest.getLast());
+            itemDto.setNextBooking(nearest.getNext());
+        }
+    }
 }
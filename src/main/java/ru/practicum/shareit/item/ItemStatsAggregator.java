@@ -0,0 +1,129 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingChangedEvent;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.BookingSeriesChangedEvent;
+import ru.practicum.shareit.booking.BookingsChangedEvent;
+import ru.practicum.shareit.booking.SeriesSlot;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.item.model.ItemStats;
+import ru.practicum.shareit.item.model.ItemStatsId;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Складывает изменения бронирований в помесячную статистику вещей в той же транзакции, что и само изменение,
+ * поэтому статистика не расходится с бронированиями ни при откате, ни при падении сервиса.
+ * Изменения одной операции суммируются, и каждая строка статистики обновляется один раз, в порядке вещи и месяца.
+ * Новую строку вставляет только транзакция, заблокировавшая строку вещи: параллельная ждёт и находит её готовой.
+ * Заявки и решения относятся к месяцу начала бронирования, занятое время делится по месяцам.
+ */
+@Component
+@RequiredArgsConstructor
+public class ItemStatsAggregator {
+    private static final Comparator<ItemStatsId> ROW_ORDER = Comparator
+            .comparing(ItemStatsId::getItemId)
+            .thenComparing(ItemStatsId::getMonth);
+
+    private final ItemStatsRepository repository;
+    private final ItemRepository itemRepository;
+
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        apply(List.of(event));
+    }
+
+    @EventListener
+    public void onBookingsChanged(BookingsChangedEvent event) {
+        apply(event.getChanges());
+    }
+
+    /**
+     * Серия учитывается по вхождениям: каждое вхождение — отдельная заявка в месяце своего начала.
+     */
+    @EventListener
+    public void onSeriesChanged(BookingSeriesChangedEvent event) {
+        Map<ItemStatsId, ItemStats> deltas = new TreeMap<>(ROW_ORDER);
+        SeriesSlot series = BookingMapper.toSeriesSlot(event);
+        for (long n = 0; n <= series.lastIndex(); n++) {
+            collect(event.getItemId(), event.getOwnerId(), series.occurrenceStart(n), series.occurrenceEnd(n),
+                    event.getOldStatus(), event.getNewStatus(), deltas);
+        }
+        deltas.values().forEach(this::add);
+    }
+
+    void apply(List<BookingChangedEvent> events) {
+        Map<ItemStatsId, ItemStats> deltas = new TreeMap<>(ROW_ORDER);
+        for (BookingChangedEvent event : events) {
+            collect(event.getItemId(), event.getOwnerId(), event.getStart(), event.getEnd(),
+                    event.getOldStatus(), event.getNewStatus(), deltas);
+        }
+        deltas.values().forEach(this::add);
+    }
+
+    private void collect(Long itemId, Long ownerId, LocalDateTime start, LocalDateTime end,
+                         Status oldStatus, Status newStatus, Map<ItemStatsId, ItemStats> deltas) {
+        add(itemId, ownerId, monthOf(start), deltas,
+                oldStatus == null ? 1 : 0,
+                delta(oldStatus, newStatus, Status.APPROVED),
+                delta(oldStatus, newStatus, Status.REJECTED),
+                delta(oldStatus, newStatus, Status.EXPIRED),
+                0);
+        long sign = delta(oldStatus, newStatus, Status.APPROVED);
+        if (sign == 0) {
+            return;
+        }
+        LocalDateTime from = start;
+        while (from.isBefore(end)) {
+            LocalDateTime nextMonth = monthOf(from).plusMonths(1).atStartOfDay();
+            LocalDateTime to = nextMonth.isBefore(end) ? nextMonth : end;
+            long minutes = Duration.between(from, to).toMinutes();
+            if (minutes > 0) {
+                add(itemId, ownerId, monthOf(from), deltas, 0, 0, 0, 0, sign * minutes);
+            }
+            from = to;
+        }
+    }
+
+    private long delta(Status oldStatus, Status newStatus, Status status) {
+        return (newStatus == status ? 1 : 0) - (oldStatus == status ? 1 : 0);
+    }
+
+    private void add(Long itemId, Long ownerId, LocalDate month, Map<ItemStatsId, ItemStats> deltas,
+                     long requested, long approved, long rejected, long expired, long bookedMinutes) {
+        ItemStats delta = deltas.computeIfAbsent(new ItemStatsId(itemId, month),
+                id -> new ItemStats(id, ownerId, 0L, 0L, 0L, 0L, 0L));
+        delta.setRequested(delta.getRequested() + requested);
+        delta.setApproved(delta.getApproved() + approved);
+        delta.setRejected(delta.getRejected() + rejected);
+        delta.setExpired(delta.getExpired() + expired);
+        delta.setBookedMinutes(delta.getBookedMinutes() + bookedMinutes);
+    }
+
+    private void add(ItemStats delta) {
+        if (update(delta) == 0) {
+            itemRepository.lockIdById(delta.getId().getItemId());
+            if (update(delta) == 0) {
+                repository.save(delta);
+            }
+        }
+    }
+
+    private int update(ItemStats delta) {
+        return repository.add(delta.getId().getItemId(), delta.getId().getMonth(), delta.getRequested(),
+                delta.getApproved(), delta.getRejected(), delta.getExpired(), delta.getBookedMinutes());
+    }
+
+    private static LocalDate monthOf(LocalDateTime dateTime) {
+        return dateTime.toLocalDate().withDayOfMonth(1);
+    }
+}
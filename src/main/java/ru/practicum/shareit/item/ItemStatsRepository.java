@@ -0,0 +1,32 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.model.ItemStats;
+import ru.practicum.shareit.item.model.ItemStatsId;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ItemStatsRepository extends JpaRepository<ItemStats, ItemStatsId> {
+    List<ItemStats> findAllByIdItemIdOrderByIdMonth(Long itemId);
+
+    List<ItemStats> findAllByOwnerIdOrderByIdItemIdAscIdMonthAsc(Long ownerId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update ItemStats as s set s.requested = s.requested + :requested, " +
+            "s.approved = s.approved + :approved, " +
+            "s.rejected = s.rejected + :rejected, " +
+            "s.expired = s.expired + :expired, " +
+            "s.bookedMinutes = s.bookedMinutes + :bookedMinutes " +
+            "where s.id.itemId = :itemId and s.id.month = :month")
+    int add(@Param("itemId") Long itemId,
+            @Param("month") LocalDate month,
+            @Param("requested") long requested,
+            @Param("approved") long approved,
+            @Param("rejected") long rejected,
+            @Param("expired") long expired,
+            @Param("bookedMinutes") long bookedMinutes);
+}
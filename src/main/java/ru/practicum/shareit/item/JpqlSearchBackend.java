@@ -0,0 +1,31 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Исходный поиск: подстрока в названии или описании через LIKE, без индекса.
+ * Совпадения в названии выдаются раньше совпадений только в описании.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.item.search.backend", havingValue = "jpql")
+public class JpqlSearchBackend implements SearchBackend {
+    private final ItemRepository itemRepository;
+
+    public JpqlSearchBackend(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    @Override
+    public List<ItemDto> search(String text, int from, int size) {
+        return itemRepository.getItemsBySearchQuery(text.toLowerCase(), PageRequest.of(from, size)).stream()
+                .map(ItemMapper::toItemDto)
+                .collect(toList());
+    }
+}
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+
+/**
+ * Движок поиска вещей для GET /items/search. Реализация выбирается свойством shareit.item.search.backend.
+ * Движки по-разному находят и упорядочивают вещи, поэтому один и тот же запрос даёт разные страницы:
+ * memory (по умолчанию) — индекс в памяти, слова по префиксу, название весит вдвое больше описания,
+ * а целое слово — вдвое больше префикса; jpql — LIKE по подстроке, сначала название целиком, затем начало
+ * названия, подстрока названия и только потом описание; h2 — полнотекстовый поиск H2 по целым словам
+ * с порядком jpql; postgres — полнотекстовый поиск PostgreSQL по основам слов с префиксом, порядок по ts_rank_cd
+ * с весом A у названия и B у описания. При равной релевантности все движки упорядочивают по ID.
+ * Движки, которые сами следят за таблицей, не переопределяют методы обновления.
+ */
+public interface SearchBackend {
+    /**
+     * Доступные вещи, подходящие под текст. from — номер страницы, как в PageRequest.
+     */
+    List<ItemDto> search(String text, int from, int size);
+
+    default void index(Item item) {
+    }
+
+    default void remove(Long itemId) {
+    }
+
+    default void removeByOwner(Long ownerId) {
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemStatsDto {
+    private Long itemId;
+    private String month;
+    private Long requested;
+    private Long approved;
+    private Long rejected;
+    private Long expired;
+    private Double approvalRate;
+    private Double occupancy;
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "item_stats")
+public class ItemStats {
+    @EmbeddedId
+    private ItemStatsId id;
+    @Column(name = "owner_id")
+    private Long ownerId;
+    private Long requested;
+    private Long approved;
+    private Long rejected;
+    private Long expired;
+    @Column(name = "booked_minutes")
+    private Long bookedMinutes;
+}
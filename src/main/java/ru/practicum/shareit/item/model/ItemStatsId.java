@@ -0,0 +1,21 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Embeddable
+public class ItemStatsId implements Serializable {
+    @Column(name = "item_id")
+    private Long itemId;
+    @Column(name = "period_start")
+    private LocalDate month;
+}
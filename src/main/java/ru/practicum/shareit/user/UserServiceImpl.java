@@ -6,9 +6,14 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.BookingCounters;
+import ru.practicum.shareit.booking.CurrentBookingIndex;
 import ru.practicum.shareit.checker.Checker;
 import ru.practicum.shareit.exception.EntityAlreadyExistsException;
 import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.item.ItemNameTrie;
+import ru.practicum.shareit.item.ItemSearchCache;
+import ru.practicum.shareit.item.SearchBackend;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import javax.transaction.Transactional;
@@ -21,12 +26,24 @@ import static java.util.stream.Collectors.toList;
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final Checker checker;
+    private final BookingCounters bookingCounters;
+    private final CurrentBookingIndex currentBookings;
+    private final SearchBackend searchBackend;
+    private final ItemSearchCache searchCache;
+    private final ItemNameTrie itemNames;
 
     @Autowired
     @Lazy
-    public UserServiceImpl(UserRepository userRepository, Checker checker) {
+    public UserServiceImpl(UserRepository userRepository, Checker checker, BookingCounters bookingCounters,
+                           CurrentBookingIndex currentBookings, SearchBackend searchBackend,
+                           ItemSearchCache searchCache, ItemNameTrie itemNames) {
         this.userRepository = userRepository;
         this.checker = checker;
+        this.bookingCounters = bookingCounters;
+        this.currentBookings = currentBookings;
+        this.searchBackend = searchBackend;
+        this.searchCache = searchCache;
+        this.itemNames = itemNames;
     }
 
     @Transactional
@@ -34,7 +51,9 @@ public class UserServiceImpl implements UserService {
     public UserDto create(UserDto userDto) {
         try {
             log.info("Создание пользователя с E-mail={}", userDto.getEmail());
-            return UserMapper.toUserDto(userRepository.save(UserMapper.toUser(userDto)));
+            User user = userRepository.save(UserMapper.toUser(userDto));
+            bookingCounters.createFor(user.getId());
+            return UserMapper.toUserDto(user);
         } catch (DataIntegrityViolationException e) {
             log.error("Ошибка при создании пользователя с E-mail={}", userDto.getEmail(), e);
             throw new EntityAlreadyExistsException(
@@ -65,6 +84,7 @@ public class UserServiceImpl implements UserService {
             });
             user.setEmail(userDto.getEmail());
         }
+        currentBookings.updateUser(user);
         return UserMapper.toUserDto(user);
     }
 
@@ -73,6 +93,9 @@ public class UserServiceImpl implements UserService {
     public void delete(Long userId) {
         try {
             userRepository.deleteById(userId);
+            searchBackend.removeByOwner(userId);
+            searchCache.invalidate();
+            itemNames.removeByOwner(userId);
         } catch (EmptyResultDataAccessException e) {
             log.error("Ошибка при удалении пользователя с ID={}", userId, e);
             throw new UserNotFoundException(String.format("Пользователь с ID=%d не найден", userId));
@@ -1,4 +1,4 @@
-DROP TABLE IF EXISTS users, items, bookings, comments;
+DROP TABLE IF EXISTS item_stats, booking_counters, users, items, bookings, bookings_archive, booking_series, comments;
 
 CREATE TABLE IF NOT EXISTS users (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
@@ -19,18 +19,81 @@ CREATE TABLE IF NOT EXISTS items (
     CONSTRAINT FK_ITEM_FOR_OWNER FOREIGN KEY (owner_id) REFERENCES users (id) ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS IX_ITEMS_OWNER ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS IX_ITEMS_REQUEST ON items (request_id);
+
 CREATE TABLE IF NOT EXISTS bookings (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     start_date TIMESTAMP NOT NULL,
     end_date TIMESTAMP NOT NULL,
-    item_id INTEGER NULL,
-    booker_id INTEGER NULL,
+    item_id BIGINT NULL,
+    booker_id BIGINT NULL,
     status VARCHAR (25),
     CONSTRAINT PK_BOOKING PRIMARY KEY (id),
     CONSTRAINT FK_BOOKING_FOR_BOOKER FOREIGN KEY (booker_id) REFERENCES users (id),
     CONSTRAINT FK_BOOKING_FOR_ITEM FOREIGN KEY (item_id) REFERENCES items (id)
 );
 
+CREATE INDEX IF NOT EXISTS IX_BOOKINGS_ITEM_START ON bookings (item_id, start_date, id);
+CREATE INDEX IF NOT EXISTS IX_BOOKINGS_BOOKER_START ON bookings (booker_id, start_date, id);
+CREATE INDEX IF NOT EXISTS IX_BOOKINGS_STATUS_START ON bookings (status, start_date);
+CREATE INDEX IF NOT EXISTS IX_BOOKINGS_END ON bookings (end_date);
+
+CREATE TABLE IF NOT EXISTS bookings_archive (
+    id BIGINT NOT NULL,
+    start_date TIMESTAMP NOT NULL,
+    end_date TIMESTAMP NOT NULL,
+    item_id BIGINT NOT NULL,
+    booker_id BIGINT NOT NULL,
+    status VARCHAR (25),
+    CONSTRAINT PK_BOOKING_ARCHIVE PRIMARY KEY (id),
+    CONSTRAINT FK_BOOKING_ARCHIVE_FOR_BOOKER FOREIGN KEY (booker_id) REFERENCES users (id),
+    CONSTRAINT FK_BOOKING_ARCHIVE_FOR_ITEM FOREIGN KEY (item_id) REFERENCES items (id)
+);
+
+CREATE INDEX IF NOT EXISTS IX_BOOKINGS_ARCHIVE_ITEM_START ON bookings_archive (item_id, start_date, id);
+CREATE INDEX IF NOT EXISTS IX_BOOKINGS_ARCHIVE_BOOKER_START ON bookings_archive (booker_id, start_date, id);
+
+CREATE TABLE IF NOT EXISTS booking_series (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    start_date TIMESTAMP NOT NULL,
+    end_date TIMESTAMP NOT NULL,
+    recurrence VARCHAR (10) NOT NULL,
+    until_date TIMESTAMP NOT NULL,
+    item_id BIGINT NOT NULL,
+    booker_id BIGINT NOT NULL,
+    status VARCHAR (25),
+    CONSTRAINT PK_BOOKING_SERIES PRIMARY KEY (id),
+    CONSTRAINT FK_BOOKING_SERIES_FOR_BOOKER FOREIGN KEY (booker_id) REFERENCES users (id),
+    CONSTRAINT FK_BOOKING_SERIES_FOR_ITEM FOREIGN KEY (item_id) REFERENCES items (id)
+);
+
+CREATE INDEX IF NOT EXISTS IX_BOOKING_SERIES_ITEM ON booking_series (item_id);
+CREATE INDEX IF NOT EXISTS IX_BOOKING_SERIES_BOOKER ON booking_series (booker_id);
+CREATE INDEX IF NOT EXISTS IX_BOOKING_SERIES_STATUS ON booking_series (status);
+
+CREATE TABLE IF NOT EXISTS booking_counters (
+    user_id BIGINT NOT NULL,
+    role VARCHAR (10) NOT NULL,
+    status VARCHAR (25) NOT NULL,
+    booking_count BIGINT NOT NULL,
+    CONSTRAINT PK_BOOKING_COUNTERS PRIMARY KEY (user_id, role, status)
+);
+
+CREATE TABLE IF NOT EXISTS item_stats (
+    item_id BIGINT NOT NULL,
+    period_start DATE NOT NULL,
+    owner_id BIGINT NOT NULL,
+    requested BIGINT NOT NULL,
+    approved BIGINT NOT NULL,
+    rejected BIGINT NOT NULL,
+    expired BIGINT NOT NULL,
+    booked_minutes BIGINT NOT NULL,
+    CONSTRAINT PK_ITEM_STATS PRIMARY KEY (item_id, period_start)
+);
+
+CREATE INDEX IF NOT EXISTS IX_ITEM_STATS_OWNER ON item_stats (owner_id, item_id, period_start);
+
 CREATE TABLE IF NOT EXISTS comments (
     id BIGINT NOT NULL GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     text VARCHAR(1024) NOT NULL,
@@ -42,6 +105,8 @@ CREATE TABLE IF NOT EXISTS comments (
     CONSTRAINT FK_COMMENT_FOR_USER FOREIGN KEY (author_id) REFERENCES users (id)
 );
 
+CREATE INDEX IF NOT EXISTS IX_COMMENTS_ITEM ON comments (item_id, created);
+
 CREATE TABLE IF NOT EXISTS item_request (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     description VARCHAR(512) NOT NULL,
@@ -49,4 +114,6 @@ CREATE TABLE IF NOT EXISTS item_request (
     created TIMESTAMP NOT NULL,
     CONSTRAINT PK_ITEM_REQUEST PRIMARY KEY (id),
     CONSTRAINT FK_ITEM_REQUEST_FOR_REQUESTER FOREIGN KEY (requestor_id) REFERENCES users (id)
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS IX_ITEM_REQUEST_REQUESTOR ON item_request (requestor_id);
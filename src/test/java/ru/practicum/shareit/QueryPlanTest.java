@@ -0,0 +1,386 @@
+package ru.practicum.shareit;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.ClassUtils;
+import ru.practicum.shareit.booking.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingCounterId;
+import ru.practicum.shareit.booking.BookingCounterRepository;
+import ru.practicum.shareit.booking.BookingCounterRepositoryCustom;
+import ru.practicum.shareit.booking.BookingCursor;
+import ru.practicum.shareit.booking.BookingQuery;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingRepositoryCustom;
+import ru.practicum.shareit.booking.BookingRole;
+import ru.practicum.shareit.booking.BookingSeriesRepository;
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.dto.BookingRowDto;
+import ru.practicum.shareit.booking.dto.BookingSeriesRowDto;
+import ru.practicum.shareit.item.CommentRepository;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemStatsRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Планы запросов всех методов репозиториев на заполненной базе. Каждый метод вызывается на самом деле,
+ * а SQL, который Hibernate и JDBC-код отправили в базу, перехватывается обёрткой над DataSource
+ * и проверяется через EXPLAIN с теми же параметрами. Новый метод репозитория без вызова здесь роняет тест.
+ */
+@DataJpaTest
+@Import(QueryPlanTest.RecordingDataSource.class)
+class QueryPlanTest {
+    private static final String NOW = "TIMESTAMP '2030-01-01 00:00:00'";
+    private static final LocalDateTime NOW_TIME = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final List<Class<?>> REPOSITORIES = List.of(BookingRepository.class,
+            BookingRepositoryCustom.class, ArchivedBookingRepository.class, BookingSeriesRepository.class, BookingCounterRepository.class,
+            BookingCounterRepositoryCustom.class,
+            ItemRepository.class, ItemStatsRepository.class, CommentRepository.class, ItemRequestRepository.class,
+            UserRepository.class);
+    private static final Map<String, String> ALLOWED_SCANS = Map.of(
+            "ItemRepository.getItemsBySearchQuery", "LIKE '%text%' не может использовать B-tree индекс",
+            "ArchivedBookingRepository.findFirstEndsByStatus", "читает весь архив один раз при старте",
+            "BookingSeriesRepository.findActiveByUntilAfter", "читает серии один раз при старте",
+            "BookingSeriesRepository.findBookerIds", "читает серии один раз при старте",
+            "BookingSeriesRepository.findOwnerIds", "читает серии один раз при старте",
+            "BookingSeriesRepository.findFirstEndsByStatus", "читает серии один раз при старте",
+            "ItemRepository.findAllDocuments", "строит поисковый индекс один раз при старте");
+    private static final List<RecordedStatement> RECORDED = new CopyOnWriteArrayList<>();
+    private static volatile boolean recording;
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ArchivedBookingRepository archivedRepository;
+    @Autowired
+    private BookingSeriesRepository seriesRepository;
+    @Autowired
+    private BookingCounterRepository counterRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemStatsRepository statsRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ItemRequestRepository requestRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        execute("insert into users (id, name, email) " +
+                "select x, concat('User ', x), concat('user', x, '@test.com') from system_range(1, 1000)");
+        execute("insert into item_request (id, description, requestor_id, created) " +
+                "select x, 'Нужна вещь', mod(x, 1000) + 1, " + NOW + " from system_range(1, 500)");
+        execute("insert into items (id, name, description, available, owner_id, request_id) " +
+                "select x, concat('Вещь ', x), 'Описание', true, mod(x, 1000) + 1, " +
+                "case when mod(x, 10) = 0 then mod(x, 500) + 1 end from system_range(1, 5000)");
+        execute("insert into bookings (id, start_date, end_date, item_id, booker_id, status) " +
+                "select x, dateadd(HOUR, mod(x, 2000) - 1000, " + NOW + "), " +
+                "dateadd(HOUR, mod(x, 2000) - 998, " + NOW + "), mod(x, 5000) + 1, mod(x * 7, 1000) + 1, " +
+                "case mod(x, 4) when 0 then 'WAITING' when 1 then 'APPROVED' when 2 then 'REJECTED' " +
+                "else 'EXPIRED' end from system_range(1, 20000)");
+        execute("insert into bookings_archive (id, start_date, end_date, item_id, booker_id, status) " +
+                "select 100000 + x, dateadd(DAY, -x, " + NOW + "), dateadd(DAY, 1 - x, " + NOW + "), " +
+                "mod(x, 5000) + 1, mod(x * 3, 1000) + 1, 'APPROVED' from system_range(1, 5000)");
+        execute("insert into booking_series (id, start_date, end_date, recurrence, until_date, item_id, " +
+                "booker_id, status) select x, dateadd(DAY, mod(x, 30), " + NOW + "), " +
+                "dateadd(HOUR, 2, dateadd(DAY, mod(x, 30), " + NOW + ")), 'WEEKLY', dateadd(YEAR, 1, " + NOW + "), " +
+                "mod(x, 5000) + 1, mod(x * 11, 1000) + 1, " +
+                "case mod(x, 4) when 0 then 'WAITING' when 1 then 'APPROVED' else 'REJECTED' end " +
+                "from system_range(1, 2000)");
+        execute("insert into comments (id, text, item_id, author_id, created) " +
+                "select x, 'Отзыв', mod(x, 5000) + 1, mod(x, 1000) + 1, " + NOW + " from system_range(1, 5000)");
+        execute("insert into booking_counters (user_id, role, status, booking_count) " +
+                "select x, 'BOOKER', 'WAITING', 5 from system_range(1, 1000)");
+        execute("insert into item_stats (item_id, period_start, owner_id, requested, approved, rejected, " +
+                "expired, booked_minutes) " +
+                "select x, DATE '2030-01-01', mod(x, 1000) + 1, 4, 1, 1, 1, 60 from system_range(1, 5000)");
+        execute("analyze");
+    }
+
+    @Test
+    void everyRepositoryMethod_usesIndexes() {
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Runnable> call : calls().entrySet()) {
+            String method = call.getKey().split(" ")[0];
+            List<RecordedStatement> statements = record(call.getValue());
+            if (statements.isEmpty()) {
+                regressions.add(call.getKey() + ": метод не обратился к базе");
+            }
+            for (RecordedStatement statement : statements) {
+                String explained = explain(statement);
+                if (explained.contains("tableScan") && !ALLOWED_SCANS.containsKey(method)) {
+                    regressions.add(call.getKey() + ":\n" + explained);
+                }
+            }
+        }
+        assertTrue(regressions.isEmpty(), () -> "Запросы читают таблицу целиком:\n" + String.join("\n\n", regressions));
+    }
+
+    @Test
+    void everyRepositoryMethod_hasCall() {
+        Set<String> covered = new TreeSet<>();
+        calls().keySet().forEach(key -> covered.add(key.split(" ")[0]));
+        Set<String> missing = new TreeSet<>();
+        for (Class<?> repository : REPOSITORIES) {
+            for (Method method : repository.getDeclaredMethods()) {
+                String key = repository.getSimpleName() + "." + method.getName();
+                if (!covered.contains(key)) {
+                    missing.add(key);
+                }
+            }
+        }
+        assertTrue(missing.isEmpty(), () -> "Нет вызова для методов: " + missing);
+    }
+
+    /**
+     * Вызовы методов репозиториев. Ключ — "Репозиторий.метод", после пробела можно уточнить вариант вызова.
+     * Сущности-аргументы загружаются до записи, чтобы их SELECT не попадал в план метода.
+     */
+    private Map<String, Runnable> calls() {
+        User owner = em.find(User.class, 7L);
+        User booker = em.find(User.class, 8L);
+        Item item = em.find(Item.class, 10L);
+        List<Long> ids = List.of(1L, 2L, 3L);
+        LocalDateTime epoch = LocalDateTime.of(1970, 1, 1, 0, 0);
+        Map<String, Runnable> calls = new LinkedHashMap<>();
+        calls.put("BookingRepository.findTimelinesByItemIds",
+                () -> bookingRepository.findTimelinesByItemIds(ids, Status.APPROVED, NOW_TIME));
+        calls.put("BookingRepository.findSlotsByStatusInAndEndAfter",
+                () -> bookingRepository.findSlotsByStatusInAndEndAfter(List.of(Status.WAITING, Status.APPROVED),
+                        NOW_TIME));
+        calls.put("BookingRepository.findAllWithItemByIdIn", () -> bookingRepository.findAllWithItemByIdIn(ids));
+        calls.put("BookingRepository.lockIdsByIdInAndStatus",
+                () -> bookingRepository.lockIdsByIdInAndStatus(ids, Status.WAITING.name()));
+        calls.put("BookingRepository.updateStatusByIdInAndStatus",
+                () -> bookingRepository.updateStatusByIdInAndStatus(ids, Status.WAITING, Status.EXPIRED));
+        calls.put("BookingRepository.findByStatusAndStartBefore",
+                () -> bookingRepository.findByStatusAndStartBefore(Status.WAITING, NOW_TIME, PageRequest.of(0, 500)));
+        calls.put("BookingRepository.findIdsByEndBefore",
+                () -> bookingRepository.findIdsByEndBefore(NOW_TIME.minusDays(30), 1000));
+        calls.put("BookingRepository.findFirstEndsByStatus",
+                () -> bookingRepository.findFirstEndsByStatus(Status.APPROVED));
+        calls.put("BookingRepository.findActiveByEndAfter", () -> bookingRepository.findActiveByEndAfter(NOW_TIME));
+        calls.put("BookingRepository.streamByOwnerId", () -> {
+            try (Stream<BookingRowDto> rows = bookingRepository.streamByOwnerId(7L, epoch, NOW_TIME)) {
+                rows.count();
+            }
+        });
+        calls.put("BookingRepository.copyToArchive", () -> bookingRepository.copyToArchive(ids));
+        calls.put("BookingRepository.deleteByIdIn", () -> bookingRepository.deleteByIdIn(ids));
+        calls.put("BookingRepositoryCustom.insertAll", () -> bookingRepository.insertAll(List.of(
+                new Booking(null, NOW_TIME, NOW_TIME.plusHours(1), item, booker, Status.WAITING),
+                new Booking(null, NOW_TIME.plusHours(2), NOW_TIME.plusHours(3), item, booker, Status.WAITING))));
+        for (BookingState state : BookingState.values()) {
+            for (BookingRole role : BookingRole.values()) {
+                calls.put("BookingRepositoryCustom.findByQuery " + role + " " + state, () -> bookingRepository
+                        .findByQuery(new BookingQuery(role, 7L, state, NOW_TIME, 20, 10)));
+                calls.put("BookingRepositoryCustom.findByQuery " + role + " " + state + " with cursor",
+                        () -> bookingRepository.findByQuery(new BookingQuery(role, 7L, state, NOW_TIME, 0, 10,
+                                new BookingCursor(NOW_TIME, 100L))));
+            }
+        }
+        calls.put("ArchivedBookingRepository.findLastByItemIds",
+                () -> archivedRepository.findLastByItemIds(ids, Status.APPROVED));
+        calls.put("ArchivedBookingRepository.streamByOwnerId", () -> {
+            try (Stream<BookingRowDto> rows = archivedRepository.streamByOwnerId(7L, epoch, NOW_TIME)) {
+                rows.count();
+            }
+        });
+        calls.put("ArchivedBookingRepository.findFirstEndsByStatus",
+                () -> archivedRepository.findFirstEndsByStatus(Status.APPROVED));
+        calls.put("BookingSeriesRepository.findSlotsByStatusIn",
+                () -> seriesRepository.findSlotsByStatusIn(List.of(Status.WAITING, Status.APPROVED)));
+        calls.put("BookingSeriesRepository.findActiveByUntilAfter",
+                () -> seriesRepository.findActiveByUntilAfter(NOW_TIME));
+        calls.put("BookingSeriesRepository.findFirstEndsByStatus",
+                () -> seriesRepository.findFirstEndsByStatus(Status.APPROVED));
+        calls.put("BookingSeriesRepository.findBookerIds", () -> seriesRepository.findBookerIds());
+        calls.put("BookingSeriesRepository.findOwnerIds", () -> seriesRepository.findOwnerIds());
+        calls.put("BookingSeriesRepository.streamByOwnerId", () -> {
+            try (Stream<BookingSeriesRowDto> rows = seriesRepository.streamByOwnerId(7L, epoch, NOW_TIME)) {
+                rows.count();
+            }
+        });
+        calls.put("BookingSeriesRepository.findWithLockById", () -> seriesRepository.findWithLockById(10L));
+        calls.put("BookingCounterRepository.findAllByIdUserIdAndIdRole",
+                () -> counterRepository.findAllByIdUserIdAndIdRole(7L, BookingRole.BOOKER));
+        calls.put("BookingCounterRepository.sumByUserAndRole",
+                () -> counterRepository.sumByUserAndRole(7L, BookingRole.BOOKER, List.of(Status.WAITING)));
+        calls.put("BookingCounterRepository.add",
+                () -> counterRepository.add(7L, BookingRole.BOOKER, Status.WAITING, 1));
+        calls.put("BookingCounterRepository.insertZero",
+                () -> counterRepository.insertZero(7L, BookingRole.OWNER.name(), Status.WAITING.name()));
+        calls.put("BookingCounterRepositoryCustom.addAll", () -> counterRepository.addAll(Map.of(
+                new BookingCounterId(7L, BookingRole.BOOKER, Status.WAITING), 3L)));
+        calls.put("ItemRepository.lockIdById", () -> itemRepository.lockIdById(10L));
+        calls.put("ItemRepository.findAllByOwnerOrderById",
+                () -> itemRepository.findAllByOwnerOrderById(owner, PageRequest.of(0, 10)));
+        calls.put("ItemRepository.getItemsBySearchQuery",
+                () -> itemRepository.getItemsBySearchQuery("вещь 1", PageRequest.of(0, 10)));
+        calls.put("ItemRepository.findByRequestId", () -> itemRepository.findByRequestId(11L));
+        calls.put("ItemRepository.getOwnerById", () -> itemRepository.getOwnerById(10L));
+        calls.put("ItemRepository.findAllWithOwnerByIdIn", () -> itemRepository.findAllWithOwnerByIdIn(ids));
+        calls.put("ItemRepository.findAllDocuments", () -> itemRepository.findAllDocuments());
+        calls.put("ItemStatsRepository.findAllByIdItemIdOrderByIdMonth",
+                () -> statsRepository.findAllByIdItemIdOrderByIdMonth(10L));
+        calls.put("ItemStatsRepository.findAllByOwnerIdOrderByIdItemIdAscIdMonthAsc",
+                () -> statsRepository.findAllByOwnerIdOrderByIdItemIdAscIdMonthAsc(7L));
+        calls.put("ItemStatsRepository.add",
+                () -> statsRepository.add(10L, LocalDate.of(2030, 1, 1), 1, 0, 0, 0, 0));
+        calls.put("CommentRepository.findAllByItemId",
+                () -> commentRepository.findAllByItemId(10L, Sort.by(Sort.Direction.DESC, "created")));
+        calls.put("CommentRepository.findAllByItem", () -> commentRepository.findAllByItem(item));
+        calls.put("CommentRepository.findAllWithAuthorByItemIdIn",
+                () -> commentRepository.findAllWithAuthorByItemIdIn(ids));
+        calls.put("ItemRequestRepository.findByRequestorId", () -> requestRepository.findByRequestorId(7L));
+        calls.put("UserRepository.findByEmail", () -> userRepository.findByEmail("user7@test.com"));
+        return calls;
+    }
+
+    /**
+     * Выполняет вызов с пустым контекстом персистентности и возвращает отправленные в базу запросы
+     * без повторов: пакет из одинаковых INSERT проверяется один раз.
+     */
+    private List<RecordedStatement> record(Runnable call) {
+        em.flush();
+        em.clear();
+        RECORDED.clear();
+        recording = true;
+        try {
+            call.run();
+            em.flush();
+        } finally {
+            recording = false;
+        }
+        Map<String, RecordedStatement> distinct = new LinkedHashMap<>();
+        RECORDED.forEach(statement -> distinct.putIfAbsent(statement.sql, statement));
+        return new ArrayList<>(distinct.values());
+    }
+
+    private String explain(RecordedStatement statement) {
+        return em.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement explain = connection.prepareStatement("explain " + statement.sql)) {
+                for (Map.Entry<Integer, Object> parameter : statement.parameters.entrySet()) {
+                    explain.setObject(parameter.getKey(), parameter.getValue());
+                }
+                try (ResultSet plan = explain.executeQuery()) {
+                    plan.next();
+                    return statement.sql + "\n" + plan.getString(1);
+                }
+            }
+        });
+    }
+
+    private void execute(String sql) {
+        em.getEntityManager().createNativeQuery(sql).executeUpdate();
+    }
+
+    /**
+     * Оборачивает DataSource теста: подготовленные запросы запоминают параметры и при выполнении,
+     * пока идёт запись, попадают в RECORDED вместе с ними.
+     */
+    @TestConfiguration
+    static class RecordingDataSource {
+        @Bean
+        static BeanPostProcessor recordStatements() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? wrap(bean) : bean;
+                }
+            };
+        }
+
+        private static Object wrap(Object target) {
+            return Proxy.newProxyInstance(target.getClass().getClassLoader(), ClassUtils.getAllInterfaces(target),
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("equals")) {
+                            return proxy == args[0];
+                        }
+                        if (method.getName().equals("hashCode")) {
+                            return System.identityHashCode(proxy);
+                        }
+                        Object result = invoke(target, method, args);
+                        if (result instanceof PreparedStatement && args != null && args[0] instanceof String) {
+                            return record((String) args[0], (PreparedStatement) result);
+                        }
+                        return result instanceof Connection ? wrap(result) : result;
+                    });
+        }
+
+        private static Object record(String sql, PreparedStatement target) {
+            Map<Integer, Object> parameters = new TreeMap<>();
+            return Proxy.newProxyInstance(target.getClass().getClassLoader(), ClassUtils.getAllInterfaces(target),
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                            parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                        } else if (name.equals("clearParameters")) {
+                            parameters.clear();
+                        } else if (recording && (args == null || args.length == 0) && (name.startsWith("execute")
+                                || name.equals("addBatch"))) {
+                            RECORDED.add(new RecordedStatement(sql, new TreeMap<>(parameters)));
+                        }
+                        return invoke(target, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static class RecordedStatement {
+        private final String sql;
+        private final Map<Integer, Object> parameters;
+
+        RecordedStatement(String sql, Map<Integer, Object> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+    }
+}
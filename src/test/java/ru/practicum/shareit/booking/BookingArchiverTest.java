@@ -0,0 +1,66 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingArchiverTest {
+    @Mock
+    private BookingRepository repository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private BookingArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        archiver = new BookingArchiver(repository, transactionTemplate, Duration.ofDays(30), 2, 10);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void archive_movesEndedBookingsInBatches() {
+        when(repository.findIdsByEndBefore(any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+
+        archiver.archive();
+
+        verify(repository).copyToArchive(List.of(1L, 2L));
+        verify(repository).deleteByIdIn(List.of(1L, 2L));
+        verify(repository).copyToArchive(List.of(3L));
+        verify(repository).deleteByIdIn(List.of(3L));
+        assertEquals(3, archiver.getArchived());
+    }
+
+    @Test
+    void archive_usesHorizonAsCutoff() {
+        when(repository.findIdsByEndBefore(any(LocalDateTime.class), eq(2))).thenReturn(List.of());
+
+        archiver.archive();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).findIdsByEndBefore(cutoff.capture(), eq(2));
+        assertTrue(cutoff.getValue().isBefore(LocalDateTime.now().minusDays(29)));
+        verify(repository, never()).copyToArchive(anyCollection());
+    }
+}
@@ -0,0 +1,120 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import ru.practicum.shareit.booking.dto.FreeIntervalDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingAvailabilityIndexTest {
+    @Mock
+    private BookingRepository repository;
+    @Mock
+    private BookingSeriesRepository seriesRepository;
+
+    @InjectMocks
+    private BookingAvailabilityIndex index;
+
+    private final LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findSlotsByStatusInAndEndAfter(anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of(
+                        new BookingSlot(1L, 1L, base, base.plusHours(2)),
+                        new BookingSlot(2L, 1L, base.plusHours(4), base.plusHours(6))));
+        index.load();
+    }
+
+    @Test
+    void hasOverlap_intersectingInterval_returnsTrue() {
+        assertTrue(index.hasOverlap(1L, base.plusHours(1), base.plusHours(3)));
+        assertTrue(index.hasOverlap(1L, base.plusHours(3), base.plusHours(5)));
+        assertTrue(index.hasOverlap(1L, base.minusHours(1), base.plusHours(7)));
+    }
+
+    @Test
+    void hasOverlap_freeGapOrOtherItem_returnsFalse() {
+        assertFalse(index.hasOverlap(1L, base.plusHours(2), base.plusHours(4)));
+        assertFalse(index.hasOverlap(1L, base.plusHours(6), base.plusHours(8)));
+        assertFalse(index.hasOverlap(2L, base, base.plusHours(2)));
+    }
+
+    @Test
+    void reserveAndRelease_updateIndex() {
+        BookingSlot slot = new BookingSlot(3L, 1L, base.plusHours(2), base.plusHours(4));
+
+        index.reserve(slot);
+        assertTrue(index.hasOverlap(1L, base.plusHours(3), base.plusHours(3).plusMinutes(30)));
+
+        index.release(slot);
+        assertFalse(index.hasOverlap(1L, base.plusHours(3), base.plusHours(3).plusMinutes(30)));
+    }
+
+    @Test
+    void getFreeIntervals_returnsGapsClippedToWindow() {
+        assertEquals(List.of(
+                        new FreeIntervalDto(base.plusHours(2), base.plusHours(4)),
+                        new FreeIntervalDto(base.plusHours(6), base.plusHours(8))),
+                index.getFreeIntervals(1L, base.plusHours(1), base.plusHours(8)));
+        assertEquals(List.of(new FreeIntervalDto(base.minusHours(1), base)),
+                index.getFreeIntervals(1L, base.minusHours(1), base.plusHours(1)));
+        assertTrue(index.getFreeIntervals(1L, base.plusHours(4), base.plusHours(5)).isEmpty());
+        assertEquals(List.of(new FreeIntervalDto(base, base.plusHours(1))),
+                index.getFreeIntervals(2L, base, base.plusHours(1)));
+    }
+
+    @Test
+    void series_occupiesEveryOccurrenceWithoutExpandingIt() {
+        SeriesSlot weekly = new SeriesSlot(7L, 1L, 5L, base.plusDays(1), base.plusDays(1).plusHours(3),
+                Recurrence.WEEKLY, base.plusDays(1).plusWeeks(52), Status.APPROVED);
+
+        index.reserveSeries(weekly);
+
+        assertTrue(index.hasOverlap(1L, base.plusDays(1).plusWeeks(30).plusHours(1),
+                base.plusDays(1).plusWeeks(30).plusHours(2)));
+        assertFalse(index.hasOverlap(1L, base.plusDays(1).plusWeeks(30).plusHours(3),
+                base.plusDays(1).plusWeeks(30).plusHours(5)));
+        assertFalse(index.hasOverlap(1L, base.plusDays(1).plusWeeks(53), base.plusDays(1).plusWeeks(53).plusHours(1)));
+        assertEquals(List.of(
+                        new FreeIntervalDto(base.plusDays(8).minusHours(1), base.plusDays(8)),
+                        new FreeIntervalDto(base.plusDays(8).plusHours(3), base.plusDays(8).plusHours(4))),
+                index.getFreeIntervals(1L, base.plusDays(8).minusHours(1), base.plusDays(8).plusHours(4)));
+
+        index.releaseSeries(weekly);
+        assertFalse(index.hasOverlap(1L, base.plusDays(1).plusWeeks(30), base.plusDays(1).plusWeeks(30).plusHours(1)));
+    }
+
+    @Test
+    void hasOverlap_series_checksSinglesAndOtherSeries() {
+        SeriesSlot daily = new SeriesSlot(7L, 1L, 5L, base.plusDays(1), base.plusDays(1).plusHours(1),
+                Recurrence.DAILY, base.plusDays(30), Status.WAITING);
+        SeriesSlot hitsSingle = new SeriesSlot(8L, 1L, 5L, base.minusDays(2).plusHours(5),
+                base.minusDays(2).plusHours(6), Recurrence.DAILY, base.plusDays(5), Status.WAITING);
+        SeriesSlot weeklyClash = new SeriesSlot(9L, 1L, 5L, base.plusDays(3).plusMinutes(30),
+                base.plusDays(3).plusHours(2), Recurrence.WEEKLY, base.plusDays(60), Status.WAITING);
+        SeriesSlot weeklyFree = new SeriesSlot(10L, 1L, 5L, base.plusDays(3).plusHours(1),
+                base.plusDays(3).plusHours(2), Recurrence.WEEKLY, base.plusDays(60), Status.WAITING);
+
+        index.reserveSeries(daily);
+
+        assertTrue(index.hasOverlap(hitsSingle));
+        assertTrue(index.hasOverlap(weeklyClash));
+        assertFalse(index.hasOverlap(weeklyFree));
+        assertFalse(index.hasOverlap(daily));
+    }
+}
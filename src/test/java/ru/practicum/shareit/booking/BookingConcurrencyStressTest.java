@@ -0,0 +1,102 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingFullDto;
+import ru.practicum.shareit.exception.BookingNotAvailableException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+@SpringBootTest
+class BookingConcurrencyStressTest {
+    private static final int THREADS = 64;
+    private static final int ATTEMPTS_PER_THREAD = 20;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Test
+    void postRequest_sameItemFromManyThreads_neverOverlaps() throws InterruptedException {
+        UserDto owner = userService.create(new UserDto(null, "Stress owner", "stress-owner@test.com"));
+        UserDto booker = userService.create(new UserDto(null, "Stress booker", "stress-booker@test.com"));
+        Item item = itemRepository.save(new Item(null, "Дрель", "Популярная дрель", true,
+                userRepository.findById(owner.getId()).orElseThrow(), null));
+        LocalDateTime base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < THREADS; i++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+                    LocalDateTime from = base.plusHours(random.nextInt(24 * 30));
+                    BookingDto booking = new BookingDto(null, from, from.plusHours(1 + random.nextInt(6)), null,
+                            booker.getId(), item.getId(), null);
+                    try {
+                        bookingService.postRequest(booker.getId(), booking);
+                        created.incrementAndGet();
+                    } catch (BookingNotAvailableException e) {
+                        rejected.incrementAndGet();
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        log.info("{} потоков, {} попыток: создано {}, отклонено {}, {} запросов/с", THREADS,
+                THREADS * ATTEMPTS_PER_THREAD, created.get(), rejected.get(),
+                THREADS * ATTEMPTS_PER_THREAD * 1000L / elapsedMillis);
+        assertTrue(failures.isEmpty(), () -> failures.peek().toString());
+        assertTrue(created.get() > 0);
+
+        List<BookingFullDto> bookings = new ArrayList<>(bookingService.getBookingPageForUser(booker.getId(),
+                "FUTURE", "", THREADS * ATTEMPTS_PER_THREAD).getContent());
+        bookings.sort(Comparator.comparing(BookingFullDto::getStart));
+        assertEquals(created.get(), bookings.size());
+        for (int i = 1; i < bookings.size(); i++) {
+            assertFalse(bookings.get(i).getStart().isBefore(bookings.get(i - 1).getEnd()),
+                    bookings.get(i - 1).getId() + " пересекается с " + bookings.get(i).getId());
+        }
+    }
+}
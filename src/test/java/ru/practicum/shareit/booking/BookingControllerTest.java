@@ -11,11 +11,17 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingFullDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingSeriesDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.User;
@@ -23,6 +29,7 @@ import ru.practicum.shareit.user.User;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
@@ -30,6 +37,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 public class BookingControllerTest {
     @Mock
     private BookingService service;
+    @Mock
+    private BookingExporter exporter;
     @InjectMocks
     private BookingController controller;
     private MockMvc mvc;
@@ -89,6 +98,55 @@ public class BookingControllerTest {
                 .andExpect(MockMvcResultMatchers.content().json(mapper.writeValueAsString(expectedBookingFullDto)));
     }
 
+    @Test
+    void testPostRequests() throws Exception {
+        List<BookingDto> cart = List.of(BookingMapper.toBookingDto(booking1));
+        List<BookingFullDto> expected = List.of(BookingMapper.toBookingFullDto(booking1));
+        Mockito.when(service.postRequests(2L, cart)).thenReturn(expected);
+
+        mvc.perform(post("/bookings/batch")
+                        .header(OWNER, String.valueOf(2))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(cart)))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.content().json(mapper.writeValueAsString(expected)));
+    }
+
+    @Test
+    void testPostSeries() throws Exception {
+        BookingSeriesDto seriesDto = new BookingSeriesDto(null, 1L, null, booking1.getStart(), booking1.getEnd(),
+                Recurrence.WEEKLY, booking1.getStart().plusWeeks(10), null);
+        BookingSeriesDto expected = new BookingSeriesDto(5L, 1L, 2L, booking1.getStart(), booking1.getEnd(),
+                Recurrence.WEEKLY, booking1.getStart().plusWeeks(10), Status.WAITING);
+        Mockito.when(service.postSeries(2L, seriesDto)).thenReturn(expected);
+
+        mvc.perform(post("/bookings/series")
+                        .header(OWNER, String.valueOf(2))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(seriesDto)))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(5))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.recurrence").value("WEEKLY"));
+    }
+
+    @Test
+    void testExportForOwner() throws Exception {
+        Mockito.when(exporter.exportForOwner(2L, BookingExportFormat.CSV, null, null))
+                .thenReturn(out -> out.write("id\n1\n".getBytes()));
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/bookings/owner/export")
+                        .header(OWNER, String.valueOf(2))
+                        .param("format", "csv"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("Content-Disposition",
+                        "attachment; filename=bookings.csv"))
+                .andExpect(MockMvcResultMatchers.content().string("id\n1\n"));
+    }
+
     @Test
     void testPostApproveBooking() throws Exception {
         BookingFullDto expectedBookingFullDto = new BookingFullDto();
@@ -148,4 +206,48 @@ public class BookingControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.content().json(mapper.writeValueAsString(expectedBookingFullDtos)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetBookingPageForOwner() throws Exception {
+        BookingPageDto expectedPage = new BookingPageDto(new ArrayList<>(), true, "cursor");
+        Mockito.when(service.getBookingPageForOwner(1L, "ALL", "", 10))
+                .thenReturn(expectedPage);
+
+        mvc.perform(MockMvcRequestBuilders.get("/bookings/owner")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(OWNER, 1)
+                        .param("cursor", ""))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.hasNext").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").value("cursor"));
+    }
+
+    @Test
+    void testApproveBookings() throws Exception {
+        BookingApprovalDto approval = new BookingApprovalDto(List.of(1L, 2L), true);
+        Mockito.when(service.approveBookings(2L, approval)).thenReturn(List.of(
+                new BookingApprovalResultDto(1L, true, Status.APPROVED, null),
+                new BookingApprovalResultDto(2L, false, null, "Бронирование с ID=2 не найдено")));
+
+        mvc.perform(MockMvcRequestBuilders.patch("/bookings/approve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(OWNER, 2)
+                        .content(mapper.writeValueAsString(approval)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].updated").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("APPROVED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].updated").value(false));
+    }
+
+    @Test
+    void testGetBookingCountsForOwner() throws Exception {
+        Mockito.when(service.getBookingCountsForOwner(1L))
+                .thenReturn(new BookingCountsDto(2L, Map.of(Status.WAITING, 2L)));
+
+        mvc.perform(MockMvcRequestBuilders.get("/bookings/owner/counts")
+                        .header(OWNER, 1))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.total").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.statuses.WAITING").value(2));
+    }
+}
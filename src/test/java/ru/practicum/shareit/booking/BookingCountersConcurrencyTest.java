@@ -0,0 +1,151 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.exception.BookingNotAvailableException;
+import ru.practicum.shareit.exception.StatusChangingNotAvailableException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Одиночные и пакетные решения владельца гоняются с просрочкой тех же бронирований;
+ * после этого счётчики должны совпасть с count(*) по таблице для каждой роли и статуса.
+ */
+@SpringBootTest
+class BookingCountersConcurrencyTest {
+    private static final int BOOKINGS = 200;
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 100;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingExpirationSweeper sweeper;
+    @Autowired
+    private BookingCounters counters;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void approvalsRacingWithSweeps_keepCountersEqualToRowCounts() throws Exception {
+        UserDto owner = userService.create(new UserDto(null, "Counters owner", "counters-owner@test.com"));
+        UserDto booker = userService.create(new UserDto(null, "Counters booker", "counters-booker@test.com"));
+        Item item = itemRepository.save(new Item(null, "Палатка", "Для теста счётчиков", true,
+                userRepository.findById(owner.getId()).orElseThrow(), null));
+        LocalDateTime base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            ids.add(bookingService.postRequest(booker.getId(), new BookingDto(null, base.plusHours(i),
+                    base.plusHours(i + 1), null, booker.getId(), item.getId(), null)).getId());
+        }
+        jdbcTemplate.update("update bookings set start_date = dateadd(DAY, -2, start_date) where item_id = ?",
+                item.getId());
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean deciding = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        executor.submit(() -> {
+            start.await();
+            while (deciding.get()) {
+                try {
+                    sweeper.sweep();
+                } catch (ConcurrencyFailureException e) {
+                    // строку держит владелец, следующий проход попробует снова
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }
+            return null;
+        });
+        List<Future<?>> deciders = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            deciders.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+                    boolean approve = random.nextBoolean();
+                    try {
+                        if (random.nextInt(4) == 0) {
+                            List<Long> batch = new ArrayList<>();
+                            for (int j = 0; j < 5; j++) {
+                                batch.add(ids.get(random.nextInt(ids.size())));
+                            }
+                            bookingService.approveBookings(owner.getId(), new BookingApprovalDto(batch, approve));
+                        } else {
+                            bookingService.postApproveBooking(ids.get(random.nextInt(ids.size())), owner.getId(),
+                                    approve);
+                        }
+                    } catch (StatusChangingNotAvailableException | BookingNotAvailableException
+                             | ConcurrencyFailureException e) {
+                        // проигравший гонку получает отказ, а не портит счётчики
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        try {
+            for (Future<?> decider : deciders) {
+                decider.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            deciding.set(false);
+        }
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertTrue(failures.isEmpty(), () -> failures.peek().toString());
+
+        assertCountersMatchRows(booker.getId(), BookingRole.BOOKER, "booker_id = ?");
+        assertCountersMatchRows(owner.getId(), BookingRole.OWNER,
+                "item_id in (select id from items where owner_id = ?)");
+    }
+
+    private void assertCountersMatchRows(Long userId, BookingRole role, String predicate) {
+        Map<Status, Long> rows = new EnumMap<>(Status.class);
+        for (Status status : Status.values()) {
+            rows.put(status, 0L);
+        }
+        jdbcTemplate.query("select status, count(*) from bookings where " + predicate + " group by status",
+                resultSet -> {
+                    rows.put(Status.valueOf(resultSet.getString(1)), resultSet.getLong(2));
+                }, userId);
+        assertEquals(rows, counters.getCounts(userId, role).getStatuses(),
+                role + " " + userId);
+        assertEquals(BOOKINGS, rows.values().stream().mapToLong(Long::longValue).sum());
+    }
+}
@@ -0,0 +1,102 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Import(BookingCounters.class)
+class BookingCountersTest {
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private BookingCounters counters;
+
+    private User owner;
+    private User booker;
+
+    @BeforeEach
+    void setUp() {
+        owner = em.persist(new User(null, "Owner", "owner@test.com"));
+        booker = em.persist(new User(null, "Booker", "booker@test.com"));
+    }
+
+    @Test
+    void onBookingChanged_movesCountBetweenStatusesForBothRoles() {
+        counters.onBookingChanged(event(1L, null, Status.WAITING));
+        counters.onBookingChanged(event(2L, null, Status.WAITING));
+        counters.onBookingChanged(event(1L, Status.WAITING, Status.APPROVED));
+
+        BookingCountsDto bookerCounts = counters.getCounts(booker.getId(), BookingRole.BOOKER);
+        BookingCountsDto ownerCounts = counters.getCounts(owner.getId(), BookingRole.OWNER);
+
+        assertEquals(2, bookerCounts.getTotal());
+        assertEquals(1, bookerCounts.getStatuses().get(Status.WAITING));
+        assertEquals(1, bookerCounts.getStatuses().get(Status.APPROVED));
+        assertEquals(0, bookerCounts.getStatuses().get(Status.REJECTED));
+        assertEquals(bookerCounts, ownerCounts);
+        assertEquals(0, counters.getCounts(owner.getId(), BookingRole.BOOKER).getTotal());
+    }
+
+    @Test
+    void onBookingsChanged_sumsChangesOfWholeBatch() {
+        counters.createFor(booker.getId());
+        counters.onBookingsChanged(new BookingsChangedEvent(List.of(
+                event(1L, null, Status.WAITING),
+                event(2L, null, Status.WAITING),
+                event(3L, null, Status.WAITING),
+                event(4L, null, Status.REJECTED),
+                event(4L, Status.REJECTED, Status.WAITING))));
+
+        BookingCountsDto bookerCounts = counters.getCounts(booker.getId(), BookingRole.BOOKER);
+        assertEquals(4, bookerCounts.getTotal());
+        assertEquals(4, bookerCounts.getStatuses().get(Status.WAITING));
+        assertEquals(0, bookerCounts.getStatuses().get(Status.REJECTED));
+        assertEquals(bookerCounts.getStatuses(), counters.getCounts(owner.getId(), BookingRole.OWNER).getStatuses());
+    }
+
+    @Test
+    void hasNone_checksStatusesMatchingState() {
+        counters.onBookingChanged(event(1L, null, Status.WAITING));
+        counters.onBookingChanged(event(1L, Status.WAITING, Status.REJECTED));
+
+        assertTrue(counters.hasNone(booker.getId(), BookingRole.BOOKER, BookingState.WAITING));
+        assertFalse(counters.hasNone(booker.getId(), BookingRole.BOOKER, BookingState.REJECTED));
+        assertFalse(counters.hasNone(owner.getId(), BookingRole.OWNER, BookingState.FUTURE));
+        assertTrue(counters.hasNone(owner.getId(), BookingRole.BOOKER, BookingState.ALL));
+        assertTrue(counters.hasNone(owner.getId(), BookingRole.OWNER, BookingState.PAST));
+        assertFalse(counters.hasNone(booker.getId(), BookingRole.BOOKER, BookingState.PAST));
+    }
+
+    @Test
+    void createFor_thenChange_onlyUpdatesExistingRows() {
+        User fresh = em.persist(new User(null, "Fresh", "fresh@test.com"));
+
+        counters.createFor(fresh.getId());
+        counters.onBookingChanged(new BookingChangedEvent(3L, 1L, "Дрель", owner.getId(), fresh.getId(),
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), null, Status.WAITING));
+
+        BookingCountsDto counts = counters.getCounts(fresh.getId(), BookingRole.BOOKER);
+        assertEquals(1, counts.getTotal());
+        assertEquals(Status.values().length, counts.getStatuses().size());
+        assertTrue(counters.hasNone(fresh.getId(), BookingRole.OWNER, BookingState.ALL));
+    }
+
+    private BookingChangedEvent event(Long bookingId, Status oldStatus, Status newStatus) {
+        LocalDateTime start = LocalDateTime.now().plusDays(bookingId);
+        return new BookingChangedEvent(bookingId, 1L, "Дрель", owner.getId(), booker.getId(), start,
+                start.plusHours(1), oldStatus, newStatus);
+    }
+}
@@ -0,0 +1,109 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingExpirationSweeperTest {
+    @Mock
+    private BookingRepository repository;
+    @Mock
+    private BookingAvailabilityIndex availabilityIndex;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private BookingExpirationSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        sweeper = new BookingExpirationSweeper(repository, availabilityIndex, eventPublisher, transactionTemplate,
+                2, 10);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void sweep_expiresBookingsInBatchesUntilShortBatch() {
+        when(repository.findByStatusAndStartBefore(eq(Status.WAITING), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(booking(1L), booking(2L)), List.of(booking(3L)));
+
+        when(repository.lockIdsByIdInAndStatus(anyCollection(), eq("WAITING")))
+                .thenAnswer(invocation -> new ArrayList<>(invocation.<Collection<Long>>getArgument(0)));
+        when(repository.updateStatusByIdInAndStatus(anyCollection(), eq(Status.WAITING), eq(Status.EXPIRED)))
+                .thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).size());
+
+        sweeper.sweep();
+
+        verify(repository).updateStatusByIdInAndStatus(Set.of(1L, 2L), Status.WAITING, Status.EXPIRED);
+        verify(repository).updateStatusByIdInAndStatus(Set.of(3L), Status.WAITING, Status.EXPIRED);
+        verify(availabilityIndex, times(3)).release(any(BookingSlot.class));
+        verify(eventPublisher, times(3)).publishEvent(any(BookingChangedEvent.class));
+        assertEquals(3, sweeper.getExpired());
+        assertEquals(1, sweeper.getRuns());
+    }
+
+    @Test
+    void sweep_bookingApprovedBeforeLock_isSkipped() {
+        Booking approvedMeanwhile = booking(1L);
+        Booking stillWaiting = booking(2L);
+        when(repository.findByStatusAndStartBefore(eq(Status.WAITING), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(approvedMeanwhile, stillWaiting), List.of());
+        when(repository.lockIdsByIdInAndStatus(List.of(1L, 2L), "WAITING")).thenReturn(List.of(2L));
+        when(repository.updateStatusByIdInAndStatus(Set.of(2L), Status.WAITING, Status.EXPIRED)).thenReturn(1);
+
+        sweeper.sweep();
+
+        ArgumentCaptor<BookingChangedEvent> event = ArgumentCaptor.forClass(BookingChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(2L, event.getValue().getBookingId());
+        verify(availabilityIndex, times(1)).release(any(BookingSlot.class));
+        assertEquals(Status.WAITING, approvedMeanwhile.getStatus());
+        assertEquals(1, sweeper.getExpired());
+    }
+
+    @Test
+    void sweep_nothingToExpire_skipsUpdate() {
+        when(repository.findByStatusAndStartBefore(eq(Status.WAITING), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        sweeper.sweep();
+
+        verify(repository, never()).updateStatusByIdInAndStatus(any(), any(), any());
+        assertEquals(0, sweeper.getExpired());
+    }
+
+    private Booking booking(Long id) {
+        User owner = new User(1L, "Owner", "owner@test.com");
+        User booker = new User(2L, "Booker", "booker@test.com");
+        Item item = new Item(1L, "Дрель", "Простая дрель", true, owner, null);
+        return new Booking(id, LocalDateTime.now().minusHours(id), LocalDateTime.now().plusHours(id), item, booker,
+                Status.WAITING);
+    }
+}
@@ -0,0 +1,142 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingFullDto;
+import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+class BookingExporterTest {
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private BookingRepository repository;
+    @Autowired
+    private ArchivedBookingRepository archivedRepository;
+    @Autowired
+    private BookingSeriesRepository seriesRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+    private BookingExporter exporter;
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        exporter = new BookingExporter(repository, archivedRepository, seriesRepository, userRepository,
+                new TransactionTemplate(transactionManager), mapper);
+        owner = em.persist(new User(null, "Owner", "owner@test.com"));
+        booker = em.persist(new User(null, "Booker, Jr.", "booker@test.com"));
+        item = em.persist(new Item(null, "Дрель", "Простая дрель", true, owner, null));
+        insert("bookings", null, item, now.minusDays(10));
+        insert("bookings", null, item, now.plusDays(1));
+        insert("bookings_archive", 1000L, item, now.minusDays(60));
+        insert("bookings_archive", 1001L, item, now.minusDays(5));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void exportForOwner_ndjson_mergesLiveAndArchiveOldestFirst() throws IOException {
+        String[] lines = export(BookingExportFormat.NDJSON, null, null).split("\n");
+
+        assertEquals(4, lines.length);
+        List<LocalDateTime> starts = List.of(now.minusDays(60), now.minusDays(10), now.minusDays(5), now.plusDays(1));
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(starts.get(i), mapper.readValue(lines[i], BookingFullDto.class).getStart());
+        }
+    }
+
+    @Test
+    void exportForOwner_csvWindow_quotesFieldsAndFiltersByStart() throws IOException {
+        String[] lines = export(BookingExportFormat.CSV, now.minusDays(30), now).split("\n");
+
+        assertEquals(3, lines.length);
+        assertEquals("id,start,end,status,itemId,itemName,bookerId,bookerName,bookerEmail,seriesId", lines[0]);
+        assertEquals(String.valueOf(now.minusDays(10)), lines[1].split(",")[1]);
+        assertEquals("1001", lines[2].split(",")[0]);
+        assertTrue(lines[2].endsWith(",\"Booker, Jr.\",booker@test.com,"));
+    }
+
+    @Test
+    void exportForOwner_series_exportsOccurrencesInWindowMergedByStart() throws IOException {
+        BookingSeries series = em.persist(new BookingSeries(null, now.minusDays(20), now.minusDays(20).plusHours(2),
+                Recurrence.WEEKLY, now.minusDays(6), em.find(Item.class, item.getId()),
+                em.find(User.class, booker.getId()), Status.APPROVED));
+        em.flush();
+        em.clear();
+
+        String[] lines = export(BookingExportFormat.CSV, now.minusDays(15), now).split("\n");
+
+        assertEquals(5, lines.length);
+        List<LocalDateTime> starts = List.of(now.minusDays(13), now.minusDays(10), now.minusDays(6), now.minusDays(5));
+        for (int i = 1; i < lines.length; i++) {
+            assertEquals(String.valueOf(starts.get(i - 1)), lines[i].split(",")[1]);
+        }
+        assertTrue(lines[1].startsWith(","));
+        assertTrue(lines[1].endsWith("," + series.getId()));
+        assertTrue(lines[3].endsWith("," + series.getId()));
+        assertEquals("1001", lines[4].split(",")[0]);
+
+        String[] all = export(BookingExportFormat.NDJSON, null, null).split("\n");
+
+        assertEquals(7, all.length);
+        BookingFullDto first = mapper.readValue(all[1], BookingFullDto.class);
+        assertEquals(now.minusDays(20), first.getStart());
+        assertEquals(series.getId(), first.getSeriesId());
+    }
+
+    @Test
+    void exportForOwner_invalidRequest_ThrowsBeforeStreaming() {
+        assertThrows(UserNotFoundException.class,
+                () -> exporter.exportForOwner(999L, BookingExportFormat.CSV, null, null));
+        assertThrows(ValidationException.class,
+                () -> exporter.exportForOwner(owner.getId(), BookingExportFormat.CSV, now, now.minusDays(1)));
+        assertThrows(ValidationException.class, () -> BookingExportFormat.from("xml"));
+    }
+
+    private String export(BookingExportFormat format, LocalDateTime from, LocalDateTime to) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.exportForOwner(owner.getId(), format, from, to).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private void insert(String table, Long id, Item item, LocalDateTime start) {
+        em.getEntityManager()
+                .createNativeQuery("insert into " + table + " (" + (id == null ? "" : "id, ") +
+                        "start_date, end_date, item_id, booker_id, status) values (" + (id == null ? "" : id + ", ") +
+                        "?, ?, ?, ?, 'APPROVED')")
+                .setParameter(1, start)
+                .setParameter(2, start.plusDays(1))
+                .setParameter(3, item.getId())
+                .setParameter(4, booker.getId())
+                .executeUpdate();
+    }
+}
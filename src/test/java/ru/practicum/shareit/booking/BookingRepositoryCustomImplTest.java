@@ -0,0 +1,90 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingRepositoryCustomImplTest {
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private Session session;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement statement;
+    @Mock
+    private ResultSet keys;
+
+    @InjectMocks
+    private BookingRepositoryCustomImpl repository;
+
+    private List<Booking> bookings;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Item item = new Item(1L, "Дрель", "Простая дрель", true, new User(1L, "Owner", "owner@test.com"), null);
+        User booker = new User(2L, "Booker", "booker@test.com");
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookings = List.of(
+                new Booking(null, start, start.plusHours(1), item, booker, Status.WAITING),
+                new Booking(null, start.plusHours(2), start.plusHours(3), item, booker, Status.WAITING));
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        doAnswer(invocation -> {
+            invocation.<Work>getArgument(0).execute(connection);
+            return null;
+        }).when(session).doWork(any());
+        when(connection.prepareStatement(anyString(), anyInt())).thenReturn(statement);
+        when(statement.getGeneratedKeys()).thenReturn(keys);
+    }
+
+    @Test
+    void insertAll_keysInBatchOrder_assignsIds() throws Exception {
+        when(keys.next()).thenReturn(true, true, false);
+        when(keys.getLong("id")).thenReturn(10L, 11L);
+
+        repository.insertAll(bookings);
+
+        assertEquals(10L, bookings.get(0).getId());
+        assertEquals(11L, bookings.get(1).getId());
+    }
+
+    @Test
+    void insertAll_fewerKeysThanBookings_ThrowsException() throws Exception {
+        when(keys.next()).thenReturn(true, false);
+        when(keys.getLong("id")).thenReturn(10L);
+
+        assertThrows(IllegalStateException.class, () -> repository.insertAll(bookings));
+    }
+
+    @Test
+    void insertAll_moreKeysThanBookings_ThrowsException() throws Exception {
+        when(keys.next()).thenReturn(true, true, true);
+        when(keys.getLong("id")).thenReturn(10L, 11L);
+
+        assertThrows(IllegalStateException.class, () -> repository.insertAll(bookings));
+    }
+}
@@ -0,0 +1,348 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingRowDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BookingRepositoryTest {
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private BookingRepository repository;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+    private Item item;
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        owner = em.persist(new User(null, "Owner", "owner@test.com"));
+        booker = em.persist(new User(null, "Booker", "booker@test.com"));
+        item = em.persist(new Item(null, "Дрель", "Простая дрель", true, owner, null));
+        insertBooking(item, now.minusDays(3), now.minusDays(2), Status.APPROVED);
+        insertBooking(item, now.minusHours(1), now.plusHours(1), Status.APPROVED);
+        insertBooking(item, now.plusDays(1), now.plusDays(2), Status.WAITING);
+        insertBooking(item, now.plusDays(3), now.plusDays(4), Status.REJECTED);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void findByQuery_everyStateAndRole_usesOneStatementWithoutEntities() {
+        Map<BookingState, Integer> expected = Map.of(
+                BookingState.ALL, 4,
+                BookingState.CURRENT, 1,
+                BookingState.PAST, 1,
+                BookingState.FUTURE, 2,
+                BookingState.WAITING, 1,
+                BookingState.REJECTED, 1);
+        for (BookingRole role : BookingRole.values()) {
+            Long userId = role == BookingRole.OWNER ? owner.getId() : booker.getId();
+            for (Map.Entry<BookingState, Integer> entry : expected.entrySet()) {
+                em.clear();
+                statistics.clear();
+
+                List<BookingRowDto> bookings = repository.findByQuery(
+                        new BookingQuery(role, userId, entry.getKey(), now, 0, 10, null, false));
+                bookings.forEach(BookingMapper::toBookingFullDto);
+
+                assertEquals(entry.getValue(), bookings.size(), role + " " + entry.getKey());
+                assertEquals(1, statistics.getPrepareStatementCount(), role + " " + entry.getKey());
+                assertEquals(0, statistics.getEntityLoadCount(), role + " " + entry.getKey());
+            }
+        }
+    }
+
+    @Test
+    void findByQuery_ordersByStartDescAndPagesInDatabase() {
+        List<BookingRowDto> firstPage = repository.findByQuery(
+                new BookingQuery(BookingRole.BOOKER, booker.getId(), BookingState.ALL, now, 0, 3));
+        List<BookingRowDto> secondPage = repository.findByQuery(
+                new BookingQuery(BookingRole.BOOKER, booker.getId(), BookingState.ALL, now, 3, 3));
+
+        assertEquals(3, firstPage.size());
+        assertEquals(1, secondPage.size());
+        assertTrue(firstPage.get(0).getStart().isAfter(firstPage.get(1).getStart()));
+        assertTrue(firstPage.get(2).getStart().isAfter(secondPage.get(0).getStart()));
+    }
+
+    @Test
+    void findByQuery_withCursor_seeksPastLastSeenRow() {
+        List<BookingRowDto> firstPage = repository.findByQuery(
+                new BookingQuery(BookingRole.OWNER, owner.getId(), BookingState.ALL, now, 0, 2));
+        BookingRowDto last = firstPage.get(1);
+
+        List<BookingRowDto> nextPage = repository.findByQuery(new BookingQuery(BookingRole.OWNER, owner.getId(),
+                BookingState.ALL, now, 0, 10, new BookingCursor(last.getStart(), last.getId())));
+
+        assertEquals(2, nextPage.size());
+        assertTrue(nextPage.stream().allMatch(booking -> booking.getStart().isBefore(last.getStart())));
+    }
+
+    @Test
+    void findTimelinesByItemIds_returnsLastAndFutureApprovedBookingsInOneStatement() {
+        Item other = em.persist(new Item(null, "Палатка", "Двухместная палатка", true, owner, null));
+        insertBooking(other, now.plusDays(5), now.plusDays(6), Status.APPROVED);
+        insertBooking(other, now.plusDays(7), now.plusDays(8), Status.APPROVED);
+        em.clear();
+        statistics.clear();
+
+        List<BookingDto> timelines = repository.findTimelinesByItemIds(List.of(item.getId(), other.getId()),
+                Status.APPROVED, now);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(3, timelines.size());
+        assertTrue(timelines.stream().anyMatch(booking -> booking.getItemId().equals(item.getId()) &&
+                booking.getStart().isBefore(now) && booking.getEnd().isAfter(now)));
+        assertEquals(2, timelines.stream().filter(booking -> booking.getItemId().equals(other.getId())).count());
+    }
+
+    @Test
+    void findAllWithItemByIdIn_loadsBookingsWithOwnersInOneStatement() {
+        List<Long> ids = repository.findByQuery(
+                        new BookingQuery(BookingRole.OWNER, owner.getId(), BookingState.ALL, now, 0, 10)).stream()
+                .map(BookingRowDto::getId)
+                .collect(toList());
+        em.clear();
+        statistics.clear();
+
+        List<Booking> bookings = repository.findAllWithItemByIdIn(ids);
+        bookings.forEach(booking -> booking.getItem().getOwner().getName());
+
+        assertEquals(4, bookings.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        assertEquals(1, repository.updateStatusByIdInAndStatus(ids, Status.WAITING, Status.REJECTED));
+        assertEquals(2, repository.findByQuery(
+                new BookingQuery(BookingRole.OWNER, owner.getId(), BookingState.REJECTED, now, 0, 10)).size());
+    }
+
+    @Test
+    void statusGuardedUpdate_skipsRowsWhoseStatusChanged() {
+        List<Long> ids = repository.findByQuery(
+                        new BookingQuery(BookingRole.OWNER, owner.getId(), BookingState.ALL, now, 0, 10)).stream()
+                .map(BookingRowDto::getId)
+                .collect(toList());
+
+        assertEquals(1, repository.lockIdsByIdInAndStatus(ids, Status.WAITING.name()).size());
+        assertEquals(1, repository.updateStatusByIdInAndStatus(ids, Status.WAITING, Status.EXPIRED));
+        assertEquals(0, repository.updateStatusByIdInAndStatus(ids, Status.WAITING, Status.EXPIRED));
+        assertTrue(repository.findByQuery(
+                new BookingQuery(BookingRole.OWNER, owner.getId(), BookingState.WAITING, now, 0, 10)).isEmpty());
+        assertTrue(repository.lockIdsByIdInAndStatus(ids, Status.WAITING.name()).isEmpty());
+    }
+
+    @Test
+    void findByQuery_pastForOwner_returnsOnlyApprovedBookings() {
+        insertBooking(item, now.minusDays(5), now.minusDays(4), Status.REJECTED);
+        em.clear();
+
+        List<BookingRowDto> ownerPast = repository.findByQuery(
+                new BookingQuery(BookingRole.OWNER, owner.getId(), BookingState.PAST, now, 0, 10));
+        List<BookingRowDto> bookerPast = repository.findByQuery(
+                new BookingQuery(BookingRole.BOOKER, booker.getId(), BookingState.PAST, now, 0, 10));
+
+        assertEquals(1, ownerPast.size());
+        assertEquals(Status.APPROVED, ownerPast.get(0).getStatus());
+        assertEquals(2, bookerPast.size());
+    }
+
+    @Test
+    void findByStatusAndStartBefore_returnsOnlyStaleWaitingBookingsOldestFirst() {
+        insertBooking(item, now.minusDays(5), now.minusDays(4), Status.WAITING);
+        insertBooking(item, now.minusHours(2), now.plusHours(3), Status.WAITING);
+        em.clear();
+
+        List<Booking> stale = repository.findByStatusAndStartBefore(Status.WAITING, now, PageRequest.of(0, 10));
+
+        assertEquals(2, stale.size());
+        assertTrue(stale.get(0).getStart().isBefore(stale.get(1).getStart()));
+        assertEquals(1, repository.findByStatusAndStartBefore(Status.WAITING, now, PageRequest.of(0, 1)).size());
+    }
+
+    @Test
+    void archivedBookings_leaveLiveTableButStayInPastAndAllPages() {
+        List<Long> ended = repository.findIdsByEndBefore(now.minusDays(1), 10);
+        assertEquals(1, ended.size());
+
+        assertEquals(1, repository.copyToArchive(ended));
+        assertEquals(1, repository.deleteByIdIn(ended));
+        insertBooking(item, now.minusDays(10), now.minusDays(9), Status.APPROVED);
+        em.clear();
+
+        assertTrue(repository.findById(ended.get(0)).isEmpty());
+        List<BookingRowDto> past = repository.findByQuery(
+                new BookingQuery(BookingRole.BOOKER, booker.getId(), BookingState.PAST, now, 0, 10));
+        assertEquals(2, past.size());
+        assertEquals(ended.get(0), past.get(0).getId());
+        List<BookingRowDto> secondPage = repository.findByQuery(
+                new BookingQuery(BookingRole.OWNER, owner.getId(), BookingState.ALL, now, 3, 3));
+        assertEquals(2, secondPage.size());
+        assertEquals(past.get(1).getId(), secondPage.get(1).getId());
+        assertEquals(1, repository.findByQuery(
+                new BookingQuery(BookingRole.BOOKER, booker.getId(), BookingState.CURRENT, now, 0, 10)).size());
+    }
+
+    @Test
+    void archivedRejectedBooking_staysInRejectedPages() {
+        insertBooking(item, now.minusDays(10), now.minusDays(9), Status.REJECTED);
+        List<Long> ended = repository.findIdsByEndBefore(now.minusDays(5), 10);
+        assertEquals(1, ended.size());
+        repository.copyToArchive(ended);
+        repository.deleteByIdIn(ended);
+        em.clear();
+
+        for (BookingRole role : BookingRole.values()) {
+            Long userId = role == BookingRole.OWNER ? owner.getId() : booker.getId();
+            List<BookingRowDto> rejected = repository.findByQuery(
+                    new BookingQuery(role, userId, BookingState.REJECTED, now, 0, 10));
+
+            assertEquals(2, rejected.size(), role.name());
+            assertEquals(ended.get(0), rejected.get(1).getId(), role.name());
+            assertEquals(1, repository.findByQuery(new BookingQuery(role, userId, BookingState.REJECTED, now, 0,
+                    10, BookingCursor.after(rejected.get(0)))).size(), role.name());
+        }
+    }
+
+    @Test
+    void findByQuery_offsetAcrossLiveAndArchive_pagesInOneStatement() {
+        for (int day = 10; day < 20; day++) {
+            insertBooking(item, now.minusDays(day), now.minusDays(day).plusHours(1), Status.APPROVED);
+        }
+        List<Long> ended = repository.findIdsByEndBefore(now.minusDays(14), 10);
+        repository.copyToArchive(ended);
+        repository.deleteByIdIn(ended);
+        em.clear();
+        List<BookingRowDto> all = repository.findByQuery(
+                new BookingQuery(BookingRole.BOOKER, booker.getId(), BookingState.ALL, now, 0, 20, null, false));
+        statistics.clear();
+
+        List<BookingRowDto> page = repository.findByQuery(
+                new BookingQuery(BookingRole.BOOKER, booker.getId(), BookingState.ALL, now, 6, 4, null, false));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(14, all.size());
+        assertEquals(all.subList(6, 10), page);
+        assertTrue(page.stream().anyMatch(row -> !ended.contains(row.getId())));
+        assertTrue(page.stream().anyMatch(row -> ended.contains(row.getId())));
+    }
+
+    @Test
+    void insertAll_assignsGeneratedIdsInOneBatch() {
+        Item other = em.persist(new Item(null, "Палатка", "Двухместная палатка", true, owner, null));
+        List<Booking> bookings = List.of(
+                new Booking(null, now.plusDays(5), now.plusDays(6), item, booker, Status.WAITING),
+                new Booking(null, now.plusDays(5), now.plusDays(6), other, booker, Status.WAITING));
+        statistics.clear();
+
+        repository.insertAll(bookings);
+        em.clear();
+
+        assertTrue(bookings.stream().allMatch(booking -> booking.getId() != null));
+        assertEquals(other.getId(), repository.findById(bookings.get(1).getId()).orElseThrow().getItem().getId());
+        assertEquals(0, statistics.getEntityInsertCount());
+    }
+
+    @Test
+    void findByQuery_series_expandsOnlyOccurrencesOfRequestedPage() {
+        LocalDateTime seriesStart = now.minusWeeks(3).plusHours(1);
+        insertSeries(item, seriesStart, seriesStart.plusWeeks(8));
+
+        List<BookingRowDto> future = repository.findByQuery(
+                new BookingQuery(BookingRole.BOOKER, booker.getId(), BookingState.FUTURE, now, 0, 3));
+        assertEquals(List.of(seriesStart.plusWeeks(8), seriesStart.plusWeeks(7), seriesStart.plusWeeks(6)),
+                future.stream().map(BookingRowDto::getStart).collect(toList()));
+        assertTrue(future.stream().allMatch(row -> row.getId() == null && row.getSeriesId() != null));
+        assertEquals(8, repository.findByQuery(
+                new BookingQuery(BookingRole.OWNER, owner.getId(), BookingState.FUTURE, now, 0, 20)).size());
+        assertEquals(4, repository.findByQuery(
+                new BookingQuery(BookingRole.BOOKER, booker.getId(), BookingState.PAST, now, 0, 20)).size());
+        assertEquals(1, repository.findByQuery(
+                new BookingQuery(BookingRole.BOOKER, booker.getId(), BookingState.CURRENT, now, 0, 20)).size());
+
+        List<BookingRowDto> firstPage = repository.findByQuery(
+                new BookingQuery(BookingRole.BOOKER, booker.getId(), BookingState.ALL, now, 0, 5));
+        BookingRowDto last = firstPage.get(4);
+        List<BookingRowDto> nextPage = repository.findByQuery(new BookingQuery(BookingRole.BOOKER, booker.getId(),
+                BookingState.ALL, now, 0, 20, BookingCursor.after(last)));
+        assertEquals(seriesStart.plusWeeks(4), last.getStart());
+        assertEquals(8, nextPage.size());
+        assertEquals(seriesStart, nextPage.get(7).getStart());
+    }
+
+    @Test
+    void findByQuery_seriesWithSameSchedule_pagesWithCursorWithoutGapsOrRepeats() {
+        Item other = em.persist(new Item(null, "Палатка", "Двухместная палатка", true, owner, null));
+        LocalDateTime seriesStart = now.minusWeeks(3).plusHours(1);
+        insertSeries(item, seriesStart, seriesStart.plusWeeks(8));
+        insertSeries(other, seriesStart, seriesStart.plusWeeks(8));
+        insertSeries(other, seriesStart.minusYears(1), seriesStart.minusYears(1).plusWeeks(2));
+
+        List<String> keys = new ArrayList<>();
+        BookingCursor cursor = null;
+        do {
+            statistics.clear();
+            List<BookingRowDto> page = repository.findByQuery(new BookingQuery(BookingRole.OWNER, owner.getId(),
+                    BookingState.ALL, now, 0, 2, cursor));
+            assertTrue(statistics.getPrepareStatementCount() <= 4);
+            page.forEach(row -> keys.add(row.getStart() + " " + BookingCursor.keyOf(row)));
+            cursor = page.size() < 2 ? null : BookingCursor.after(page.get(1));
+        } while (cursor != null);
+
+        assertEquals(4 + 9 + 9 + 3, keys.size());
+        assertEquals(keys.size(), new HashSet<>(keys).size());
+    }
+
+    @Test
+    void findByQuery_otherUser_returnsEmpty() {
+        assertTrue(repository.findByQuery(
+                new BookingQuery(BookingRole.OWNER, booker.getId(), BookingState.ALL, now, 0, 10)).isEmpty());
+    }
+
+    private void insertSeries(Item item, LocalDateTime start, LocalDateTime until) {
+        em.getEntityManager()
+                .createNativeQuery("insert into booking_series (start_date, end_date, recurrence, until_date, " +
+                        "item_id, booker_id, status) values (?, ?, 'WEEKLY', ?, ?, ?, 'APPROVED')")
+                .setParameter(1, start)
+                .setParameter(2, start.plusHours(1))
+                .setParameter(3, until)
+                .setParameter(4, item.getId())
+                .setParameter(5, booker.getId())
+                .executeUpdate();
+    }
+
+    private void insertBooking(Item item, LocalDateTime start, LocalDateTime end, Status status) {
+        em.getEntityManager()
+                .createNativeQuery("insert into bookings (start_date, end_date, item_id, booker_id, status) " +
+                        "values (?, ?, ?, ?, ?)")
+                .setParameter(1, start)
+                .setParameter(2, end)
+                .setParameter(3, item.getId())
+                .setParameter(4, booker.getId())
+                .setParameter(5, status.name())
+                .executeUpdate();
+    }
+}
@@ -3,14 +3,22 @@ package ru.practicum.shareit.booking;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
-import org.springframework.data.domain.*;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingApprovalResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingFullDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingRowDto;
+import ru.practicum.shareit.booking.dto.BookingSeriesDto;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.ItemService;
@@ -23,7 +31,9 @@ import ru.practicum.shareit.user.UserService;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -39,6 +49,12 @@ public class BookingServiceImplTest {
     @Mock
     private BookingRepository repository;
 
+    @Mock
+    private ArchivedBookingRepository archivedRepository;
+
+    @Mock
+    private BookingSeriesRepository seriesRepository;
+
     @Mock
     private UserRepository userRepository;
 
@@ -51,6 +67,24 @@ public class BookingServiceImplTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private BookingAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private CurrentBookingIndex currentBookings;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private BookingCounters counters;
+
+    @Mock
+    private BookingSeriesUsers seriesUsers;
+
+    @Spy
+    private BookingItemLocks itemLocks = new BookingItemLocks(4);
+
     private MockMvc mvc;
     private final ObjectMapper mapper = new ObjectMapper();
 
@@ -91,6 +125,10 @@ public class BookingServiceImplTest {
         booking1.setItem(item1);
         booking1.setBooker(user1);
         booking1.setStatus(Status.WAITING);
+        when(repository.lockIdsByIdInAndStatus(anyCollection(), anyString()))
+                .thenAnswer(invocation -> new ArrayList<>(invocation.<Collection<Long>>getArgument(0)));
+        when(repository.updateStatusByIdInAndStatus(anyCollection(), any(Status.class), any(Status.class)))
+                .thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).size());
     }
 
     @Test
@@ -172,13 +210,6 @@ public class BookingServiceImplTest {
         assertThrows(UserNotFoundException.class, () -> bookingService.getAllBookingRequestForOwner(1L, "CURRENT", 1, 10));
     }
 
-    @Test
-    void getBookingWithUserBookedItem_ItemNotFound_ThrowsException() {
-        when(itemRepository.findById(anyLong())).thenReturn(java.util.Optional.empty());
-
-        assertThrows(ItemNotFoundException.class, () -> bookingService.getBookingWithUserBookedItem(1L, 2L));
-    }
-
     @Test
     public void testPostRequest() {
         BookingDto bookingDto = new BookingDto();
@@ -198,6 +229,24 @@ public class BookingServiceImplTest {
         assertEquals(1, result.getItem().getId().longValue());
         assertEquals(1, result.getBooker().getId().longValue());
         assertEquals(Status.WAITING, result.getStatus());
+        verify(availabilityIndex).reserve(any(BookingSlot.class));
+        verify(currentBookings).track(any(ActiveBooking.class));
+        verify(eventPublisher).publishEvent(any(BookingChangedEvent.class));
+    }
+
+    @Test
+    public void testPostRequest_OverlappingBooking_ThrowsException() {
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setItemId(1L);
+        bookingDto.setStart(booking1.getStart());
+        bookingDto.setEnd(booking1.getEnd());
+
+        when(itemService.findById(1L)).thenReturn(item1);
+        when(userService.findById(2L)).thenReturn(user2);
+        when(availabilityIndex.hasOverlap(1L, booking1.getStart(), booking1.getEnd())).thenReturn(true);
+
+        assertThrows(BookingNotAvailableException.class, () -> bookingService.postRequest(2L, bookingDto));
+        verify(repository, never()).save(any(Booking.class));
     }
 
     @Test
@@ -209,6 +258,8 @@ public class BookingServiceImplTest {
         BookingFullDto result = bookingService.postApproveBooking(1L, 1L, true);
         assertNotNull(result);
         assertEquals(Status.APPROVED, result.getStatus());
+        verify(eventPublisher).publishEvent(new BookingChangedEvent(1L, 1L, "Item 1", 1L, 1L,
+                booking1.getStart(), booking1.getEnd(), Status.WAITING, Status.APPROVED));
     }
 
     @Test
@@ -228,93 +279,66 @@ public class BookingServiceImplTest {
         Booking booking2 = new Booking(2L, LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(3), item2,
                 user2, Status.WAITING);
         List<Booking> bookings = Arrays.asList(booking1, booking2);
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(new User()));
-        Mockito.when(repository.getCurrentByUserId(Mockito.anyLong(), any()))
-                .thenReturn(new PageImpl<>(bookings));
-
-        List<BookingFullDto> expectedResults = bookings.stream()
-                .map(BookingMapper::toBookingFullDto)
-                .collect(Collectors.toList());
+        Mockito.when(currentBookings.findByQuery(any(BookingQuery.class))).thenReturn(rows(bookings));
 
         List<BookingFullDto> actualResults = bookingService.getAllBookingRequestForUser(1L, state, 1, 10);
-        assertEquals(expectedResults.size(), actualResults.size());
+
+        BookingQuery query = captureCurrentQuery();
+        assertEquals(bookings.size(), actualResults.size());
+        assertEquals(BookingRole.BOOKER, query.getRole());
+        assertEquals(BookingState.CURRENT, query.getState());
+        assertEquals(0, query.getOffset());
+        assertEquals(10, query.getLimit());
+        verify(userRepository, never()).findById(anyLong());
     }
 
     @Test
     void testGetAllBookingRequestForOwner() {
         String state = "CURRENT";
-        List<Item> ownerItems = Arrays.asList(item1, item2);
         Booking booking2 = new Booking(2L, LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(3), item2,
                 user2, Status.WAITING);
         List<Booking> bookings = Arrays.asList(booking1, booking2);
-        Page pageList = new PageImpl(ownerItems, PageRequest.of(1, 10), 2);
-
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(new User()));
-        Mockito.when(itemRepository.findAllByOwnerOrderById(any(), any()))
-                .thenReturn(pageList);
-        Mockito.when(repository.findAllByItemInAndStartBeforeAndEndAfterOrderByStartDesc(
-                        any(), any(), any(), any()))
-                .thenReturn(new PageImpl<>(bookings));
-
-        List<BookingFullDto> expectedResults = bookings.stream()
-                .map(BookingMapper::toBookingFullDto)
-                .collect(Collectors.toList());
+        Mockito.when(currentBookings.findByQuery(any(BookingQuery.class))).thenReturn(rows(bookings));
 
         List<BookingFullDto> actualResults = bookingService.getAllBookingRequestForOwner(1L, state, 1, 10);
-        assertEquals(expectedResults.size(), actualResults.size());
+
+        BookingQuery query = captureCurrentQuery();
+        assertEquals(bookings.size(), actualResults.size());
+        assertEquals(BookingRole.OWNER, query.getRole());
+        assertEquals(BookingState.CURRENT, query.getState());
+        verify(itemRepository, never()).findAllByOwnerOrderById(any(), any());
     }
 
     @Test
     void testGetAllBookingRequestForUserFuture() {
-        String state = "FUTURE";
-        List<Booking> bookingsApprove = new ArrayList<>();
-        List<Booking> bookingsWaiting = new ArrayList<>();
-        bookingsWaiting.add(booking1);
-        bookingsApprove.add(new Booking(2L, LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(3),
-                item2, user1, Status.APPROVED));
+        List<Booking> bookings = List.of(new Booking(2L, LocalDateTime.now().plusDays(2),
+                LocalDateTime.now().plusDays(3), item2, user1, Status.APPROVED), booking1);
+        Mockito.when(repository.findByQuery(any(BookingQuery.class))).thenReturn(rows(bookings));
 
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
-        Mockito.when(userRepository.getById(1L)).thenReturn(user1);
-        Mockito.when(repository.findByBookerAndStatus(any(User.class), Mockito.eq(Status.APPROVED),
-                any(Pageable.class))).thenReturn(new PageImpl<>(bookingsApprove));
-        Mockito.when(repository.findByBookerAndStatus(any(User.class), Mockito.eq(Status.WAITING),
-                any(Pageable.class))).thenReturn(new PageImpl<>(bookingsWaiting));
-
-        List<BookingFullDto> result = bookingService.getAllBookingRequestForUser(1L, state, 0, 10);
+        List<BookingFullDto> result = bookingService.getAllBookingRequestForUser(1L, "FUTURE", 0, 10);
 
         assertEquals(2, result.size());
+        assertEquals(BookingState.FUTURE, captureQuery().getState());
+        verify(repository, times(1)).findByQuery(any(BookingQuery.class));
     }
 
     @Test
     void testGetAllBookingRequestForOwnerFuture() {
-        String state = "FUTURE";
-        List<Item> ownerItems = new ArrayList<>();
-        ownerItems.add(item1);
-        ownerItems.add(new Item(3L, "Item 3", "Description 3", true, user1, null));
-
-        List<Booking> bookingsApprove = new ArrayList<>();
-        List<Booking> bookingsWaiting = new ArrayList<>();
-        bookingsApprove.add(new Booking(2L, LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(3),
-                ownerItems.get(1), user1, Status.APPROVED));
-        bookingsWaiting.add(booking1);
+        List<Booking> bookings = List.of(new Booking(2L, LocalDateTime.now().plusDays(2),
+                LocalDateTime.now().plusDays(3), item1, user2, Status.APPROVED), booking1);
+        Mockito.when(repository.findByQuery(any(BookingQuery.class))).thenReturn(rows(bookings));
 
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
-        Mockito.when(userRepository.getById(1L)).thenReturn(user1);
-        Mockito.when(itemRepository.findAllByOwnerOrderById(user1,
-                PageRequest.of(0, 10))).thenReturn(new PageImpl<>(ownerItems));
-        Mockito.when(repository.findByItemInAndStatus(ownerItems, Status.APPROVED,
-                PageRequest.of(0 / 10, 10))).thenReturn(new PageImpl<>(bookingsApprove));
-        Mockito.when(repository.findByItemInAndStatus(ownerItems, Status.WAITING,
-                PageRequest.of(0 / 10, 10))).thenReturn(new PageImpl<>(bookingsWaiting));
-
-        List<BookingFullDto> result = bookingService.getAllBookingRequestForOwner(1L, state, 0, 10);
+        List<BookingFullDto> result = bookingService.getAllBookingRequestForOwner(1L, "FUTURE", 0, 10);
 
         assertEquals(2, result.size());
+        BookingQuery query = captureQuery();
+        assertEquals(BookingRole.OWNER, query.getRole());
+        assertEquals(BookingState.FUTURE, query.getState());
+        verify(repository, times(1)).findByQuery(any(BookingQuery.class));
     }
 
     @Test
     void testGetAllBookingRequestForUserAll() {
-        String state = "ALL";
         Booking booking2 = new Booking();
         booking2.setId(2L);
         booking2.setStart(LocalDateTime.now().plusDays(2));
@@ -322,16 +346,9 @@ public class BookingServiceImplTest {
         booking2.setBooker(user2);
         booking2.setStatus(Status.WAITING);
         booking2.setItem(item2);
-        List<Booking> allBookings = new ArrayList<>();
-        allBookings.add(booking1);
-        allBookings.add(booking2);
-
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
-        Mockito.when(userRepository.getById(1L)).thenReturn(user1);
-        Mockito.when(repository.findByBooker(userRepository.getById(1L), PageRequest.of(0 / 10, 10,
-                Sort.by(Sort.Direction.DESC, "start")))).thenReturn(new PageImpl<>(allBookings));
+        Mockito.when(repository.findByQuery(any(BookingQuery.class))).thenReturn(rows(List.of(booking1, booking2)));
 
-        List<BookingFullDto> result = bookingService.getAllBookingRequestForUser(1L, state, 0, 10);
+        List<BookingFullDto> result = bookingService.getAllBookingRequestForUser(1L, "ALL", 0, 10);
 
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -339,11 +356,11 @@ public class BookingServiceImplTest {
         assertEquals(booking1.getStatus(), result.get(0).getStatus());
         assertEquals(booking2.getId(), result.get(1).getId());
         assertEquals(booking2.getStatus(), result.get(1).getStatus());
+        assertEquals(BookingState.ALL, captureQuery().getState());
     }
 
     @Test
     void testGetAllBookingRequestForOwnerAll() {
-        String state = "ALL";
         Booking booking2 = new Booking();
         booking2.setId(2L);
         booking2.setStart(LocalDateTime.now().plusDays(2));
@@ -351,65 +368,46 @@ public class BookingServiceImplTest {
         booking2.setBooker(user2);
         booking2.setItem(item2);
         booking2.setStatus(Status.WAITING);
-        List<Booking> allBookings = new ArrayList<>();
-        allBookings.add(booking1);
-        allBookings.add(booking2);
+        Mockito.when(repository.findByQuery(any(BookingQuery.class))).thenReturn(rows(List.of(booking1, booking2)));
 
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
-        Mockito.when(userRepository.getById(1L)).thenReturn(user1);
-        Mockito.when(itemRepository.findAllByOwnerOrderById(userRepository.getById(1L),
-                PageRequest.of(0, 10))).thenReturn(new PageImpl<>(Arrays.asList(item1, item2)));
-        List<Item> ownerItems = itemRepository.findAllByOwnerOrderById(userRepository.getById(1L),
-                PageRequest.of(0, 10)).toList();
-        Mockito.when(repository.findByItemIn(ownerItems, PageRequest.of(0 / 10, 10,
-                Sort.by(Sort.Direction.DESC, "start")))).thenReturn(new PageImpl<>(allBookings));
-
-        List<BookingFullDto> result = bookingService.getAllBookingRequestForOwner(1L, state, 0, 10);
+        List<BookingFullDto> result = bookingService.getAllBookingRequestForOwner(1L, "ALL", 20, 10);
 
         assertNotNull(result);
         assertEquals(2, result.size());
         assertEquals(booking1.getId(), result.get(0).getId());
-        assertEquals(booking1.getStatus(), result.get(0).getStatus());
         assertEquals(booking2.getId(), result.get(1).getId());
-        assertEquals(booking2.getStatus(), result.get(1).getStatus());
+        BookingQuery query = captureQuery();
+        assertEquals(BookingState.ALL, query.getState());
+        assertEquals(20, query.getOffset());
     }
 
     @Test
     void testGetAllBookingRequestForOwnerStateWaiting() {
-        String state = "WAITING";
-        List<Item> ownerItems = Arrays.asList(item1, item2);
-
         booking1.setStatus(Status.WAITING);
         Booking booking2 = new Booking();
         booking2.setId(2L);
         booking2.setStatus(Status.WAITING);
-        booking2.setStart(LocalDateTime.now().plusHours(2));
+        booking2.setStart(LocalDateTime.now().minusHours(2));
         booking2.setItem(item2);
         booking2.setBooker(user1);
         List<Booking> bookings = Arrays.asList(booking1, booking2);
 
         List<BookingFullDto> expectedBookingsDto = new ArrayList<>();
         for (Booking book : bookings) {
-            expectedBookingsDto.add(BookingMapper.toBookingFullDto(book));
+            expectedBookingsDto.add(BookingMapper.toBookingFullDto(row(book)));
         }
+        Mockito.when(repository.findByQuery(any(BookingQuery.class))).thenReturn(rows(bookings));
+
+        List<BookingFullDto> result = bookingService.getAllBookingRequestForOwner(1L, "WAITING", 0, 10);
 
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
-        Mockito.when(userRepository.getById(1L)).thenReturn(user1);
-        Mockito.when(itemRepository.findAllByOwnerOrderById(any(), any()))
-                .thenReturn(new PageImpl<>(ownerItems));
-        Mockito.when(repository.findByItemInAndStatus(any(), any(), any()))
-                .thenReturn(new PageImpl<>(bookings));
-
-        List<BookingFullDto> result = bookingService.getAllBookingRequestForOwner(1L, state, 0, 10);
-        assertEquals(expectedBookingsDto.size(), result.size());
         assertEquals(expectedBookingsDto, result);
+        BookingQuery query = captureQuery();
+        assertEquals(BookingRole.OWNER, query.getRole());
+        assertEquals(BookingState.WAITING, query.getState());
     }
 
     @Test
     void testGetAllBookingRequestForOwnerStateRejected() {
-        String state = "REJECTED";
-        List<Item> ownerItems = Arrays.asList(item1, item2);
-
         booking1.setStatus(Status.REJECTED);
         Booking booking2 = new Booking();
         booking2.setId(2L);
@@ -421,51 +419,41 @@ public class BookingServiceImplTest {
 
         List<BookingFullDto> expectedBookingsDto = new ArrayList<>();
         for (Booking book : bookings) {
-            expectedBookingsDto.add(BookingMapper.toBookingFullDto(book));
+            expectedBookingsDto.add(BookingMapper.toBookingFullDto(row(book)));
         }
+        Mockito.when(repository.findByQuery(any(BookingQuery.class))).thenReturn(rows(bookings));
+
+        List<BookingFullDto> result = bookingService.getAllBookingRequestForOwner(1L, "REJECTED", 0, 10);
 
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
-        Mockito.when(userRepository.getById(1L)).thenReturn(user1);
-        Mockito.when(itemRepository.findAllByOwnerOrderById(any(), any()))
-                .thenReturn(new PageImpl<>(ownerItems));
-        Mockito.when(repository.findByItemInAndStatus(any(), any(), any()))
-                .thenReturn(new PageImpl<>(bookings));
-
-        List<BookingFullDto> result = bookingService.getAllBookingRequestForOwner(1L, state, 0, 10);
-        assertEquals(expectedBookingsDto.size(), result.size());
         assertEquals(expectedBookingsDto, result);
+        BookingQuery query = captureQuery();
+        assertEquals(BookingRole.OWNER, query.getRole());
+        assertEquals(BookingState.REJECTED, query.getState());
     }
 
     @Test
     void testGetAllBookingRequestForOwnerStatePast() {
-        String state = "PAST";
-        List<Item> ownerItems = Arrays.asList(item1, item2);
-
         booking1.setStatus(Status.APPROVED);
         Booking booking2 = new Booking();
         booking2.setId(2L);
         booking2.setStatus(Status.APPROVED);
-        booking2.setStart(LocalDateTime.now().plusHours(2));
+        booking2.setStart(LocalDateTime.now().minusHours(2));
         booking2.setItem(item2);
         booking2.setBooker(user1);
         List<Booking> bookings = Arrays.asList(booking1, booking2);
 
         List<BookingFullDto> expectedBookingsDto = new ArrayList<>();
         for (Booking book : bookings) {
-            expectedBookingsDto.add(BookingMapper.toBookingFullDto(book));
+            expectedBookingsDto.add(BookingMapper.toBookingFullDto(row(book)));
         }
+        Mockito.when(repository.findByQuery(any(BookingQuery.class))).thenReturn(rows(bookings));
+
+        List<BookingFullDto> result = bookingService.getAllBookingRequestForOwner(1L, "PAST", 0, 10);
 
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
-        Mockito.when(userRepository.getById(1L)).thenReturn(user1);
-        Mockito.when(itemRepository.findAllByOwnerOrderById(any(), any()))
-                .thenReturn(new PageImpl<>(ownerItems));
-        Mockito.when(repository.findAllByItemInAndStatusAndEndBeforeOrderByStartDesc(
-                        any(), Mockito.eq(Status.APPROVED), any(), any()))
-                .thenReturn(new PageImpl<>(bookings));
-
-        List<BookingFullDto> result = bookingService.getAllBookingRequestForOwner(1L, state, 0, 10);
-        assertEquals(expectedBookingsDto.size(), result.size());
         assertEquals(expectedBookingsDto, result);
+        BookingQuery query = captureQuery();
+        assertEquals(BookingRole.OWNER, query.getRole());
+        assertEquals(BookingState.PAST, query.getState());
     }
 
     @Test
@@ -490,6 +478,36 @@ public class BookingServiceImplTest {
         });
     }
 
+    @Test
+    void postApproveBooking_expiredOrCanceled_ThrowsStatusChangingNotAvailableException() {
+        for (Status status : List.of(Status.EXPIRED, Status.CANCELED)) {
+            booking1.setStatus(status);
+            when(repository.getById(1L)).thenReturn(booking1);
+
+            assertThrows(StatusChangingNotAvailableException.class,
+                    () -> bookingService.postApproveBooking(1L, 1L, true));
+            assertThrows(StatusChangingNotAvailableException.class,
+                    () -> bookingService.postApproveBooking(1L, 1L, false));
+        }
+        booking1.setStatus(Status.REJECTED);
+        assertThrows(StatusChangingNotAvailableException.class,
+                () -> bookingService.postApproveBooking(1L, 1L, false));
+        verify(availabilityIndex, never()).reserve(any(BookingSlot.class));
+        verify(availabilityIndex, never()).release(any(BookingSlot.class));
+        verify(eventPublisher, never()).publishEvent(any(BookingChangedEvent.class));
+    }
+
+    @Test
+    void postApproveBooking_statusChangedBeforeLock_ThrowsStatusChangingNotAvailableException() {
+        when(repository.getById(1L)).thenReturn(booking1);
+        when(repository.lockIdsByIdInAndStatus(List.of(1L), "WAITING")).thenReturn(List.of());
+
+        assertThrows(StatusChangingNotAvailableException.class,
+                () -> bookingService.postApproveBooking(1L, 1L, false));
+        verify(availabilityIndex, never()).release(any(BookingSlot.class));
+        verify(eventPublisher, never()).publishEvent(any(BookingChangedEvent.class));
+    }
+
     @Test
     public void getAllBookingRequestForUser_ThrowsUnsupportedStatusException() {
         when(userRepository.findById(1L)).thenReturn(Optional.of(new User()));
@@ -561,150 +579,83 @@ public class BookingServiceImplTest {
     public void testGetAllBookingRequestForOwner_UnknownState() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
 
-        when(itemRepository.findAllByOwnerOrderById(any(), any())).thenReturn(Page.empty());
-
         assertThrows(UnsupportedStatusException.class, () -> bookingService.getAllBookingRequestForOwner(1L, "UNKNOWN_STATE", 0, 10));
     }
 
-    @Test
-    public void testGetBookingWithUserBookedItem_Valid() {
-        Long itemId = 1L;
-        Long userId = 1L;
-
-        Item mockItem = new Item();
-
-        Booking mockBooking = new Booking();
-        mockBooking.setItem(mockItem);
-
-        when(itemRepository.findById(eq(itemId))).thenReturn(Optional.of(mockItem));
-        when(repository.findFirstByItemIdAndBookerIdAndEndIsBeforeAndStatus(eq(itemId), eq(userId), any(), eq(Status.APPROVED)))
-                .thenReturn(mockBooking);
-
-        Booking result = bookingService.getBookingWithUserBookedItem(itemId, userId);
-
-        assertNotNull(result);
-        assertEquals(mockBooking, result);
-    }
-
-    @Test
-    public void testGetBookingWithUserBookedItem_ItemNotFound() {
-        Long itemId = 1L;
-        Long userId = 1L;
-
-        when(itemRepository.findById(eq(itemId))).thenReturn(Optional.empty());
-
-        assertThrows(ItemNotFoundException.class, () -> bookingService.getBookingWithUserBookedItem(itemId, userId));
-    }
-
     @Test
     void testGetAllBookingRequestForUserStateWaiting() {
-        String state = "WAITING";
-        List<Item> ownerItems = Arrays.asList(item1, item2);
-
-        Booking booking1 = new Booking();
-        booking1.setId(1L);
         booking1.setStatus(Status.WAITING);
-        booking1.setStart(LocalDateTime.now().plusHours(1));
-        booking1.setItem(item1);
-        booking1.setBooker(user1);
-
         Booking booking2 = new Booking();
         booking2.setId(2L);
         booking2.setStatus(Status.WAITING);
-        booking2.setStart(LocalDateTime.now().plusHours(2));
+        booking2.setStart(LocalDateTime.now().minusHours(2));
         booking2.setItem(item2);
         booking2.setBooker(user1);
-
         List<Booking> bookings = Arrays.asList(booking1, booking2);
 
         List<BookingFullDto> expectedBookingsDto = new ArrayList<>();
         for (Booking book : bookings) {
-            expectedBookingsDto.add(BookingMapper.toBookingFullDto(book));
+            expectedBookingsDto.add(BookingMapper.toBookingFullDto(row(book)));
         }
+        Mockito.when(repository.findByQuery(any(BookingQuery.class))).thenReturn(rows(bookings));
+
+        List<BookingFullDto> result = bookingService.getAllBookingRequestForUser(1L, "WAITING", 0, 10);
 
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
-        Mockito.when(userRepository.getById(1L)).thenReturn(user1);
-        Mockito.when(itemRepository.findAllByOwnerOrderById(any(), any()))
-                .thenReturn(new PageImpl<>(ownerItems));
-        Mockito.when(repository.findByBookerAndStatus(
-                        Mockito.eq(user1), Mockito.eq(Status.WAITING), any()))
-                .thenReturn(new PageImpl<>(bookings));
-
-        List<BookingFullDto> result = bookingService.getAllBookingRequestForUser(1L, state, 0, 10);
-        assertEquals(expectedBookingsDto.size(), result.size());
         assertEquals(expectedBookingsDto, result);
+        BookingQuery query = captureQuery();
+        assertEquals(BookingRole.BOOKER, query.getRole());
+        assertEquals(BookingState.WAITING, query.getState());
     }
 
 
     @Test
     void testGetAllBookingRequestForUserStateRejected() {
-        String state = "REJECTED";
-        List<Item> ownerItems = Arrays.asList(item1, item2);
-
-        Booking booking1 = new Booking();
-        booking1.setId(1L);
         booking1.setStatus(Status.REJECTED);
-        booking1.setStart(LocalDateTime.now().minusHours(2));
-        booking1.setItem(item1);
-        booking1.setBooker(user1);
-
         Booking booking2 = new Booking();
         booking2.setId(2L);
         booking2.setStatus(Status.REJECTED);
-        booking2.setStart(LocalDateTime.now().minusHours(1));
+        booking2.setStart(LocalDateTime.now().minusHours(2));
         booking2.setItem(item2);
         booking2.setBooker(user1);
-
         List<Booking> bookings = Arrays.asList(booking1, booking2);
 
         List<BookingFullDto> expectedBookingsDto = new ArrayList<>();
         for (Booking book : bookings) {
-            expectedBookingsDto.add(BookingMapper.toBookingFullDto(book));
+            expectedBookingsDto.add(BookingMapper.toBookingFullDto(row(book)));
         }
+        Mockito.when(repository.findByQuery(any(BookingQuery.class))).thenReturn(rows(bookings));
+
+        List<BookingFullDto> result = bookingService.getAllBookingRequestForUser(1L, "REJECTED", 0, 10);
 
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
-        Mockito.when(userRepository.getById(1L)).thenReturn(user1);
-        Mockito.when(itemRepository.findAllByOwnerOrderById(any(), any()))
-                .thenReturn(new PageImpl<>(ownerItems));
-        Mockito.when(repository.findByBookerAndStatus(
-                        Mockito.eq(user1), Mockito.eq(Status.REJECTED), any()))
-                .thenReturn(new PageImpl<>(bookings));
-
-        List<BookingFullDto> result = bookingService.getAllBookingRequestForUser(1L, state, 0, 10);
-        assertEquals(expectedBookingsDto.size(), result.size());
         assertEquals(expectedBookingsDto, result);
+        BookingQuery query = captureQuery();
+        assertEquals(BookingRole.BOOKER, query.getRole());
+        assertEquals(BookingState.REJECTED, query.getState());
     }
 
     @Test
     void testGetAllBookingRequestForUserStatePast() {
-        String state = "PAST";
-        List<Item> ownerItems = Arrays.asList(item1, item2);
-
         booking1.setStatus(Status.APPROVED);
         Booking booking2 = new Booking();
         booking2.setId(2L);
         booking2.setStatus(Status.APPROVED);
-        booking2.setStart(LocalDateTime.now().plusHours(2));
+        booking2.setStart(LocalDateTime.now().minusHours(2));
         booking2.setItem(item2);
         booking2.setBooker(user1);
         List<Booking> bookings = Arrays.asList(booking1, booking2);
 
         List<BookingFullDto> expectedBookingsDto = new ArrayList<>();
         for (Booking book : bookings) {
-            expectedBookingsDto.add(BookingMapper.toBookingFullDto(book));
+            expectedBookingsDto.add(BookingMapper.toBookingFullDto(row(book)));
         }
+        Mockito.when(repository.findByQuery(any(BookingQuery.class))).thenReturn(rows(bookings));
+
+        List<BookingFullDto> result = bookingService.getAllBookingRequestForUser(1L, "PAST", 0, 10);
 
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
-        Mockito.when(userRepository.getById(1L)).thenReturn(user1);
-        Mockito.when(itemRepository.findAllByOwnerOrderById(any(), any()))
-                .thenReturn(new PageImpl<>(ownerItems));
-        Mockito.when(repository.getBookingByUserIdAndFinishAfterNow(
-                        Mockito.eq(1L), any()))
-                .thenReturn(new PageImpl<>(bookings));
-
-        List<BookingFullDto> result = bookingService.getAllBookingRequestForUser(1L, state, 0, 10);
-        assertEquals(expectedBookingsDto.size(), result.size());
         assertEquals(expectedBookingsDto, result);
+        BookingQuery query = captureQuery();
+        assertEquals(BookingRole.BOOKER, query.getRole());
+        assertEquals(BookingState.PAST, query.getState());
     }
 
     @Test
@@ -717,4 +668,346 @@ public class BookingServiceImplTest {
         when(repository.findById(mockBookingId)).thenReturn(Optional.empty());
         assertThrows(BookingNotFoundException.class, () -> bookingService.getBookingRequest(mockBookingId, mockUserId));
     }
+
+    @Test
+    void getBookingPageForUser_moreRowsThanSize_returnsNextCursor() {
+        Booking booking2 = new Booking(2L, LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(4), item1,
+                user1, Status.WAITING);
+        when(repository.findByQuery(any(BookingQuery.class))).thenReturn(rows(List.of(booking2, booking1)));
+
+        BookingPageDto page = bookingService.getBookingPageForUser(1L, "ALL", "", 1);
+
+        assertEquals(1, page.getContent().size());
+        assertTrue(page.isHasNext());
+        assertEquals(new BookingCursor(booking2.getStart(), 2L), BookingCursor.decode(page.getNextCursor()));
+        BookingQuery query = captureQuery();
+        assertEquals(2, query.getLimit());
+        assertNull(query.getAfter());
+        assertFalse(query.isWithSeries());
+    }
+
+    @Test
+    void getBookingPageForUser_lastRowIsSeriesOccurrence_cursorKeyIsNegativeSeriesId() {
+        BookingRowDto occurrence = row(booking1);
+        occurrence.setId(null);
+        occurrence.setSeriesId(7L);
+        when(seriesUsers.has(BookingRole.BOOKER, 1L)).thenReturn(true);
+        when(repository.findByQuery(any(BookingQuery.class))).thenReturn(List.of(occurrence, row(booking1)));
+
+        BookingPageDto page = bookingService.getBookingPageForUser(1L, "ALL", "", 1);
+
+        assertEquals(new BookingCursor(booking1.getStart(), -7L), BookingCursor.decode(page.getNextCursor()));
+        assertTrue(captureQuery().isWithSeries());
+    }
+
+    @Test
+    void getBookingPageForOwner_lastPage_passesDecodedCursor() {
+        BookingCursor cursor = new BookingCursor(booking1.getStart(), 5L);
+        when(repository.findByQuery(any(BookingQuery.class))).thenReturn(rows(List.of(booking1)));
+
+        BookingPageDto page = bookingService.getBookingPageForOwner(1L, "WAITING", cursor.encode(), 10);
+
+        assertEquals(1, page.getContent().size());
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+        BookingQuery query = captureQuery();
+        assertEquals(BookingRole.OWNER, query.getRole());
+        assertEquals(cursor, query.getAfter());
+    }
+
+    @Test
+    void getBookingPageForUser_invalidCursor_ThrowsException() {
+        assertThrows(ValidationException.class,
+                () -> bookingService.getBookingPageForUser(1L, "ALL", "not-a-cursor", 10));
+    }
+
+    @Test
+    void approveBookings_mixedIds_updatesAcceptedInOneStatement() {
+        Booking foreign = new Booking(2L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), item2,
+                user1, Status.WAITING);
+        Booking approved = new Booking(3L, LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(4), item1,
+                user2, Status.APPROVED);
+        when(repository.findAllWithItemByIdIn(anyCollection())).thenReturn(List.of(booking1, foreign, approved));
+
+        List<BookingApprovalResultDto> results = bookingService.approveBookings(1L,
+                new BookingApprovalDto(List.of(1L, 2L, 3L, 4L, 1L), true));
+
+        assertEquals(4, results.size());
+        assertEquals(new BookingApprovalResultDto(1L, true, Status.APPROVED, null), results.get(0));
+        assertEquals("Менять статус бронирования может только владелец", results.get(1).getError());
+        assertEquals("Статус уже подтвержден!", results.get(2).getError());
+        assertEquals("Бронирование с ID=4 не найдено", results.get(3).getError());
+        verify(repository, times(1)).findAllWithItemByIdIn(anyCollection());
+        verify(repository).updateStatusByIdInAndStatus(List.of(1L), Status.WAITING, Status.APPROVED);
+        verify(repository, never()).getById(anyLong());
+        verify(eventPublisher, times(1)).publishEvent(any(BookingChangedEvent.class));
+    }
+
+    @Test
+    void approveBookings_reject_releasesSlots() {
+        when(repository.findAllWithItemByIdIn(anyCollection())).thenReturn(List.of(booking1));
+
+        List<BookingApprovalResultDto> results = bookingService.approveBookings(1L,
+                new BookingApprovalDto(List.of(1L), false));
+
+        assertEquals(Status.REJECTED, results.get(0).getStatus());
+        verify(availabilityIndex).release(any(BookingSlot.class));
+        verify(repository).updateStatusByIdInAndStatus(List.of(1L), Status.WAITING, Status.REJECTED);
+    }
+
+    @Test
+    void approveBookings_rowChangedBeforeLock_isReportedAsFailed() {
+        Booking expiredMeanwhile = new Booking(2L, LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(4),
+                item1, user2, Status.WAITING);
+        Booking rejected = new Booking(3L, LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(6), item1,
+                user2, Status.REJECTED);
+        when(repository.findAllWithItemByIdIn(anyCollection())).thenReturn(List.of(booking1, expiredMeanwhile,
+                rejected));
+        when(repository.lockIdsByIdInAndStatus(List.of(1L, 2L), "WAITING")).thenReturn(List.of(1L));
+
+        List<BookingApprovalResultDto> results = bookingService.approveBookings(1L,
+                new BookingApprovalDto(List.of(1L, 2L, 3L), true));
+
+        assertTrue(results.get(0).isUpdated());
+        assertEquals(new BookingApprovalResultDto(2L, false, null, "Статус бронирования уже изменился!"),
+                results.get(1));
+        assertTrue(results.get(2).isUpdated());
+        verify(repository).updateStatusByIdInAndStatus(List.of(1L), Status.WAITING, Status.APPROVED);
+        verify(repository).updateStatusByIdInAndStatus(List.of(3L), Status.REJECTED, Status.APPROVED);
+        verify(availabilityIndex, times(1)).reserve(any(BookingSlot.class));
+        ArgumentCaptor<BookingChangedEvent> events = ArgumentCaptor.forClass(BookingChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(List.of(Status.WAITING, Status.REJECTED), events.getAllValues().stream()
+                .map(BookingChangedEvent::getOldStatus)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void postRequests_validCart_insertsAllInOneBatch() {
+        Item item3 = new Item(3L, "Item 3", "Description 3", true, user1, null);
+        List<BookingDto> cart = List.of(
+                new BookingDto(null, booking1.getStart(), booking1.getEnd(), null, null, 1L, null),
+                new BookingDto(null, booking1.getStart(), booking1.getEnd(), null, null, 3L, null),
+                new BookingDto(null, booking1.getEnd(), booking1.getEnd().plusDays(1), null, null, 1L, null));
+        when(userService.findById(2L)).thenReturn(user2);
+        when(itemRepository.findAllWithOwnerByIdIn(anyCollection())).thenReturn(List.of(item1, item3));
+        doAnswer(invocation -> {
+            List<Booking> bookings = invocation.getArgument(0);
+            for (int i = 0; i < bookings.size(); i++) {
+                bookings.get(i).setId(10L + i);
+            }
+            return null;
+        }).when(repository).insertAll(anyList());
+
+        List<BookingFullDto> result = bookingService.postRequests(2L, cart);
+
+        assertEquals(List.of(10L, 11L, 12L), result.stream().map(BookingFullDto::getId).collect(Collectors.toList()));
+        assertEquals(3L, result.get(1).getItem().getId());
+        verify(repository, times(1)).insertAll(anyList());
+        verify(repository, never()).save(any(Booking.class));
+        verify(availabilityIndex, times(3)).reserve(any(BookingSlot.class));
+        verify(eventPublisher, never()).publishEvent(any(BookingChangedEvent.class));
+        ArgumentCaptor<BookingsChangedEvent> event = ArgumentCaptor.forClass(BookingsChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(List.of(10L, 11L, 12L), event.getValue().getChanges().stream()
+                .map(BookingChangedEvent::getBookingId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void postRequests_overlapInsideCart_ThrowsException() {
+        List<BookingDto> cart = List.of(
+                new BookingDto(null, booking1.getStart(), booking1.getEnd(), null, null, 1L, null),
+                new BookingDto(null, booking1.getStart().plusHours(1), booking1.getEnd(), null, null, 1L, null));
+        when(userService.findById(2L)).thenReturn(user2);
+        when(itemRepository.findAllWithOwnerByIdIn(anyCollection())).thenReturn(List.of(item1));
+
+        assertThrows(BookingNotAvailableException.class, () -> bookingService.postRequests(2L, cart));
+        verify(repository, never()).insertAll(anyList());
+    }
+
+    @Test
+    void postRequests_oneItemTaken_insertsNothing() {
+        Item item3 = new Item(3L, "Item 3", "Description 3", true, user1, null);
+        List<BookingDto> cart = List.of(
+                new BookingDto(null, booking1.getStart(), booking1.getEnd(), null, null, 1L, null),
+                new BookingDto(null, booking1.getStart(), booking1.getEnd(), null, null, 3L, null));
+        when(userService.findById(2L)).thenReturn(user2);
+        when(itemRepository.findAllWithOwnerByIdIn(anyCollection())).thenReturn(List.of(item1, item3));
+        when(availabilityIndex.hasOverlap(3L, booking1.getStart(), booking1.getEnd())).thenReturn(true);
+
+        assertThrows(BookingNotAvailableException.class, () -> bookingService.postRequests(2L, cart));
+        verify(repository, never()).insertAll(anyList());
+        verify(availabilityIndex, never()).reserve(any(BookingSlot.class));
+    }
+
+    @Test
+    void postRequests_ownItemOrMissingItem_ThrowsException() {
+        List<BookingDto> own = List.of(new BookingDto(null, booking1.getStart(), booking1.getEnd(), null, null, 1L,
+                null));
+        List<BookingDto> missing = List.of(new BookingDto(null, booking1.getStart(), booking1.getEnd(), null, null,
+                5L, null));
+        when(userService.findById(1L)).thenReturn(user1);
+        when(itemRepository.findAllWithOwnerByIdIn(anyCollection())).thenReturn(List.of(item1));
+
+        assertThrows(BookingByOwnerNotAvailableException.class, () -> bookingService.postRequests(1L, own));
+        assertThrows(ItemNotFoundException.class, () -> bookingService.postRequests(1L, missing));
+        assertThrows(ValidationException.class, () -> bookingService.postRequests(1L, List.of()));
+    }
+
+    @Test
+    void postSeries_storesOneRowAndReservesRule() {
+        BookingSeriesDto seriesDto = new BookingSeriesDto(null, 1L, null, booking1.getStart(),
+                booking1.getStart().plusHours(2), Recurrence.WEEKLY, booking1.getStart().plusWeeks(50), null);
+        when(itemService.findById(1L)).thenReturn(item1);
+        when(userService.findById(2L)).thenReturn(user2);
+        when(seriesRepository.save(any(BookingSeries.class))).thenAnswer(invocation -> {
+            BookingSeries series = invocation.getArgument(0);
+            series.setId(5L);
+            return series;
+        });
+
+        BookingSeriesDto result = bookingService.postSeries(2L, seriesDto);
+
+        assertEquals(5L, result.getId());
+        assertEquals(Status.WAITING, result.getStatus());
+        verify(seriesRepository, times(1)).save(any(BookingSeries.class));
+        verify(repository, never()).save(any(Booking.class));
+        verify(availabilityIndex).reserveSeries(any(SeriesSlot.class));
+        verify(seriesUsers).add(2L, 1L);
+        verify(eventPublisher).publishEvent(new BookingSeriesChangedEvent(5L, 1L, 1L, 2L, booking1.getStart(),
+                booking1.getStart().plusHours(2), Recurrence.WEEKLY, booking1.getStart().plusWeeks(50),
+                null, Status.WAITING));
+    }
+
+    @Test
+    void postSeries_invalidRecurrence_ThrowsException() {
+        when(itemService.findById(1L)).thenReturn(item1);
+        when(userService.findById(2L)).thenReturn(user2);
+
+        assertThrows(ValidationException.class, () -> bookingService.postSeries(2L, new BookingSeriesDto(null,
+                1L, null, booking1.getStart(), booking1.getStart().plusDays(2), Recurrence.DAILY,
+                booking1.getStart().plusWeeks(5), null)));
+        assertThrows(ValidationException.class, () -> bookingService.postSeries(2L, new BookingSeriesDto(null,
+                1L, null, booking1.getStart(), booking1.getEnd(), Recurrence.DAILY,
+                booking1.getStart().minusDays(1), null)));
+        assertThrows(ValidationException.class, () -> bookingService.postSeries(2L, new BookingSeriesDto(null,
+                1L, null, booking1.getStart(), booking1.getEnd(), null, booking1.getStart().plusDays(5), null)));
+        verify(seriesRepository, never()).save(any(BookingSeries.class));
+    }
+
+    @Test
+    void postSeries_overlappingOccurrence_ThrowsException() {
+        when(itemService.findById(1L)).thenReturn(item1);
+        when(userService.findById(2L)).thenReturn(user2);
+        when(availabilityIndex.hasOverlap(any(SeriesSlot.class))).thenReturn(true);
+
+        assertThrows(BookingNotAvailableException.class, () -> bookingService.postSeries(2L, new BookingSeriesDto(
+                null, 1L, null, booking1.getStart(), booking1.getEnd(), Recurrence.WEEKLY,
+                booking1.getStart().plusWeeks(5), null)));
+        verify(seriesRepository, never()).save(any(BookingSeries.class));
+    }
+
+    @Test
+    void postApproveSeries_rejectReleasesRuleAndNonOwnerFails() {
+        BookingSeries series = new BookingSeries(5L, booking1.getStart(), booking1.getEnd(), Recurrence.WEEKLY,
+                booking1.getStart().plusWeeks(5), item1, user2, Status.WAITING);
+        when(seriesRepository.findWithLockById(5L)).thenReturn(Optional.of(series));
+
+        assertThrows(UpdateNotAvailableException.class, () -> bookingService.postApproveSeries(5L, 2L, true));
+
+        BookingSeriesDto result = bookingService.postApproveSeries(5L, 1L, false);
+
+        assertEquals(Status.REJECTED, result.getStatus());
+        verify(availabilityIndex).releaseSeries(any(SeriesSlot.class));
+        verify(eventPublisher).publishEvent(new BookingSeriesChangedEvent(5L, 1L, 1L, 2L, booking1.getStart(),
+                booking1.getEnd(), Recurrence.WEEKLY, booking1.getStart().plusWeeks(5),
+                Status.WAITING, Status.REJECTED));
+    }
+
+    @Test
+    void approveBookings_noIds_ThrowsException() {
+        assertThrows(ValidationException.class, () -> bookingService.approveBookings(1L,
+                new BookingApprovalDto(List.of(), true)));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void approveBookings_noneAccepted_skipsUpdate() {
+        when(repository.findAllWithItemByIdIn(anyCollection())).thenReturn(List.of());
+
+        List<BookingApprovalResultDto> results = bookingService.approveBookings(1L,
+                new BookingApprovalDto(List.of(5L), true));
+
+        assertFalse(results.get(0).isUpdated());
+        verify(repository, never()).updateStatusByIdInAndStatus(anyCollection(), any(), any());
+    }
+
+    @Test
+    void getAllBookingRequestForOwner_zeroCounter_skipsListQuery() {
+        when(counters.hasNone(1L, BookingRole.OWNER, BookingState.WAITING)).thenReturn(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
+
+        assertTrue(bookingService.getAllBookingRequestForOwner(1L, "WAITING", 0, 10).isEmpty());
+        verify(repository, never()).findByQuery(any(BookingQuery.class));
+    }
+
+    @Test
+    void getBookingPageForUser_zeroCounterForUnknownUser_ThrowsException() {
+        when(counters.hasNone(99L, BookingRole.BOOKER, BookingState.ALL)).thenReturn(true);
+        when(userRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class, () -> bookingService.getBookingPageForUser(99L, "ALL", "", 10));
+        verify(repository, never()).findByQuery(any(BookingQuery.class));
+    }
+
+    @Test
+    void getBookingCountsForOwner_returnsCounters() {
+        BookingCountsDto counts = new BookingCountsDto(3L, Map.of(Status.WAITING, 3L));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
+        when(counters.getCounts(1L, BookingRole.OWNER)).thenReturn(counts);
+
+        assertEquals(counts, bookingService.getBookingCountsForOwner(1L));
+    }
+
+    @Test
+    void getBookingRequest_archivedBooking_isFoundInArchive() {
+        ArchivedBooking archived = new ArchivedBooking(5L, LocalDateTime.now().minusDays(60),
+                LocalDateTime.now().minusDays(59), item1, user2, Status.APPROVED);
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user2));
+        when(repository.findById(5L)).thenReturn(Optional.empty());
+        when(archivedRepository.findById(5L)).thenReturn(Optional.of(archived));
+
+        BookingFullDto result = bookingService.getBookingRequest(5L, 2L);
+
+        assertEquals(5L, result.getId());
+        assertEquals(Status.APPROVED, result.getStatus());
+    }
+
+    private BookingQuery captureQuery() {
+        ArgumentCaptor<BookingQuery> captor = ArgumentCaptor.forClass(BookingQuery.class);
+        verify(repository).findByQuery(captor.capture());
+        return captor.getValue();
+    }
+
+    private BookingQuery captureCurrentQuery() {
+        ArgumentCaptor<BookingQuery> captor = ArgumentCaptor.forClass(BookingQuery.class);
+        verify(currentBookings).findByQuery(captor.capture());
+        verify(repository, never()).findByQuery(any());
+        return captor.getValue();
+    }
+
+    private BookingRowDto row(Booking booking) {
+        Item item = booking.getItem();
+        User booker = booking.getBooker();
+        return new BookingRowDto(booking.getId(), booking.getStart(), booking.getEnd(), booking.getStatus(),
+                item.getId(), item.getName(), item.getDescription(), item.getAvailable(), item.getRequestId(),
+                booker.getId(), booker.getName(), booker.getEmail());
+    }
+
+    private List<BookingRowDto> rows(List<Booking> bookings) {
+        return bookings.stream()
+                .map(this::row)
+                .collect(Collectors.toList());
+    }
 }
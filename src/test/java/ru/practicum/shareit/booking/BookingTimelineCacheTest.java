@@ -0,0 +1,62 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BookingTimelineCacheTest {
+    private final LocalDateTime now = LocalDateTime.now();
+    private final BookingTimelineCache cache = new BookingTimelineCache(2);
+
+    @Test
+    void getNearest_rollsForwardAsTimePasses() {
+        BookingDto first = booking(1L, now.plusHours(1));
+        BookingDto second = booking(2L, now.plusHours(3));
+        cache.put(1L, List.of(first, second), cache.generation(), now);
+
+        assertEquals(new NearestBookings(first, second), cache.getNearest(1L, now.plusHours(2)));
+        assertEquals(new NearestBookings(second, null), cache.getNearest(1L, now.plusHours(4)));
+    }
+
+    @Test
+    void onBookingChanged_approvedBookingJoinsCachedTimeline() {
+        cache.put(1L, List.of(), cache.generation(), now);
+
+        cache.onBookingChanged(new BookingChangedEvent(7L, 1L, "Дрель", 1L, 2L, now.plusDays(1), now.plusDays(2),
+                Status.WAITING, Status.APPROVED));
+
+        assertEquals(7L, cache.getNearest(1L, now).getNext().getId());
+    }
+
+    @Test
+    void put_afterConcurrentChange_isNotCached() {
+        long generation = cache.generation();
+        cache.onBookingChanged(new BookingChangedEvent(7L, 1L, "Дрель", 1L, 2L, now.plusDays(1), now.plusDays(2),
+                Status.WAITING, Status.APPROVED));
+
+        cache.put(1L, List.of(), generation, now);
+
+        assertNull(cache.getNearest(1L, now));
+    }
+
+    @Test
+    void put_overCapacity_evictsLeastRecentlyUsed() {
+        cache.put(1L, List.of(), cache.generation(), now);
+        cache.put(2L, List.of(), cache.generation(), now);
+        cache.getNearest(1L, now);
+        cache.put(3L, List.of(), cache.generation(), now);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.getNearest(2L, now));
+    }
+
+    private BookingDto booking(Long id, LocalDateTime start) {
+        return new BookingDto(id, start, start.plusHours(1), Status.APPROVED, 2L, 1L, "Дрель");
+    }
+}
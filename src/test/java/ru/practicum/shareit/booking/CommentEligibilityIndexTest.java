@@ -0,0 +1,91 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CommentEligibilityIndexTest {
+    @Mock
+    private BookingRepository repository;
+    @Mock
+    private ArchivedBookingRepository archivedRepository;
+    @Mock
+    private BookingSeriesRepository seriesRepository;
+
+    @InjectMocks
+    private CommentEligibilityIndex index;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findFirstEndsByStatus(Status.APPROVED)).thenReturn(List.of(
+                new ItemBooker(1L, 5L, now.minusDays(1)),
+                new ItemBooker(1L, 3L, now.minusDays(2)),
+                new ItemBooker(2L, 5L, now.plusDays(1))));
+        when(archivedRepository.findFirstEndsByStatus(Status.APPROVED)).thenReturn(List.of(
+                new ItemBooker(1L, 9L, now.minusDays(90))));
+        when(seriesRepository.findFirstEndsByStatus(Status.APPROVED)).thenReturn(List.of(
+                new ItemBooker(4L, 7L, now.minusDays(3))));
+        index.load();
+    }
+
+    @Test
+    void canComment_onlyAfterApprovedBookingEnded() {
+        assertTrue(index.canComment(1L, 3L));
+        assertTrue(index.canComment(1L, 5L));
+        assertTrue(index.canComment(1L, 9L));
+        assertTrue(index.canComment(4L, 7L));
+        assertFalse(index.canComment(1L, 4L));
+        assertFalse(index.canComment(2L, 5L));
+        assertFalse(index.canComment(3L, 5L));
+        assertEquals(1, index.pendingCount());
+    }
+
+    @Test
+    void onBookingChanged_approvedBooking_becomesEligibleWhenItEnds() {
+        index.onBookingChanged(new BookingChangedEvent(7L, 3L, "Палатка", 1L, 6L, now.minusDays(2),
+                now.minusSeconds(1), Status.WAITING, Status.APPROVED));
+        index.onBookingChanged(new BookingChangedEvent(8L, 3L, "Палатка", 1L, 4L, now.minusDays(2),
+                now.minusSeconds(1), Status.WAITING, Status.REJECTED));
+        index.onBookingChanged(new BookingChangedEvent(9L, 3L, "Палатка", 1L, 2L, now.minusSeconds(1),
+                now.plusNanos(1_000_000), Status.WAITING, Status.APPROVED));
+
+        assertTrue(index.canComment(3L, 6L));
+        assertFalse(index.canComment(3L, 4L));
+        while (!LocalDateTime.now().isAfter(now.plusNanos(1_000_000))) {
+            Thread.onSpinWait();
+        }
+        assertTrue(index.canComment(3L, 2L));
+        assertEquals(1, index.pendingCount());
+    }
+
+    @Test
+    void onSeriesChanged_approvedSeries_becomesEligibleAfterFirstOccurrence() {
+        index.onSeriesChanged(new BookingSeriesChangedEvent(1L, 3L, 1L, 6L, now.minusDays(14),
+                now.minusDays(14).plusHours(2), Recurrence.WEEKLY, now.plusWeeks(10), Status.WAITING,
+                Status.APPROVED));
+        index.onSeriesChanged(new BookingSeriesChangedEvent(2L, 3L, 1L, 4L, now.minusDays(14),
+                now.minusDays(14).plusHours(2), Recurrence.WEEKLY, now.plusWeeks(10), Status.WAITING,
+                Status.REJECTED));
+        index.onSeriesChanged(new BookingSeriesChangedEvent(3L, 3L, 1L, 2L, now.plusDays(1),
+                now.plusDays(1).plusHours(2), Recurrence.DAILY, now.plusDays(10), null, Status.APPROVED));
+
+        assertTrue(index.canComment(3L, 6L));
+        assertFalse(index.canComment(3L, 4L));
+        assertFalse(index.canComment(3L, 2L));
+        assertEquals(2, index.pendingCount());
+    }
+}
@@ -0,0 +1,157 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.dto.BookingRowDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CurrentBookingIndexTest {
+    @Mock
+    private BookingRepository repository;
+    @Mock
+    private BookingSeriesRepository seriesRepository;
+
+    private CurrentBookingIndex index;
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+
+    @BeforeEach
+    void setUp() {
+        index = new CurrentBookingIndex(repository, seriesRepository, Duration.ofSeconds(1), 8);
+        when(repository.findActiveByEndAfter(any())).thenReturn(List.of(
+                booking(1L, now.minusHours(1), now.plusHours(1), 5L),
+                booking(2L, now.plusHours(2), now.plusHours(3), 5L),
+                booking(3L, now.minusHours(2), now.plusMinutes(30), 6L)));
+        when(seriesRepository.findActiveByUntilAfter(any())).thenReturn(List.of(
+                new ActiveBooking(7L, now.minusDays(1).minusMinutes(10), now.minusDays(1).plusMinutes(10),
+                        Recurrence.DAILY, now.plusDays(2), Status.APPROVED, 1L, 20L, "Палатка", "Двухместная",
+                        true, null, 5L, "Booker", "booker@test.com")));
+        index.load();
+    }
+
+    @Test
+    void findByQuery_returnsBookingsStraddlingNow_newestFirst() {
+        assertEquals(List.of(now.minusMinutes(10), now.minusHours(1)), starts(BookingRole.BOOKER, 5L, now));
+        assertEquals(List.of(now.minusMinutes(10), now.minusHours(1), now.minusHours(2)),
+                starts(BookingRole.OWNER, 1L, now));
+        assertEquals(7L, index.findByQuery(query(BookingRole.BOOKER, 5L, now)).get(0).getSeriesId());
+        assertEquals(3, index.activeCount());
+        assertEquals(4, index.trackedCount());
+    }
+
+    @Test
+    void findByQuery_timerWheelActivatesAndDeactivatesOverTime() {
+        assertEquals(List.of(now.minusHours(1)), starts(BookingRole.BOOKER, 5L, now.plusMinutes(15)));
+        assertEquals(List.of(), starts(BookingRole.BOOKER, 6L, now.plusMinutes(31)));
+        assertEquals(List.of(now.plusHours(2)), starts(BookingRole.BOOKER, 5L, now.plusHours(2).plusSeconds(1)));
+        assertEquals(List.of(now.plusDays(1).minusMinutes(10)),
+                starts(BookingRole.BOOKER, 5L, now.plusDays(1).minusMinutes(5)));
+        assertEquals(1, index.trackedCount());
+        assertEquals(List.of(), starts(BookingRole.OWNER, 1L, now.plusDays(3)));
+        assertEquals(0, index.trackedCount());
+    }
+
+    @Test
+    void findByQuery_pagesWithOffsetAndCursor() {
+        List<BookingRowDto> first = index.findByQuery(new BookingQuery(BookingRole.OWNER, 1L, BookingState.CURRENT,
+                now, 0, 2));
+        assertEquals(2, first.size());
+        BookingRowDto last = first.get(1);
+
+        List<BookingRowDto> next = index.findByQuery(new BookingQuery(BookingRole.OWNER, 1L, BookingState.CURRENT,
+                now, 0, 2, new BookingCursor(last.getStart(), last.getId())));
+        assertEquals(List.of(3L), next.stream().map(BookingRowDto::getId).collect(toList()));
+        assertTrue(index.findByQuery(new BookingQuery(BookingRole.OWNER, 1L, BookingState.CURRENT,
+                now, 3, 2)).isEmpty());
+    }
+
+    @Test
+    void updates_changeStatusAndDetailsOfTrackedBookings() {
+        index.onBookingChanged(new BookingChangedEvent(1L, 10L, "Дрель", 1L, 5L, now.minusHours(1),
+                now.plusHours(1), Status.WAITING, Status.APPROVED));
+        Item item = new Item(10L, "Перфоратор", "Мощный", false, new User(1L, "Owner", "owner@test.com"), null);
+        index.updateItem(item);
+        index.updateUser(new User(5L, "Renamed", "renamed@test.com"));
+        index.updateSeriesStatus(7L, Status.REJECTED);
+
+        List<BookingRowDto> rows = index.findByQuery(query(BookingRole.BOOKER, 5L, now));
+        assertEquals(Status.REJECTED, rows.get(0).getStatus());
+        BookingRowDto single = rows.get(1);
+        assertEquals(Status.APPROVED, single.getStatus());
+        assertEquals("Перфоратор", single.getItemName());
+        assertEquals(false, single.getItemAvailable());
+        assertEquals("renamed@test.com", single.getBookerEmail());
+        assertNull(single.getSeriesId());
+    }
+
+    @Test
+    void track_addsNewBookingOutsideTransaction() {
+        index.track(booking(4L, now.minusMinutes(1), now.plusMinutes(1), 8L));
+
+        assertEquals(List.of(now.minusMinutes(1)), starts(BookingRole.BOOKER, 8L, now));
+    }
+
+    @Test
+    void findByQuery_concurrentReadersAndWriters_seeConsistentIndex() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                long thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        if (thread % 2 == 0) {
+                            index.track(booking(100 + thread * 1000 + i, now.minusMinutes(1), now.plusHours(5), 9L));
+                        } else {
+                            LocalDateTime at = now.plusSeconds(i % 5);
+                            assertTrue(index.findByQuery(query(BookingRole.OWNER, 1L, at)).size() >= 3);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(800, starts(BookingRole.BOOKER, 9L, now.plusSeconds(5)).size());
+        assertEquals(804, index.trackedCount());
+    }
+
+    private List<LocalDateTime> starts(BookingRole role, Long userId, LocalDateTime at) {
+        return index.findByQuery(query(role, userId, at)).stream()
+                .map(BookingRowDto::getStart)
+                .collect(toList());
+    }
+
+    private BookingQuery query(BookingRole role, Long userId, LocalDateTime at) {
+        return new BookingQuery(role, userId, BookingState.CURRENT, at, 0, 20);
+    }
+
+    private ActiveBooking booking(Long id, LocalDateTime start, LocalDateTime end, Long bookerId) {
+        return new ActiveBooking(id, start, end, Status.WAITING, 1L, 10L, "Дрель", "Простая дрель", true, null,
+                bookerId, "Booker", "booker@test.com");
+    }
+}
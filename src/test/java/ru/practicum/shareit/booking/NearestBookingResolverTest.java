@@ -0,0 +1,118 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NearestBookingResolverTest {
+    @Mock
+    private BookingRepository repository;
+    @Mock
+    private ArchivedBookingRepository archivedRepository;
+    @Mock
+    private BookingAvailabilityIndex availabilityIndex;
+
+    private BookingTimelineCache timelineCache;
+    private NearestBookingResolver resolver;
+
+    private final BookingDto last = new BookingDto(1L, LocalDateTime.now().minusDays(2),
+            LocalDateTime.now().minusDays(1), Status.APPROVED, 5L, 1L, "Дрель");
+    private final BookingDto next = new BookingDto(2L, LocalDateTime.now().plusDays(1),
+            LocalDateTime.now().plusDays(2), Status.APPROVED, 5L, 1L, "Дрель");
+    private final BookingDto onlyNext = new BookingDto(3L, LocalDateTime.now().plusDays(3),
+            LocalDateTime.now().plusDays(4), Status.APPROVED, 6L, 2L, "Палатка");
+
+    @BeforeEach
+    void setUp() {
+        timelineCache = new BookingTimelineCache(100);
+        resolver = new NearestBookingResolver(repository, archivedRepository, timelineCache,
+                availabilityIndex);
+    }
+
+    @Test
+    void resolve_splitsRowsIntoLastAndNextPerItem() {
+        when(repository.findTimelinesByItemIds(anyCollection(), eq(Status.APPROVED), any(LocalDateTime.class)))
+                .thenReturn(List.of(last, next, onlyNext));
+
+        Map<Long, NearestBookings> result = resolver.resolve(List.of(1L, 2L, 3L));
+
+        assertEquals(new NearestBookings(last, next), result.get(1L));
+        assertNull(result.get(2L).getLast());
+        assertEquals(onlyNext, result.get(2L).getNext());
+        assertEquals(new NearestBookings(null, null), result.get(3L));
+    }
+
+    @Test
+    void resolve_cachedItems_skipQuery() {
+        when(repository.findTimelinesByItemIds(anyCollection(), eq(Status.APPROVED), any(LocalDateTime.class)))
+                .thenReturn(List.of(last, next, onlyNext));
+        resolver.resolve(List.of(1L, 2L, 3L));
+
+        Map<Long, NearestBookings> result = resolver.resolve(List.of(1L, 2L, 3L));
+
+        verify(repository, times(1)).findTimelinesByItemIds(anyCollection(), any(), any());
+        assertEquals(new NearestBookings(last, next), result.get(1L));
+        assertEquals(3, timelineCache.getHits());
+        assertEquals(3, timelineCache.getMisses());
+    }
+
+    @Test
+    void resolve_lastBookingOnlyInArchive_isTakenFromArchive() {
+        BookingDto archivedLast = new BookingDto(4L, LocalDateTime.now().minusDays(90),
+                LocalDateTime.now().minusDays(89), Status.APPROVED, 6L, 2L, "Палатка");
+        when(repository.findTimelinesByItemIds(anyCollection(), eq(Status.APPROVED), any(LocalDateTime.class)))
+                .thenReturn(List.of(last, next, onlyNext));
+        when(archivedRepository.findLastByItemIds(List.of(2L), Status.APPROVED)).thenReturn(List.of(archivedLast));
+
+        Map<Long, NearestBookings> result = resolver.resolve(List.of(1L, 2L));
+
+        assertEquals(new NearestBookings(last, next), result.get(1L));
+        assertEquals(new NearestBookings(archivedLast, onlyNext), result.get(2L));
+    }
+
+    @Test
+    void resolve_noItems_skipsQuery() {
+        assertTrue(resolver.resolve(List.of()).isEmpty());
+        verifyNoInteractions(repository, archivedRepository);
+    }
+
+    @Test
+    void resolve_approvedSeries_closerOccurrencesReplaceBookings() {
+        LocalDateTime seriesStart = LocalDateTime.now().minusDays(10).plusHours(1);
+        SeriesSlot daily = new SeriesSlot(9L, 1L, 7L, seriesStart, seriesStart.plusHours(1), Recurrence.DAILY,
+                seriesStart.plusDays(30), Status.APPROVED);
+        SeriesSlot waiting = new SeriesSlot(10L, 2L, 7L, seriesStart, seriesStart.plusHours(1), Recurrence.DAILY,
+                seriesStart.plusDays(30), Status.WAITING);
+        when(repository.findTimelinesByItemIds(anyCollection(), eq(Status.APPROVED), any(LocalDateTime.class)))
+                .thenReturn(List.of(last, next, onlyNext));
+        when(availabilityIndex.getSeries(1L)).thenReturn(List.of(daily));
+        when(availabilityIndex.getSeries(2L)).thenReturn(List.of(waiting));
+
+        Map<Long, NearestBookings> result = resolver.resolve(List.of(1L, 2L));
+
+        assertEquals(seriesStart.plusDays(9), result.get(1L).getLast().getStart());
+        assertEquals(seriesStart.plusDays(10), result.get(1L).getNext().getStart());
+        assertEquals(7L, result.get(1L).getNext().getBookerId());
+        assertEquals(onlyNext, result.get(2L).getNext());
+        assertEquals(new NearestBookings(last, next), timelineCache.getNearest(1L, LocalDateTime.now()));
+    }
+}
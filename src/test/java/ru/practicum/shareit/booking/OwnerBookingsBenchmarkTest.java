@@ -0,0 +1,81 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.booking.dto.BookingRowDto;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Slf4j
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OwnerBookingsBenchmarkTest {
+    private static final int ITEMS = 10_000;
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private BookingRepository repository;
+
+    private Statistics statistics;
+    private User owner;
+    private Long lastItemId;
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        owner = em.persist(new User(null, "Owner", "owner@test.com"));
+        User booker = em.persist(new User(null, "Booker", "booker@test.com"));
+        em.getEntityManager()
+                .createNativeQuery("insert into items (name, description, available, owner_id) " +
+                        "select concat('Вещь ', x), 'Описание', true, ? from system_range(1, ?)")
+                .setParameter(1, owner.getId())
+                .setParameter(2, ITEMS)
+                .executeUpdate();
+        em.getEntityManager()
+                .createNativeQuery("insert into bookings (start_date, end_date, item_id, booker_id, status) " +
+                        "select dateadd(HOUR, id, ?), dateadd(HOUR, id + 1, ?), id, ?, 'APPROVED' " +
+                        "from items where owner_id = ?")
+                .setParameter(1, now.plusDays(1))
+                .setParameter(2, now.plusDays(1))
+                .setParameter(3, booker.getId())
+                .setParameter(4, owner.getId())
+                .executeUpdate();
+        lastItemId = ((Number) em.getEntityManager()
+                .createNativeQuery("select max(id) from items where owner_id = ?")
+                .setParameter(1, owner.getId())
+                .getSingleResult()).longValue();
+        em.clear();
+    }
+
+    @Test
+    void ownerWithTenThousandItems_seesBookingsOfEveryItemInOneStatementPerTable() {
+        for (int offset : new int[]{0, ITEMS / 2, ITEMS - 10}) {
+            em.clear();
+            statistics.clear();
+            long started = System.nanoTime();
+
+            List<BookingRowDto> page = repository.findByQuery(
+                    new BookingQuery(BookingRole.OWNER, owner.getId(), BookingState.FUTURE, now, offset, 10));
+
+            log.info("Владелец с {} вещами, offset={}: {} мкс", ITEMS, offset,
+                    (System.nanoTime() - started) / 1_000);
+            assertEquals(10, page.size());
+            assertEquals(2, statistics.getPrepareStatementCount());
+        }
+
+        List<BookingRowDto> firstPage = repository.findByQuery(
+                new BookingQuery(BookingRole.OWNER, owner.getId(), BookingState.ALL, now, 0, 10));
+        assertEquals(lastItemId, firstPage.get(0).getItemId());
+    }
+}
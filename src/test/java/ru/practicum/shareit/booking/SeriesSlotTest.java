@@ -0,0 +1,47 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeriesSlotTest {
+    private final LocalDateTime start = LocalDateTime.of(2030, 1, 7, 10, 0);
+    private final SeriesSlot weekly = new SeriesSlot(1L, 2L, 3L, start, start.plusHours(2), Recurrence.WEEKLY,
+            start.plusWeeks(10).plusDays(3), Status.APPROVED);
+
+    @Test
+    void indexes_boundariesAreExclusive() {
+        assertEquals(10, weekly.lastIndex());
+        assertEquals(-1, weekly.lastStartBefore(start, false));
+        assertEquals(0, weekly.lastStartBefore(start, true));
+        assertEquals(1, weekly.firstStartAfter(start));
+        assertEquals(1, weekly.firstEndAfter(start.plusHours(2)));
+        assertEquals(0, weekly.firstEndAfter(start.plusHours(1)));
+        assertEquals(-1, weekly.lastEndBefore(start.plusHours(2)));
+        assertEquals(3, weekly.lastEndBefore(start.plusWeeks(4).plusHours(1)));
+        assertEquals(10, weekly.lastStartBefore(start.plusYears(500), false));
+        assertEquals(0, weekly.firstEndAfter(start.minusYears(500)));
+    }
+
+    @Test
+    void overlaps_onlyInsideOccurrences() {
+        assertTrue(weekly.overlaps(start.plusWeeks(5).plusHours(1), start.plusWeeks(5).plusHours(3)));
+        assertFalse(weekly.overlaps(start.plusWeeks(5).plusHours(2), start.plusWeeks(6)));
+        assertFalse(weekly.overlaps(start.plusWeeks(11), start.plusWeeks(11).plusHours(1)));
+    }
+
+    @Test
+    void occurrences_expandsOnlyRequestedWindow() {
+        List<BookingSlot> slots = weekly.occurrences(start.plusWeeks(2).plusHours(1), start.plusWeeks(4));
+
+        assertEquals(List.of(
+                new BookingSlot(1L, 2L, start.plusWeeks(2), start.plusWeeks(2).plusHours(2)),
+                new BookingSlot(1L, 2L, start.plusWeeks(3), start.plusWeeks(3).plusHours(2))), slots);
+        assertEquals(start.plusWeeks(10).plusHours(2), weekly.lastEnd());
+    }
+}
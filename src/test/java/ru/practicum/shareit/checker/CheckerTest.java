@@ -5,16 +5,10 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import ru.practicum.shareit.booking.Booking;
-import ru.practicum.shareit.booking.BookingRepository;
-import ru.practicum.shareit.booking.BookingService;
-import ru.practicum.shareit.booking.Status;
-import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.booking.CommentEligibilityIndex;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserService;
 
-import java.time.LocalDateTime;
-
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -27,10 +21,7 @@ class CheckerTest {
     UserService userService;
 
     @Mock
-    BookingService bookingService;
-
-    @Mock
-    BookingRepository bookingRepository;
+    CommentEligibilityIndex commentEligibility;
 
     @BeforeEach
     void setUp() {
@@ -55,34 +46,6 @@ class CheckerTest {
         assertFalse(result);
     }
 
-    @Test
-    void getUserBookingForItem_validInput_returnsBooking() {
-        Booking booking = new Booking();
-        when(bookingService.getBookingWithUserBookedItem(1L, 1L)).thenReturn(booking);
-
-        Booking result = checker.getUserBookingForItem(1L, 1L);
-        assertEquals(booking, result);
-    }
-
-    @Test
-    void getUserBookingForItem_invalidInput_returnsNull() {
-        when(bookingService.getBookingWithUserBookedItem(1L, 1L)).thenReturn(null);
-
-        Booking result = checker.getUserBookingForItem(1L, 1L);
-        assertNull(result);
-    }
-
-    @Test
-    void getNextBookingByItem_validInput_returnsBooking() {
-        Item item = new Item();
-        Booking booking = new Booking();
-        when(bookingRepository.findFirstByItemAndStatusAndStartAfterOrderByStart(any(Item.class), eq(Status.APPROVED), any(LocalDateTime.class)))
-                .thenReturn(booking);
-
-        Booking result = checker.getNextBookingByItem(item);
-        assertEquals(booking, result);
-    }
-
     @Test
     void isValidString_validString_returnsTrue() {
         assertTrue(checker.isValidString("test"));
@@ -116,12 +79,11 @@ class CheckerTest {
     }
 
     @Test
-    void getLastBookingByItem_validInput_returnsBooking() {
-        Item item = new Item();
-        Booking booking = new Booking();
-        when(bookingRepository.findFirstByItemAndStatusAndStartBeforeOrderByStartDesc(any(Item.class), eq(Status.APPROVED), any(LocalDateTime.class)))
-                .thenReturn(booking);
-        Booking result = checker.getLastBookingByItem(item);
-        assertEquals(booking, result);
+    void hasFinishedBooking_asksEligibilityIndex() {
+        when(commentEligibility.canComment(1L, 2L)).thenReturn(true);
+
+        assertTrue(checker.hasFinishedBooking(1L, 2L));
+        assertFalse(checker.hasFinishedBooking(1L, 3L));
+        verifyNoInteractions(bookingService);
     }
 }
@@ -8,15 +8,19 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.FreeIntervalDto;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemStatsDto;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ItemController.class)
@@ -70,6 +74,17 @@ public class ItemControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void testSuggestItemNames() throws Exception {
+        given(itemService.suggestItemNames("др", 5)).willReturn(List.of("Дрель"));
+
+        mockMvc.perform(get("/items/suggest")
+                        .param("prefix", "др")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value("Дрель"));
+    }
+
     @Test
     public void testCreateItem() throws Exception {
         ItemDto requestDto = new ItemDto(null, "TestItem", "Description", true, null, null, null, null, null);
@@ -116,4 +131,30 @@ public class ItemControllerTest {
                         .content(json))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetItemAvailability() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 1, 18, 0);
+        given(itemService.getItemAvailability(1L, from, to))
+                .willReturn(List.of(new FreeIntervalDto(from, to)));
+
+        mockMvc.perform(get("/items/1/availability")
+                        .param("from", "2030-01-01T10:00:00")
+                        .param("to", "2030-01-01T18:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    public void testGetOwnerItemStats() throws Exception {
+        given(itemService.getOwnerItemStats(123L)).willReturn(List.of(
+                new ItemStatsDto(1L, "2030-01", 3L, 1L, 1L, 1L, 1.0 / 3, 0.25)));
+
+        mockMvc.perform(get("/items/stats")
+                        .header(OWNER, "123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].month").value("2030-01"))
+                .andExpect(jsonPath("$[0].occupancy").value(0.25));
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemNameTrieTest {
+    @Mock
+    private ItemRepository itemRepository;
+
+    private ItemNameTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new ItemNameTrie(itemRepository);
+        when(itemRepository.findAllDocuments()).thenReturn(List.of(
+                new ItemDocument(1L, 1L, "Дрель", "Простая дрель", true, null),
+                new ItemDocument(2L, 1L, "Дрель ударная", "Мощная", true, null),
+                new ItemDocument(3L, 2L, "дрель", "Ещё одна", true, null),
+                new ItemDocument(4L, 2L, "Дровокол", "Колун", true, null),
+                new ItemDocument(5L, 2L, "Домкрат", "Недоступен", false, null),
+                new ItemDocument(6L, 3L, "Ёлка", "Искусственная", true, null)));
+        trie.load();
+    }
+
+    @Test
+    void suggest_ordersByItemCountAndSkipsUnavailable() {
+        assertEquals("Дрель", trie.suggest("Д", 10).get(0));
+        assertEquals(3, trie.suggest("д", 10).size());
+        assertEquals(List.of("Дрель"), trie.suggest(" ДР ", 1));
+        assertEquals(List.of("Дрель ударная"), trie.suggest("дрель у", 10));
+        assertEquals(List.of("Ёлка"), trie.suggest("ел", 10));
+        assertTrue(trie.suggest("дом", 10).isEmpty());
+        assertTrue(trie.suggest("дрыг", 10).isEmpty());
+        assertTrue(trie.suggest(" ", 10).isEmpty());
+        assertEquals(5, trie.size());
+    }
+
+    @Test
+    void index_updatesRenamedAndHiddenItems() {
+        User owner = new User(2L, "Owner", "owner@test.com");
+        trie.index(new Item(4L, "Пила", "Бывший дровокол", true, owner, null));
+        trie.index(new Item(5L, "Домкрат", "Теперь доступен", true, owner, null));
+        trie.index(new Item(2L, "Дрель ударная", "Скрыта", false, new User(1L, "User", "user@test.com"), null));
+
+        assertEquals(List.of("Дрель"), trie.suggest("др", 10));
+        assertEquals(List.of("Домкрат"), trie.suggest("до", 10));
+        assertEquals(List.of("Пила"), trie.suggest("п", 10));
+    }
+
+    @Test
+    void remove_dropsItemsAndWholeOwners() {
+        trie.remove(1L);
+        assertEquals(List.of("Дрель", "Дрель ударная"), trie.suggest("дрел", 10));
+
+        trie.removeByOwner(2L);
+        assertEquals(List.of("Дрель ударная"), trie.suggest("д", 10));
+
+        trie.removeByOwner(1L);
+        assertTrue(trie.suggest("д", 10).isEmpty());
+        assertEquals(List.of("Ёлка"), trie.suggest("е", 10));
+        assertEquals(1, trie.size());
+    }
+}
@@ -0,0 +1,110 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemSearchCacheTest {
+    private final ItemSearchCache cache = new ItemSearchCache(2);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void get_normalizedTextAndPage_hitsCache() {
+        assertEquals(page("дрель"), cache.get("Дрель", 0, 10, () -> load("дрель")));
+        assertEquals(page("дрель"), cache.get("  ДРЕЛЬ ", 0, 10, () -> load("дрель")));
+        cache.get("дрель", 1, 10, () -> load("дрель"));
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void invalidate_bumpsVersion_andStalePagesAreReloaded() {
+        cache.get("палатка", 0, 10, () -> load("палатка"));
+        cache.invalidate();
+
+        cache.get("палатка", 0, 10, () -> load("палатка"));
+
+        assertEquals(1, cache.getVersion());
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void get_isBoundedByMaxEntries() {
+        cache.get("a", 0, 10, () -> load("a"));
+        cache.get("b", 0, 10, () -> load("b"));
+        cache.get("c", 0, 10, () -> load("c"));
+        cache.get("a", 0, 10, () -> load("a"));
+
+        assertEquals(2, cache.size());
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void get_concurrentMisses_loadOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<ItemDto>>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get("дрель", 0, 10, () -> {
+                loading.countDown();
+                await(release);
+                return load("дрель");
+            })));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> cache.get("дрель", 0, 10, () -> load("дрель"))));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<List<ItemDto>> result : results) {
+                assertEquals(page("дрель"), result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_failedLoad_isNotCached() {
+        assertThrows(IllegalStateException.class, () -> cache.get("дрель", 0, 10, () -> {
+            throw new IllegalStateException("База недоступна");
+        }));
+
+        assertEquals(page("дрель"), cache.get("дрель", 0, 10, () -> load("дрель")));
+    }
+
+    private List<ItemDto> load(String text) {
+        loads.incrementAndGet();
+        return page(text);
+    }
+
+    private List<ItemDto> page(String text) {
+        return List.of(new ItemDto(1L, text, "Описание", true, null, null, null, null, null));
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
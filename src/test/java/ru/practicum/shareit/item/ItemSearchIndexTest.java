@@ -0,0 +1,85 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+    @Mock
+    private ItemRepository itemRepository;
+
+    @InjectMocks
+    private ItemSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(itemRepository.findAllDocuments()).thenReturn(List.of(
+                new ItemDocument(1L, 10L, "Аккумуляторная дрель", "Лёгкая, с двумя батареями", true, null),
+                new ItemDocument(2L, 10L, "Отвёртка", "Подходит к дрели как бита", true, null),
+                new ItemDocument(3L, 11L, "Дрель", "Ударная дрель", true, 5L),
+                new ItemDocument(4L, 11L, "Дрель старая", "Сломана", false, null)));
+        index.load();
+    }
+
+    @Test
+    void search_prefixMatchesOnlyAvailableItems_byRelevance() {
+        assertEquals(List.of(3L, 1L, 2L), ids("дрел", 0, 10));
+        assertEquals(List.of(3L, 1L), ids("ДРЕЛЬ", 0, 10));
+        assertEquals(List.of(1L), ids("дрель легкая", 0, 10));
+        assertEquals(List.of(), ids("сломана", 0, 10));
+        assertEquals(List.of(), ids("рель", 0, 10));
+    }
+
+    @Test
+    void search_pagesLikePageRequest() {
+        assertEquals(List.of(3L, 1L), ids("дрел", 0, 2));
+        assertEquals(List.of(2L), ids("дрел", 1, 2));
+        assertEquals(List.of(), ids("дрел", 2, 2));
+    }
+
+    @Test
+    void search_returnsItemFieldsWithoutOwner() {
+        ItemDto item = index.search("ударная", 0, 10).get(0);
+
+        assertEquals("Дрель", item.getName());
+        assertEquals("Ударная дрель", item.getDescription());
+        assertEquals(5L, item.getRequestId());
+        assertEquals(true, item.getAvailable());
+    }
+
+    @Test
+    void index_updatesAndRemovesItemsIncrementally() {
+        User owner = new User(11L, "Owner", "owner@test.com");
+        index.index(new Item(4L, "Перфоратор", "Починен", true, owner, null));
+        index.index(new Item(5L, "Дрель-шуруповёрт", "Новая", true, owner, null));
+        index.remove(1L);
+
+        assertEquals(List.of(3L, 5L, 2L), ids("дрел", 0, 10));
+        assertEquals(List.of(4L), ids("перф", 0, 10));
+        assertEquals(List.of(), ids("сломана", 0, 10));
+
+        index.removeByOwner(11L);
+
+        assertEquals(List.of(2L), ids("дрел", 0, 10));
+        assertEquals(1, index.size());
+    }
+
+    private List<Long> ids(String text, int from, int size) {
+        return index.search(text, from, size).stream()
+                .map(ItemDto::getId)
+                .collect(toList());
+    }
+}
@@ -5,10 +5,18 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.BookingAvailabilityIndex;
+import ru.practicum.shareit.booking.CurrentBookingIndex;
+import ru.practicum.shareit.booking.NearestBookingResolver;
+import ru.practicum.shareit.booking.NearestBookings;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.FreeIntervalDto;
 import ru.practicum.shareit.checker.Checker;
 import ru.practicum.shareit.exception.EntityNotFoundException;
 import ru.practicum.shareit.exception.ItemNotFoundException;
@@ -16,15 +24,21 @@ import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemStatsDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemStats;
+import ru.practicum.shareit.item.model.ItemStatsId;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
-import java.util.ArrayList;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -41,6 +55,20 @@ public class ItemServiceImplTest {
     private CommentRepository commentRepository;
     @Mock
     private Checker checker;
+    @Mock
+    private NearestBookingResolver nearestBookingResolver;
+    @Mock
+    private BookingAvailabilityIndex availabilityIndex;
+    @Mock
+    private ItemStatsRepository statsRepository;
+    @Mock
+    private CurrentBookingIndex currentBookings;
+    @Mock
+    private SearchBackend searchBackend;
+    @Spy
+    private ItemSearchCache searchCache = new ItemSearchCache(100);
+    @Mock
+    private ItemNameTrie itemNames;
 
     @InjectMocks
     private ItemServiceImpl itemService;
@@ -137,13 +165,16 @@ public class ItemServiceImplTest {
         User user = new User();
         user.setId(ownerId);
         Item item = new Item();
+        item.setId(1L);
         item.setOwner(user);
 
         Comment comment = new Comment();
         User author = new User();
         author.setName("Test Author");
         comment.setAuthor(author);
-        when(commentRepository.findAllByItem(item)).thenReturn(Collections.singletonList(comment));
+        comment.setItem(item);
+        when(commentRepository.findAllWithAuthorByItemIdIn(List.of(1L)))
+                .thenReturn(Collections.singletonList(comment));
 
         when(userRepository.getById(ownerId)).thenReturn(user);
         when(checker.isExistUser(ownerId)).thenReturn(true);
@@ -159,13 +190,27 @@ public class ItemServiceImplTest {
 
     @Test
     public void testGetItemsBySearchQuerySuccess() {
-        List<Item> items = new ArrayList<>();
-        Page<Item> itemPage = new PageImpl<>(items);
+        List<ItemDto> items = List.of(new ItemDto(1L, "Дрель", "Простая дрель", true, null, null, null, null, null));
+        when(searchBackend.search("Дрель", 0, 10)).thenReturn(items);
+
+        assertEquals(items, itemService.getItemsBySearchQuery("Дрель", 0, 10));
+        assertEquals(items, itemService.getItemsBySearchQuery(" дрель ", 0, 10));
+        verify(searchBackend, times(1)).search(any(), anyInt(), anyInt());
+        verify(itemRepository, never()).getItemsBySearchQuery(any(), any());
+    }
 
-        when(itemRepository.getItemsBySearchQuery(any(), any())).thenReturn(itemPage);
+    @Test
+    public void testSuggestItemNames_capsLimitAndSkipsDatabase() {
+        when(itemNames.suggest("др", 50)).thenReturn(List.of("Дрель", "Дрель ударная"));
 
-        itemService.getItemsBySearchQuery("test", 0, 10);
-        verify(itemRepository).getItemsBySearchQuery(any(), any());
+        assertEquals(List.of("Дрель", "Дрель ударная"), itemService.suggestItemNames("др", 1000));
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    public void testGetItemsBySearchQuery_blankText_ReturnsEmptyWithoutSearch() {
+        assertTrue(itemService.getItemsBySearchQuery(" ", 0, 10).isEmpty());
+        verifyNoInteractions(searchBackend);
     }
 
     @Test
@@ -177,13 +222,16 @@ public class ItemServiceImplTest {
         User user = new User();
         user.setId(ownerId);
         Item item = new Item();
+        item.setId(1L);
         item.setOwner(user);
 
         Comment comment = new Comment();
         User author = new User();
         author.setName("Test Author");
         comment.setAuthor(author);
-        when(commentRepository.findAllByItem(item)).thenReturn(Collections.singletonList(comment));
+        comment.setItem(item);
+        when(commentRepository.findAllWithAuthorByItemIdIn(List.of(1L)))
+                .thenReturn(Collections.singletonList(comment));
 
         when(userRepository.getById(ownerId)).thenReturn(user);
         when(checker.isExistUser(ownerId)).thenReturn(true);
@@ -197,19 +245,104 @@ public class ItemServiceImplTest {
         assertEquals(item.getName(), result.get(0).getName());
     }
 
+    @Test
+    public void testGetItemsByOwner_SetsNearestBookingsInOneBatch() {
+        BookingDto last = new BookingDto(1L, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                Status.APPROVED, 2L, 1L, "Item 1");
+        BookingDto next = new BookingDto(2L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                Status.APPROVED, 2L, 1L, "Item 1");
+        when(checker.isExistUser(1L)).thenReturn(true);
+        when(userRepository.getById(1L)).thenReturn(user1);
+        when(itemRepository.findAllByOwnerOrderById(user1, PageRequest.of(0, 10)))
+                .thenReturn(new PageImpl<>(List.of(item1)));
+        when(nearestBookingResolver.resolve(List.of(1L))).thenReturn(Map.of(1L, new NearestBookings(last, next)));
+
+        List<ItemDto> result = itemService.getItemsByOwner(1L, 0, 10);
+
+        assertEquals(last, result.get(0).getLastBooking());
+        assertEquals(next, result.get(0).getNextBooking());
+        verify(nearestBookingResolver, times(1)).resolve(any());
+    }
+
+    @Test
+    public void testGetItemsByOwner_LoadsCommentsOnceAndGroupsByItem() {
+        Item item2 = new Item(2L, "Item 2", "Description 2", true, user1, null);
+        User author = new User(2L, "Author", "author@test.com");
+        Comment first = new Comment(1L, "Первый", item1, author, LocalDateTime.now().minusDays(2));
+        Comment second = new Comment(2L, "Второй", item2, author, LocalDateTime.now().minusDays(1));
+        Comment third = new Comment(3L, "Третий", item1, author, LocalDateTime.now());
+        when(checker.isExistUser(1L)).thenReturn(true);
+        when(userRepository.getById(1L)).thenReturn(user1);
+        when(itemRepository.findAllByOwnerOrderById(user1, PageRequest.of(0, 10)))
+                .thenReturn(new PageImpl<>(List.of(item1, item2)));
+        when(commentRepository.findAllWithAuthorByItemIdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(first, second, third));
+
+        List<ItemDto> result = itemService.getItemsByOwner(1L, 0, 10);
+
+        assertEquals(List.of("Первый", "Третий"), result.get(0).getComments().stream()
+                .map(CommentDto::getText)
+                .collect(Collectors.toList()));
+        assertEquals(List.of("Второй"), result.get(1).getComments().stream()
+                .map(CommentDto::getText)
+                .collect(Collectors.toList()));
+        verify(commentRepository, times(1)).findAllWithAuthorByItemIdIn(any());
+        verify(commentRepository, never()).findAllByItem(any());
+    }
+
+    @Test
+    public void testGetItemById_OwnerGetsNearestBookings() {
+        BookingDto next = new BookingDto(2L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                Status.APPROVED, 2L, 1L, "Item 1");
+        when(checker.isExistUser(1L)).thenReturn(true);
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item1));
+        when(nearestBookingResolver.resolve(List.of(1L))).thenReturn(Map.of(1L, new NearestBookings(null, next)));
+
+        ItemDto result = itemService.getItemById(1L, 1L);
+
+        assertNull(result.getLastBooking());
+        assertEquals(next, result.getNextBooking());
+    }
+
     @Test
     public void testCreateCommentUserNotFound() {
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item1));
         when(checker.isExistUser(any())).thenReturn(false);
         assertThrows(UserNotFoundException.class, () -> itemService.createComment(new CommentDto(), 1L, 1L));
     }
 
     @Test
     public void testCreateCommentNoBookingForItem() {
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item1));
+        when(checker.hasFinishedBooking(1L, 1L)).thenReturn(false);
         when(checker.isExistUser(any())).thenReturn(true);
-        when(checker.getUserBookingForItem(any(), any())).thenReturn(null);
         assertThrows(ValidationException.class, () -> itemService.createComment(new CommentDto(), 1L, 1L));
     }
 
+    @Test
+    public void testCreateComment_itemNotFound_ThrowsBeforeEligibilityCheck() {
+        when(itemRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ItemNotFoundException.class, () -> itemService.createComment(new CommentDto(), 1L, 1L));
+        verify(checker, never()).hasFinishedBooking(any(), any());
+    }
+
+    @Test
+    public void testCreateComment_eligibleUser_skipsUserAndBookingLookup() {
+        CommentDto commentDto = new CommentDto();
+        commentDto.setText("Отличная дрель");
+        when(checker.hasFinishedBooking(1L, 1L)).thenReturn(true);
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item1));
+        when(userRepository.getById(1L)).thenReturn(user1);
+        when(commentRepository.save(any(Comment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CommentDto result = itemService.createComment(commentDto, 1L, 1L);
+
+        assertEquals("Отличная дрель", result.getText());
+        assertEquals(user1.getName(), result.getAuthorName());
+        verify(checker, never()).isExistUser(any());
+    }
+
     @Test
     public void testFindByIdItemNotFound() {
         when(itemRepository.findById(any())).thenReturn(Optional.empty());
@@ -259,6 +392,9 @@ public class ItemServiceImplTest {
         itemService.update(itemDto, ownerId, itemId);
 
         verify(item).setName(validName);
+        verify(currentBookings).updateItem(item);
+        verify(searchBackend).index(item);
+        verify(searchCache).invalidate();
     }
 
     @Test
@@ -324,4 +460,55 @@ public class ItemServiceImplTest {
 
         assertEquals(itemId, itemDto.getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetItemAvailability_PastStartIsClippedToNow() {
+        LocalDateTime to = LocalDateTime.now().plusDays(1);
+        List<FreeIntervalDto> free = List.of(new FreeIntervalDto(LocalDateTime.now(), to));
+        when(itemRepository.existsById(1L)).thenReturn(true);
+        when(availabilityIndex.getFreeIntervals(eq(1L), any(LocalDateTime.class), eq(to))).thenReturn(free);
+
+        assertEquals(free, itemService.getItemAvailability(1L, LocalDateTime.now().minusDays(1), to));
+    }
+
+    @Test
+    public void testGetItemAvailability_InvalidWindow_ThrowsException() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+
+        assertThrows(ValidationException.class, () -> itemService.getItemAvailability(1L, from, from));
+        verifyNoInteractions(availabilityIndex);
+    }
+
+    @Test
+    public void testGetItemAvailability_UnknownItem_ThrowsException() {
+        when(itemRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(ItemNotFoundException.class, () -> itemService.getItemAvailability(1L,
+                LocalDateTime.now(), LocalDateTime.now().plusDays(1)));
+    }
+
+    @Test
+    public void testGetItemStats_NotOwner_ThrowsException() {
+        item1.setId(1L);
+        item1.setOwner(user1);
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item1));
+
+        assertThrows(ItemNotFoundException.class, () -> itemService.getItemStats(1L, 2L));
+        verifyNoInteractions(statsRepository);
+    }
+
+    @Test
+    public void testGetOwnerItemStats() {
+        ItemStats stats = new ItemStats(new ItemStatsId(1L, LocalDate.of(2030, 2, 1)), 1L,
+                4L, 2L, 1L, 1L, 28L * 24 * 60);
+        when(checker.isExistUser(1L)).thenReturn(true);
+        when(statsRepository.findAllByOwnerIdOrderByIdItemIdAscIdMonthAsc(1L)).thenReturn(List.of(stats));
+
+        List<ItemStatsDto> result = itemService.getOwnerItemStats(1L);
+
+        assertEquals(1, result.size());
+        assertEquals("2030-02", result.get(0).getMonth());
+        assertEquals(0.5, result.get(0).getApprovalRate());
+        assertEquals(1.0, result.get(0).getOccupancy());
+    }
+}
@@ -0,0 +1,110 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.practicum.shareit.booking.BookingChangedEvent;
+import ru.practicum.shareit.booking.BookingSeriesChangedEvent;
+import ru.practicum.shareit.booking.BookingsChangedEvent;
+import ru.practicum.shareit.booking.Recurrence;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.item.dto.ItemStatsDto;
+import ru.practicum.shareit.item.model.ItemStats;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class ItemStatsAggregatorTest {
+    @Autowired
+    private ItemStatsRepository repository;
+    @Autowired
+    private ItemRepository itemRepository;
+
+    private ItemStatsAggregator aggregator;
+
+    private final LocalDateTime start = LocalDateTime.of(2030, 1, 31, 12, 0);
+    private final LocalDateTime end = LocalDateTime.of(2030, 2, 1, 12, 0);
+
+    @BeforeEach
+    void setUp() {
+        aggregator = new ItemStatsAggregator(repository, itemRepository);
+    }
+
+    @Test
+    void apply_lifecycleOfBookings_aggregatesIntoMonthBuckets() {
+        aggregator.onBookingChanged(event(1L, null, Status.WAITING));
+        aggregator.onBookingChanged(event(2L, null, Status.WAITING));
+        aggregator.onBookingChanged(event(3L, null, Status.WAITING));
+        aggregator.onBookingChanged(event(1L, Status.WAITING, Status.APPROVED));
+        aggregator.onBookingChanged(event(2L, Status.WAITING, Status.REJECTED));
+        aggregator.onBookingChanged(event(3L, Status.WAITING, Status.EXPIRED));
+
+        List<ItemStats> stats = repository.findAllByIdItemIdOrderByIdMonth(1L);
+
+        assertEquals(2, stats.size());
+        assertEquals(new ItemStats(stats.get(0).getId(), 10L, 3L, 1L, 1L, 1L, 12L * 60), stats.get(0));
+        assertEquals(new ItemStats(stats.get(1).getId(), 10L, 0L, 0L, 0L, 0L, 12L * 60), stats.get(1));
+        List<ItemStatsDto> dtos = repository.findAllByOwnerIdOrderByIdItemIdAscIdMonthAsc(10L).stream()
+                .map(ItemMapper::toItemStatsDto)
+                .collect(toList());
+        assertEquals("2030-01", dtos.get(0).getMonth());
+        assertEquals(1.0 / 3, dtos.get(0).getApprovalRate());
+        assertEquals(12.0 / (31 * 24), dtos.get(0).getOccupancy());
+        assertEquals(null, dtos.get(1).getApprovalRate());
+    }
+
+    @Test
+    void apply_approvalOfRejectedBooking_movesCounters() {
+        aggregator.onBookingChanged(event(1L, null, Status.WAITING));
+        aggregator.onBookingChanged(event(1L, Status.WAITING, Status.REJECTED));
+        aggregator.onBookingChanged(event(1L, Status.REJECTED, Status.APPROVED));
+
+        ItemStats january = repository.findAllByIdItemIdOrderByIdMonth(1L).get(0);
+
+        assertEquals(1L, january.getApproved());
+        assertEquals(0L, january.getRejected());
+        assertEquals(1L, january.getRequested());
+    }
+
+    @Test
+    void onBookingsChanged_sumsBatchIntoOneUpdatePerMonth() {
+        aggregator.onBookingsChanged(new BookingsChangedEvent(List.of(
+                event(1L, null, Status.WAITING),
+                event(2L, null, Status.WAITING),
+                event(2L, Status.WAITING, Status.APPROVED))));
+        aggregator.onBookingsChanged(new BookingsChangedEvent(List.of(event(1L, Status.WAITING, Status.REJECTED))));
+
+        List<ItemStats> stats = repository.findAllByIdItemIdOrderByIdMonth(1L);
+
+        assertEquals(2, stats.size());
+        assertEquals(new ItemStats(stats.get(0).getId(), 10L, 2L, 1L, 1L, 0L, 12L * 60), stats.get(0));
+        assertEquals(new ItemStats(stats.get(1).getId(), 10L, 0L, 0L, 0L, 0L, 12L * 60), stats.get(1));
+    }
+
+    @Test
+    void onSeriesChanged_countsEveryOccurrenceInItsMonth() {
+        LocalDateTime first = LocalDateTime.of(2030, 1, 24, 10, 0);
+        BookingSeriesChangedEvent created = new BookingSeriesChangedEvent(7L, 1L, 10L, 20L, first,
+                first.plusHours(2), Recurrence.WEEKLY, first.plusWeeks(2), null, Status.WAITING);
+        BookingSeriesChangedEvent approved = new BookingSeriesChangedEvent(7L, 1L, 10L, 20L, first,
+                first.plusHours(2), Recurrence.WEEKLY, first.plusWeeks(2), Status.WAITING, Status.APPROVED);
+
+        aggregator.onSeriesChanged(created);
+        aggregator.onSeriesChanged(approved);
+
+        List<ItemStats> stats = repository.findAllByIdItemIdOrderByIdMonth(1L);
+
+        assertEquals(2, stats.size());
+        assertEquals(new ItemStats(stats.get(0).getId(), 10L, 2L, 2L, 0L, 0L, 2L * 2 * 60), stats.get(0));
+        assertEquals(new ItemStats(stats.get(1).getId(), 10L, 1L, 1L, 0L, 0L, 2L * 60), stats.get(1));
+    }
+
+    private BookingChangedEvent event(Long bookingId, Status oldStatus, Status newStatus) {
+        return new BookingChangedEvent(bookingId, 1L, "Дрель", 10L, 20L, start, end, oldStatus, newStatus);
+    }
+}
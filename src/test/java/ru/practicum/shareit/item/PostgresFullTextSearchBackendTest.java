@@ -0,0 +1,96 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Поиск по настоящему PostgreSQL: ранжирование ts_rank_cd, префиксы и русская морфология. На H2 эти запросы
+ * не выполняются, поэтому тест запускается только с адресом базы:
+ * mvn test -Dtest=PostgresFullTextSearchBackendTest -Dshareit.search.postgres.url=jdbc:postgresql://localhost/shareit
+ * [-Dshareit.search.postgres.user=... -Dshareit.search.postgres.password=...].
+ * Таблица создаётся в отдельной схеме, которая удаляется после теста.
+ */
+@EnabledIfSystemProperty(named = "shareit.search.postgres.url", matches = ".+")
+class PostgresFullTextSearchBackendTest {
+    private static final String SCHEMA = "shareit_search_test";
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private PostgresFullTextSearchBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource(System.getProperty("shareit.search.postgres.url"),
+                System.getProperty("shareit.search.postgres.user", "postgres"),
+                System.getProperty("shareit.search.postgres.password", ""), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("drop schema if exists " + SCHEMA + " cascade");
+        jdbcTemplate.execute("create schema " + SCHEMA);
+        jdbcTemplate.execute("set search_path to " + SCHEMA);
+        jdbcTemplate.execute("create table items (id bigint primary key, name varchar(255), " +
+                "description varchar(512), available boolean, request_id bigint)");
+        insert(1L, "Ножовка", "Пила по дереву", true);
+        insert(2L, "Пила", "Цепная", true);
+        insert(3L, "Дрель ударная", "Мощная", true);
+        insert(4L, "Дрель старая", "Сломана", false);
+        insert(5L, "Отвертка", "Для дрели не подходит", true);
+        backend = new PostgresFullTextSearchBackend(jdbcTemplate);
+        backend.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop schema if exists " + SCHEMA + " cascade");
+        dataSource.destroy();
+    }
+
+    @Test
+    void search_ranksNameMatchAboveDescriptionMatch() {
+        assertEquals(List.of(2L, 1L), ids("пила", 0, 10));
+    }
+
+    @Test
+    void search_matchesPrefixesAndWordFormsOfAvailableItems() {
+        assertEquals(List.of(3L, 5L), ids("дрел", 0, 10));
+        assertEquals(List.of(3L, 5L), ids("дрели", 0, 10));
+        assertEquals(List.of(3L), ids("ударная дрель", 0, 10));
+        assertEquals(List.of(), ids("сломана", 0, 10));
+        assertEquals(List.of(), ids("&|!", 0, 10));
+    }
+
+    @Test
+    void search_pagesByPageNumber() {
+        assertEquals(List.of(3L), ids("дрель", 0, 1));
+        assertEquals(List.of(5L), ids("дрель", 1, 1));
+        assertEquals(List.of(), ids("дрель", 2, 1));
+    }
+
+    @Test
+    void init_isIdempotent() {
+        backend.init();
+
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from pg_indexes " +
+                "where schemaname = ? and indexname = 'items_search_idx'", Integer.class, SCHEMA));
+    }
+
+    private List<Long> ids(String text, int from, int size) {
+        return backend.search(text, from, size).stream()
+                .map(ItemDto::getId)
+                .collect(toList());
+    }
+
+    private void insert(Long id, String name, String description, boolean available) {
+        jdbcTemplate.update("insert into items (id, name, description, available) values (?, ?, ?, ?)",
+                id, name, description, available);
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.shareit.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сравнение движков поиска на сгенерированном каталоге: скорость индексации, задержка запроса и прирост кучи.
+ * Запуск: mvn test -Dtest=SearchBackendBenchmarkTest -Dshareit.search.benchmark=true
+ * [-Dshareit.search.benchmark.items=1000000].
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "shareit.search.benchmark", matches = "true")
+@DataJpaTest(properties = {"shareit.item.search.backend=h2", "shareit.search.benchmark=true"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SearchBackendBenchmarkTest {
+    private static final int ITEMS = Integer.getInteger("shareit.search.benchmark.items", 1_000_000);
+    private static final int RUNS = 20;
+    private static final List<String> QUERIES = List.of("дрель", "палатка", "велосипед", "лестница", "ремонта");
+
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compareBackends() {
+        User owner = userRepository.save(new User(null, "Owner", "owner@test.com"));
+        jdbcTemplate.update("insert into items (name, description, available, owner_id) " +
+                "select concat(case mod(x, 6) when 0 then 'Дрель' when 1 then 'Палатка' when 2 then 'Велосипед' " +
+                "when 3 then 'Лестница' when 4 then 'Шуруповерт' else 'Перфоратор' end, ' ', x), " +
+                "concat('Модель ', mod(x, 1000), case mod(x, 3) when 0 then ' для дачи' " +
+                "when 1 then ' для ремонта' else ' в аренду' end), mod(x, 10) <> 0, ? " +
+                "from system_range(1, ?)", owner.getId(), ITEMS);
+
+        measure("jpql", () -> new JpqlSearchBackend(itemRepository));
+        measure("memory", () -> {
+            ItemSearchIndex index = new ItemSearchIndex(itemRepository);
+            index.load();
+            return index;
+        });
+        measure("h2", () -> {
+            H2FullTextSearchBackend fullText = new H2FullTextSearchBackend(jdbcTemplate);
+            fullText.init();
+            return fullText;
+        });
+    }
+
+    private void measure(String name, Supplier<SearchBackend> build) {
+        long heapBefore = usedHeap();
+        long started = System.nanoTime();
+        SearchBackend backend = build.get();
+        long indexNanos = System.nanoTime() - started;
+        long heapAfter = usedHeap();
+
+        for (String query : QUERIES) {
+            assertEquals(10, backend.search(query, 0, 10).size(), name + ": " + query);
+        }
+        started = System.nanoTime();
+        for (int run = 0; run < RUNS; run++) {
+            for (String query : QUERIES) {
+                backend.search(query, run % 5, 10);
+            }
+        }
+        long queryMicros = (System.nanoTime() - started) / 1_000 / (RUNS * QUERIES.size());
+
+        log.info("{}: {} вещей, индексация {} мс ({} вещей/с), запрос {} мкс, куча +{} МБ", name, ITEMS,
+                indexNanos / 1_000_000, ITEMS * 1_000_000_000L / Math.max(indexNanos, 1),
+                queryMicros, Math.max(0, heapAfter - heapBefore) / (1024 * 1024));
+    }
+
+    private long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
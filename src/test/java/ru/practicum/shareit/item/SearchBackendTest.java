@@ -0,0 +1,91 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "shareit.item.search.backend=h2")
+class SearchBackendTest {
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<SearchBackend> backends;
+    private ItemSearchIndex memory;
+    private User owner;
+    private Item drill;
+
+    @BeforeEach
+    void setUp() {
+        H2FullTextSearchBackend fullText = new H2FullTextSearchBackend(jdbcTemplate);
+        fullText.init();
+        owner = em.persist(new User(null, "Owner", "owner@test.com"));
+        drill = em.persist(new Item(null, "Дрель", "Ударная дрель", true, owner, null));
+        em.persist(new Item(null, "Дрель старая", "Сломана", false, owner, null));
+        em.persist(new Item(null, "Отвертка", "Для дрели не подходит", true, owner, null));
+        em.flush();
+        memory = new ItemSearchIndex(itemRepository);
+        memory.load();
+        backends = List.of(new JpqlSearchBackend(itemRepository), memory, fullText);
+    }
+
+    @Test
+    void everyBackend_findsOnlyAvailableItems() {
+        for (SearchBackend backend : backends) {
+            assertEquals(List.of(drill.getId()), ids(backend, "дрель"), backend.getClass().getSimpleName());
+            assertEquals(List.of(), ids(backend, "сломана"), backend.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void everyBackend_pagesByPageNumber() {
+        for (SearchBackend backend : backends) {
+            assertEquals(List.of(drill.getId()), ids(backend, "дрель", 0, 1), backend.getClass().getSimpleName());
+            assertEquals(List.of(), ids(backend, "дрель", 1, 1), backend.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void everyBackend_ranksNameMatchesBeforeDescriptionMatches() {
+        Item saw = em.persist(new Item(null, "Ножовка", "Пила по дереву", true, owner, null));
+        Item chainsaw = em.persist(new Item(null, "Пила", "Цепная", true, owner, null));
+        em.flush();
+        memory.load();
+
+        for (SearchBackend backend : backends) {
+            assertEquals(List.of(chainsaw.getId(), saw.getId()), ids(backend, "пила"),
+                    backend.getClass().getSimpleName());
+            assertEquals(List.of(chainsaw.getId()), ids(backend, "пила", 0, 1), backend.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void postgresQuery_searchesEveryWordByPrefix() {
+        assertEquals("ударная:* & дрель:*", PostgresFullTextSearchBackend.toQuery(" Ударная, дрель! "));
+        assertEquals("", PostgresFullTextSearchBackend.toQuery("&|!"));
+    }
+
+    private List<Long> ids(SearchBackend backend, String text) {
+        return ids(backend, text, 0, 10);
+    }
+
+    private List<Long> ids(SearchBackend backend, String text, int from, int size) {
+        return backend.search(text, from, size).stream()
+                .map(ItemDto::getId)
+                .collect(toList());
+    }
+}
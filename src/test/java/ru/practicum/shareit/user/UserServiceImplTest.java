@@ -8,9 +8,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import ru.practicum.shareit.booking.BookingCounters;
+import ru.practicum.shareit.booking.CurrentBookingIndex;
 import ru.practicum.shareit.checker.Checker;
 import ru.practicum.shareit.exception.EntityAlreadyExistsException;
 import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.item.ItemNameTrie;
+import ru.practicum.shareit.item.ItemSearchCache;
+import ru.practicum.shareit.item.SearchBackend;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.util.Optional;
@@ -27,6 +32,21 @@ public class UserServiceImplTest {
     @Mock
     private Checker checker;
 
+    @Mock
+    private BookingCounters bookingCounters;
+
+    @Mock
+    private CurrentBookingIndex currentBookings;
+
+    @Mock
+    private SearchBackend searchBackend;
+
+    @Mock
+    private ItemSearchCache searchCache;
+
+    @Mock
+    private ItemNameTrie itemNames;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -56,6 +76,7 @@ public class UserServiceImplTest {
         assertNotNull(result);
         assertEquals(userDto.getName(), result.getName());
         assertEquals(userDto.getEmail(), result.getEmail());
+        verify(bookingCounters).createFor(1L);
     }
 
     @Test
@@ -75,6 +96,7 @@ public class UserServiceImplTest {
         assertNotNull(result);
         assertEquals(userDto.getName(), result.getName());
         assertEquals(userDto.getEmail(), result.getEmail());
+        verify(currentBookings).updateUser(user);
     }
 
     @Test